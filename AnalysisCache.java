@@ -0,0 +1,139 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* Solver results by position, keyed on the BoardHash of the visible state
+ * (GameEngine.getStateHash), so asking again without moving, or coming back
+ * to a position, costs a lookup instead of a solve.
+ * Least recently used entries are dropped once there are more than
+ * maxEntries, or more than maxValues cells and probabilities stored in all.
+ * Hits and misses are counted to help size it. Safe for use from several
+ * threads. */
+public class AnalysisCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+    public static final long DEFAULT_MAX_VALUES = 1<<22;
+
+    private final int maxEntries;
+    private final long maxValues;
+    private final LinkedHashMap<Long,Analysis> entries = new LinkedHashMap<Long,Analysis>(16,0.75f,true);
+    private long values;
+    private long hits;
+    private long misses;
+
+    public AnalysisCache()
+    {
+        this(DEFAULT_MAX_ENTRIES,DEFAULT_MAX_VALUES);
+    }
+
+    public AnalysisCache(int maxEntries, long maxValues)
+    {
+        if(maxEntries<1 || maxValues<1)
+            throw new IllegalArgumentException("Cache must hold at least one entry");
+        this.maxEntries = maxEntries;
+        this.maxValues = maxValues;
+    }
+
+    // The results for a position, or null (a miss) if not kept
+    public synchronized Analysis get(long hash)
+    {
+        Analysis analysis = entries.get(hash);
+        if(analysis==null)
+            misses++;
+        else
+            hits++;
+        return analysis;
+    }
+
+    public synchronized void put(long hash, Analysis analysis)
+    {
+        if(analysis==null)
+            throw new IllegalArgumentException("Analysis cannot be null");
+        Analysis old = entries.put(hash,analysis);
+        if(old!=null)
+            values -= old.size();
+        values += analysis.size();
+        Iterator<Analysis> eldest = entries.values().iterator();
+        while(entries.size()>1 && (entries.size()>maxEntries || values>maxValues))
+        {
+            values -= eldest.next().size();
+            eldest.remove();
+        }
+    }
+
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+    public long getMaxValues()
+    {
+        return maxValues;
+    }
+
+    // Drops every entry; the counters are kept
+    public synchronized void clear()
+    {
+        entries.clear();
+        values = 0;
+    }
+
+    /* What the solvers found for one position: the cells proven safe and
+     * proven mines, the mine probability of every cell (null if none were
+     * computed) and the suggested move (-1 if none). Not to be changed once
+     * cached. */
+    public static final class Analysis {
+        private final int[] safeCells;
+        private final int[] mineCells;
+        private final double[] probabilities;
+        private final int suggestion;
+
+        public Analysis(int[] safeCells, int[] mineCells, double[] probabilities, int suggestion)
+        {
+            this.safeCells = safeCells;
+            this.mineCells = mineCells;
+            this.probabilities = probabilities;
+            this.suggestion = suggestion;
+        }
+
+        public int[] getSafeCells()
+        {
+            return safeCells;
+        }
+
+        public int[] getMineCells()
+        {
+            return mineCells;
+        }
+
+        public double[] getProbabilities()
+        {
+            return probabilities;
+        }
+
+        public int getSuggestion()
+        {
+            return suggestion;
+        }
+
+        private long size()
+        {
+            return 1+safeCells.length+mineCells.length+(probabilities==null ? 0 : probabilities.length);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/* Tests for the solver results cache */
+public class AnalysisCacheTest {
+
+    private static AnalysisCache.Analysis analysis(int suggestion, int probabilities) {
+        return new AnalysisCache.Analysis(new int[0], new int[0],
+                probabilities == 0 ? null : new double[probabilities], suggestion);
+    }
+
+    // Tests the counters and that the least recently used entry goes first
+    @Test
+    public void testLeastRecentlyUsedDropped() {
+        AnalysisCache cache = new AnalysisCache(2, 1000);
+        cache.put(1L, analysis(10, 0));
+        cache.put(2L, analysis(20, 0));
+        assertEquals(10, cache.get(1L).getSuggestion());
+        cache.put(3L, analysis(30, 0));
+        assertNull(cache.get(2L));
+        assertEquals(10, cache.get(1L).getSuggestion());
+        assertEquals(30, cache.get(3L).getSuggestion());
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    // Tests that entries are dropped to keep the stored values in bounds,
+    // but the newest is always kept
+    @Test
+    public void testValuesBounded() {
+        AnalysisCache cache = new AnalysisCache(10, 100);
+        cache.put(1L, analysis(1, 40));
+        cache.put(2L, analysis(2, 40));
+        cache.put(3L, analysis(3, 40));
+        assertNull(cache.get(1L));
+        assertEquals(2, cache.size());
+        cache.put(4L, analysis(4, 500));
+        assertEquals(1, cache.size());
+        assertEquals(4, cache.get(4L).getSuggestion());
+        cache.put(4L, analysis(5, 0));
+        cache.put(6L, analysis(6, 0));
+        assertEquals(2, cache.size());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullAnalysis() {
+        new AnalysisCache().put(1L, null);
+    }
+}
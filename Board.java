@@ -0,0 +1,288 @@
+import java.util.Arrays;
+
+/* Primitive storage for a single minesweeper board.
+ * Cells are addressed by a flat index (row*cols + col). Each cell keeps one
+ * byte holding two counts (adjacent mines in the low nibble, adjacent
+ * flagged or hit tiles in the high nibble), and the mine/exposed/flagged/
+ * pressed/hit states are kept as bits packed into long words, so a board
+ * costs about 1.6 bytes per cell and no objects are created while a game
+ * is played. */
+public class Board {
+
+    // Tile text for counts 0-8, so building a grid never creates strings
+    private static final String[] NUMBERS = {ControllerToModel.EMPTY,"1","2","3","4","5","6","7","8"};
+
+    private final int rows;
+    private final int cols;
+    private final int size;
+
+    // Low nibble: number of mines adjacent to each cell (0-8), filled in by
+    // computeCounts. High nibble: number of adjacent tiles that are flagged
+    // or are mines the player hit (0-8), kept up to date by addMarkedAround
+    private final byte[] counts;
+    // One bit per cell, 64 cells per word
+    private final long[] mineBits;
+    private final long[] exposedBits;
+    private final long[] flaggedBits;
+    // Set once a numbered tile has been pressed by the player, so the
+    // next press on it can autocomplete the surrounding tiles
+    private final long[] pressedBits;
+    // Mines the player hit and survived (extra lives)
+    private final long[] hitBits;
+
+    public Board(int rows, int cols)
+    {
+        if(rows<1 || cols<1)
+            throw new IllegalArgumentException("Board must have at least one row and column");
+        if((long)rows*cols>Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Board too large: "+rows+" x "+cols);
+        this.rows = rows;
+        this.cols = cols;
+        size = rows*cols;
+        counts = new byte[size];
+        int words = (size+63)>>>6;
+        mineBits = new long[words];
+        exposedBits = new long[words];
+        flaggedBits = new long[words];
+        pressedBits = new long[words];
+        hitBits = new long[words];
+    }
+
+    public int getRows()
+    {
+        return rows;
+    }
+
+    public int getCols()
+    {
+        return cols;
+    }
+
+    // Total number of cells on the board
+    public int size()
+    {
+        return size;
+    }
+
+    public int index(int row, int col)
+    {
+        return row*cols+col;
+    }
+
+    public int rowOf(int index)
+    {
+        return index/cols;
+    }
+
+    public int colOf(int index)
+    {
+        return index%cols;
+    }
+
+    public boolean inBounds(int row, int col)
+    {
+        return row>=0 && col>=0 && row<rows && col<cols;
+    }
+
+    public boolean isMine(int index)
+    {
+        return get(mineBits,index);
+    }
+
+    public void setMine(int index, boolean mine)
+    {
+        set(mineBits,index,mine);
+    }
+
+    // The k-th cell (counting from 0, in index order) without a mine, or
+    // -1 if there are not that many; counts the free cells a word at a time
+    public int nonMineCell(int k)
+    {
+        for(int w = 0;w<mineBits.length;w++)
+        {
+            long free = ~mineBits[w];
+            if(w==mineBits.length-1 && (size & 63)!=0) // no cells past the last
+                free &= (1L<<size)-1;
+            int count = Long.bitCount(free);
+            if(k<count)
+            {
+                for(int i = 0;i<k;i++) // drop the k lowest free cells
+                    free &= free-1;
+                return (w<<6)+Long.numberOfTrailingZeros(free);
+            }
+            k -= count;
+        }
+        return -1;
+    }
+
+    // Makes every cell a mine
+    public void setAllMines()
+    {
+        Arrays.fill(mineBits,-1L);
+        if((size & 63)!=0) // clear the bits past the last cell
+            mineBits[mineBits.length-1] = (1L<<size)-1;
+    }
+
+    public boolean isExposed(int index)
+    {
+        return get(exposedBits,index);
+    }
+
+    public void setExposed(int index, boolean exposed)
+    {
+        set(exposedBits,index,exposed);
+    }
+
+    public boolean isFlagged(int index)
+    {
+        return get(flaggedBits,index);
+    }
+
+    public void setFlagged(int index, boolean flagged)
+    {
+        set(flaggedBits,index,flagged);
+    }
+
+    public boolean isPressed(int index)
+    {
+        return get(pressedBits,index);
+    }
+
+    public void setPressed(int index, boolean pressed)
+    {
+        set(pressedBits,index,pressed);
+    }
+
+    public boolean isHit(int index)
+    {
+        return get(hitBits,index);
+    }
+
+    public void setHit(int index, boolean hit)
+    {
+        set(hitBits,index,hit);
+    }
+
+    public int getCount(int index)
+    {
+        return counts[index] & 0x0F;
+    }
+
+    public void setCount(int index, int count)
+    {
+        counts[index] = (byte)((counts[index] & 0xF0) | count);
+    }
+
+    // Number of tiles around the cell that are flagged or hit mines
+    public int getMarkedAround(int index)
+    {
+        return (counts[index] & 0xF0)>>>4;
+    }
+
+    // Adds delta (+1 or -1) to the marked count of every tile around the
+    // cell, when the cell becomes or stops being flagged/hit
+    public void addMarkedAround(int index, int delta)
+    {
+        addAround(index,delta<<4);
+    }
+
+    // Adds step to the count byte of the 3x3 block around index, clamped
+    // to the board, leaving index itself unchanged
+    private void addAround(int index, int step)
+    {
+        int row = index/cols;
+        int col = index-row*cols;
+        int firstCol = Math.max(col-1,0);
+        int lastCol = Math.min(col+1,cols-1);
+        int last = Math.min(row+1,rows-1)*cols;
+        for(int start = Math.max(row-1,0)*cols;start<=last;start += cols)
+            for(int c = firstCol;c<=lastCol;c++)
+                counts[start+c] += step;
+        counts[index] -= step;
+    }
+
+    // Fills in the adjacent mine count of every cell from the mine bits
+    // (and clears the marked counts), before a game starts.
+    // Walks the set bits word by word and adds one to the 3x3 block around
+    // each mine, clamped to the board, then takes the mine's own cell back
+    // out: O(cells/64 + mines) with no per-neighbor edge checks. Mine cells
+    // end up holding the number of mines next to them, like other cells.
+    public void computeCounts()
+    {
+        Arrays.fill(counts,(byte)0);
+        for(int w = 0;w<mineBits.length;w++)
+        {
+            long word = mineBits[w];
+            while(word!=0)
+            {
+                int mine = (w<<6)+Long.numberOfTrailingZeros(word);
+                word &= word-1;
+                addAround(mine,1);
+            }
+        }
+    }
+
+    // Moves the mine at from to the empty cell to, updating the counts of
+    // the tiles around both: O(1) instead of recomputing the board
+    public void moveMine(int from, int to)
+    {
+        setMine(from,false);
+        addAround(from,-1);
+        setMine(to,true);
+        addAround(to,1);
+    }
+
+    // Returns the tile text for the cell: MINE, EMPTY or the count "1"-"8"
+    public String tileText(int index)
+    {
+        if(isMine(index))
+            return ControllerToModel.MINE;
+        return NUMBERS[getCount(index)];
+    }
+
+    // Builds the String view of the board used by the view and the hint logic
+    public String[][] toGrid()
+    {
+        String[][] grid = new String[rows][cols];
+        for(int i = 0;i<rows;i++)
+            for(int j = 0;j<cols;j++)
+                grid[i][j] = tileText(i*cols+j);
+        return grid;
+    }
+
+    // Copies the exposed bits into the given matrix (allocated if null or
+    // the wrong shape) and returns it
+    public boolean[][] exposedMatrix(boolean[][] into)
+    {
+        if(into==null || into.length!=rows || into[0].length!=cols)
+            into = new boolean[rows][cols];
+        for(int i = 0;i<rows;i++)
+            for(int j = 0;j<cols;j++)
+                into[i][j] = isExposed(i*cols+j);
+        return into;
+    }
+
+    // Same as exposedMatrix, for the flagged bits
+    public boolean[][] flaggedMatrix(boolean[][] into)
+    {
+        if(into==null || into.length!=rows || into[0].length!=cols)
+            into = new boolean[rows][cols];
+        for(int i = 0;i<rows;i++)
+            for(int j = 0;j<cols;j++)
+                into[i][j] = isFlagged(i*cols+j);
+        return into;
+    }
+
+    private static boolean get(long[] bits, int index)
+    {
+        return (bits[index>>>6] & (1L<<index))!=0;
+    }
+
+    private static void set(long[] bits, int index, boolean value)
+    {
+        if(value)
+            bits[index>>>6] |= 1L<<index;
+        else
+            bits[index>>>6] &= ~(1L<<index);
+    }
+}
@@ -0,0 +1,48 @@
+/* Zobrist hashing of what the player sees.
+ * Every (cell, visible value) pair has a random 64-bit key, and the hash of
+ * a position is the board's own key xor'd with the keys of its cells. A
+ * hidden cell's key is 0, so a new game hashes to the board key alone, and
+ * exposing or flagging a tile changes the hash by one or two xors: Model
+ * keeps it up to date on every move at no real cost.
+ * Keys come from a fixed mix of the cell and value rather than a stored
+ * table, so boards of any size need no memory for them and every model
+ * gives the same position the same hash. */
+public final class BoardHash {
+
+    private BoardHash()
+    {
+    }
+
+    // Key of a board size and mine count, the hash of its new game
+    public static long board(int rows, int cols, int mines)
+    {
+        return mix(((long)rows<<40) ^ ((long)cols<<20) ^ mines ^ 0x5DEECE66DL);
+    }
+
+    // Key of cell showing value (GameEngine.getVisibleValue); 0 for HIDDEN
+    public static long key(int cell, int value)
+    {
+        if(value==GameEngine.HIDDEN)
+            return 0;
+        // Values -2..9 fit in 4 bits
+        return mix(((long)cell<<4) | (value+2));
+    }
+
+    // Hash of a whole visible state, as Model keeps it move by move
+    public static long of(int rows, int cols, int mines, int[] visible)
+    {
+        long hash = board(rows,cols,mines);
+        for(int cell = 0;cell<rows*cols;cell++)
+            hash ^= key(cell,visible[cell]);
+        return hash;
+    }
+
+    // SplitMix64 finalizer: spreads consecutive inputs over all 64 bits
+    private static long mix(long z)
+    {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z^(z>>>30))*0xBF58476D1CE4E5B9L;
+        z = (z^(z>>>27))*0x94D049BB133111EBL;
+        return z^(z>>>31);
+    }
+}
@@ -0,0 +1,70 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+/* Tests for the visible-state hash Model keeps move by move */
+public class BoardHashTest {
+
+    // Tests that the hash kept by the model always equals the hash of the
+    // whole visible state, through presses, chords and flags
+    @Test
+    public void testIncrementalMatchesFull() {
+        Random rng = new Random(5);
+        for (int game = 0; game < 100; game++) {
+            int rows = 2 + rng.nextInt(10);
+            int cols = 2 + rng.nextInt(10);
+            int mines = 1 + rng.nextInt(rows * cols / 4 + 1);
+            Model model = new Model();
+            model.setSeed(rng.nextLong());
+            model.setExtraLives(rng.nextInt(3));
+            model.newGame(rows, cols, mines);
+            assertEquals(BoardHash.board(rows, cols, mines), model.getStateHash());
+            while (model.getStatus() == GameStatus.PLAYING) {
+                int row = rng.nextInt(rows);
+                int col = rng.nextInt(cols);
+                int move = rng.nextInt(4);
+                if (move == 0)
+                    model.flag(row, col, model.getVisibleValue(row, col) != GameEngine.FLAGGED);
+                else if (move == 1)
+                    model.chordAt(row, col);
+                else
+                    model.press(row, col);
+                int[] visible = SolverBenchmark.visibleState(model);
+                assertEquals(BoardHash.of(rows, cols, mines, visible), model.getStateHash());
+            }
+        }
+    }
+
+    // Tests that different positions of seeded games hash apart, and that
+    // undoing a flag gives the hash back
+    @Test
+    public void testPositionsHashApart() {
+        HashSet<Long> hashes = new HashSet<>();
+        HashSet<String> positions = new HashSet<>();
+        Random rng = new Random(6);
+        for (int game = 0; game < 50; game++) {
+            Model model = new Model();
+            model.setSeed(rng.nextLong());
+            model.setFirstClickSafe(true);
+            model.newGame("intermediate");
+            while (model.getStatus() == GameStatus.PLAYING) {
+                int row = rng.nextInt(16);
+                int col = rng.nextInt(16);
+                if (model.getVisibleValue(row, col) != GameEngine.HIDDEN)
+                    continue;
+                long hash = model.getStateHash();
+                model.flag(row, col, true);
+                assertNotEquals(hash, model.getStateHash());
+                model.flag(row, col, false);
+                assertEquals(hash, model.getStateHash());
+                hashes.add(hash);
+                positions.add(Arrays.toString(SolverBenchmark.visibleState(model)));
+                model.press(row, col);
+            }
+        }
+        assertEquals(positions.size(), hashes.size());
+    }
+}
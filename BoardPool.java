@@ -0,0 +1,218 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Boards generated ahead of time, so starting a game does not wait for the
+ * mines and numbers. The pool keeps up to depth ready boards of each kind
+ * (rows, columns and mines) and refills a kind in the background whenever
+ * one of its boards is taken. A kind is made the first time it is warmed
+ * up or taken; only the most recently used MAX_KINDS kinds are kept, so
+ * trying many custom settings does not hold on to their boards.
+ *
+ * take() never waits: it returns null when no board of the kind is ready
+ * (a miss), and the caller generates the board itself. Boards larger than
+ * MAX_CELLS are not pooled. Pooled boards are drawn from the pool's own
+ * generator, so a model that needs repeatable boards (a seed or its own
+ * placement strategy) must not take them. */
+public class BoardPool {
+
+    public static final int DEFAULT_DEPTH = 4;
+    static final int MAX_KINDS = 8;
+    static final int MAX_CELLS = 1<<16;
+
+    private final int depth;
+    private final Executor refiller;
+    // Most recently used last
+    private final Map<Long,Kind> kinds = new LinkedHashMap<Long,Kind>(16,0.75f,true) {
+        protected boolean removeEldestEntry(Map.Entry<Long,Kind> eldest)
+        {
+            return size()>MAX_KINDS;
+        }
+    };
+    private final SplittableRandom random = new SplittableRandom();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder refillNanos = new LongAdder();
+
+    // The ready boards of one kind, and whether a refill is under way
+    private static class Kind {
+        final int rows;
+        final int cols;
+        final int mines;
+        final ArrayBlockingQueue<Board> boards;
+        final AtomicBoolean refilling = new AtomicBoolean();
+
+        Kind(int rows, int cols, int mines, int depth)
+        {
+            this.rows = rows;
+            this.cols = cols;
+            this.mines = mines;
+            boards = new ArrayBlockingQueue<Board>(depth);
+        }
+    }
+
+    // A pool of DEFAULT_DEPTH boards per kind, refilled on a background
+    // thread of its own
+    public BoardPool()
+    {
+        this(DEFAULT_DEPTH,Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable,"board-pool");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    // A pool of depth boards per kind, refilled on the given executor
+    public BoardPool(int depth, Executor refiller)
+    {
+        if(depth<1)
+            throw new IllegalArgumentException("Pool depth must be at least 1");
+        if(refiller==null)
+            throw new IllegalArgumentException("Pool needs an executor to refill on");
+        this.depth = depth;
+        this.refiller = refiller;
+    }
+
+    // Starts generating boards of a kind, if it can be pooled
+    public void warmUp(int rows, int cols, int mines)
+    {
+        Kind kind = kind(rows,cols,mines);
+        if(kind!=null)
+            refill(kind);
+    }
+
+    // A ready board of the kind (mines placed, numbers counted, nothing
+    // exposed), or null if there is none; either way the kind is refilled
+    public Board take(int rows, int cols, int mines)
+    {
+        Kind kind = kind(rows,cols,mines);
+        if(kind==null)
+            return null;
+        Board board = kind.boards.poll();
+        if(board==null)
+            misses.increment();
+        else
+            hits.increment();
+        refill(kind);
+        return board;
+    }
+
+    // Boards of the kind ready now
+    public int getDepth(int rows, int cols, int mines)
+    {
+        Kind kind;
+        synchronized(kinds)
+        {
+            kind = kinds.get(key(rows,cols,mines));
+        }
+        return kind==null ? 0 : kind.boards.size();
+    }
+
+    // Most boards kept of each kind
+    public int getCapacity()
+    {
+        return depth;
+    }
+
+    // Boards taken ready
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    // Takes that found no ready board
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    // Boards generated by refills
+    public long getGenerated()
+    {
+        return generated.sum();
+    }
+
+    // Mean time a refill took to generate one board, in nanoseconds
+    public double getMeanRefillNanos()
+    {
+        long count = generated.sum();
+        return count==0 ? 0 : (double)refillNanos.sum()/count;
+    }
+
+    // The kind of these settings, made if new; null if they cannot be pooled
+    private Kind kind(int rows, int cols, int mines)
+    {
+        if(rows<1 || cols<1 || mines<1 || (long)rows*cols>MAX_CELLS || mines>=rows*cols)
+            return null;
+        synchronized(kinds)
+        {
+            Long key = key(rows,cols,mines);
+            Kind kind = kinds.get(key);
+            if(kind==null)
+            {
+                kind = new Kind(rows,cols,mines,depth);
+                kinds.put(key,kind);
+            }
+            return kind;
+        }
+    }
+
+    private static Long key(int rows, int cols, int mines)
+    {
+        return ((long)rows<<40) | ((long)cols<<20) | mines;
+    }
+
+    // Fills the kind up to depth on the refill executor, unless a refill
+    // of it is already under way
+    private void refill(Kind kind)
+    {
+        if(kind.boards.remainingCapacity()==0 || !kind.refilling.compareAndSet(false,true))
+            return;
+        refiller.execute(() -> {
+            try
+            {
+                SplittableRandom stream = stream();
+                while(kind.boards.remainingCapacity()>0)
+                {
+                    long start = System.nanoTime();
+                    Board board = generate(kind,stream);
+                    refillNanos.add(System.nanoTime()-start);
+                    generated.increment();
+                    kind.boards.offer(board);
+                }
+            }
+            finally
+            {
+                kind.refilling.set(false);
+            }
+            // A board taken after the last check and before the flag was
+            // cleared did not start a refill
+            refill(kind);
+        });
+    }
+
+    // A generator of its own for one refill, so refills running at the
+    // same time do not share one
+    private SplittableRandom stream()
+    {
+        synchronized(random)
+        {
+            return random.split();
+        }
+    }
+
+    private static Board generate(Kind kind, SplittableRandom stream)
+    {
+        Board board = new Board(kind.rows,kind.cols);
+        MinePlacementStrategy.forBoard(board.size(),kind.mines).placeMines(board,kind.mines,stream);
+        board.computeCounts();
+        return board;
+    }
+}
@@ -0,0 +1,120 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/* Tests for BoardPool */
+public class BoardPoolTest {
+
+    // Refills run right away on the calling thread
+    private static BoardPool pool() {
+        return new BoardPool(3, Runnable::run);
+    }
+
+    // Tests that warming up a kind fills it to the pool depth
+    @Test
+    public void testWarmUp() {
+        BoardPool pool = pool();
+        assertEquals(0, pool.getDepth(16, 30, 99));
+        pool.warmUp(16, 30, 99);
+        assertEquals(3, pool.getDepth(16, 30, 99));
+        assertEquals(3, pool.getGenerated());
+        assertTrue(pool.getMeanRefillNanos() > 0);
+    }
+
+    // Tests that a taken board is ready to play and the kind is refilled
+    @Test
+    public void testTake() {
+        BoardPool pool = pool();
+        pool.warmUp(9, 9, 10);
+        Board board = pool.take(9, 9, 10);
+        assertNotNull(board);
+        assertEquals(1, pool.getHits());
+        assertEquals(3, pool.getDepth(9, 9, 10));
+        int mines = 0;
+        for (int cell = 0; cell < board.size(); cell++) {
+            assertFalse(board.isExposed(cell));
+            assertFalse(board.isFlagged(cell));
+            if (board.isMine(cell))
+                mines++;
+        }
+        assertEquals(10, mines);
+        assertEquals(count(board, 4, 4), board.getCount(board.index(4, 4)));
+    }
+
+    // Tests that a kind not ready yet is a miss, and is warmed up by it
+    @Test
+    public void testMiss() {
+        BoardPool pool = pool();
+        assertNull(pool.take(5, 7, 6));
+        assertEquals(1, pool.getMisses());
+        assertEquals(3, pool.getDepth(5, 7, 6));
+        assertNotNull(pool.take(5, 7, 6));
+    }
+
+    // Tests that a take never waits for a refill
+    @Test
+    public void testTakeDoesNotWait() {
+        BoardPool pool = new BoardPool(2, runnable -> { });
+        pool.warmUp(9, 9, 10);
+        assertNull(pool.take(9, 9, 10));
+        assertEquals(1, pool.getMisses());
+    }
+
+    // Tests that boards that cannot be pooled are left to the caller
+    @Test
+    public void testNotPooled() {
+        BoardPool pool = pool();
+        assertNull(pool.take(2, 2, 4));
+        assertNull(pool.take(1000, 1000, 10));
+        assertEquals(0, pool.getMisses());
+        assertEquals(0, pool.getGenerated());
+    }
+
+    // Tests that only the most recently used kinds are kept
+    @Test
+    public void testKindsBounded() {
+        BoardPool pool = pool();
+        for (int mines = 1; mines <= BoardPool.MAX_KINDS + 1; mines++)
+            pool.warmUp(9, 9, mines);
+        assertEquals(0, pool.getDepth(9, 9, 1));
+        assertEquals(3, pool.getDepth(9, 9, BoardPool.MAX_KINDS + 1));
+    }
+
+    // Tests that a model starts its games on pooled boards
+    @Test
+    public void testModelTakes() {
+        BoardPool pool = pool();
+        Model model = new Model();
+        model.setBoardPool(pool);
+        assertEquals(3, pool.getDepth(16, 16, 40));
+        model.newGame("intermediate");
+        assertEquals(1, pool.getHits());
+        model.pressTile(0, 0, 0);
+        assertNotEquals(GameStatus.NOT_STARTED, model.getStatus());
+        model.setCustomRows(12);
+        model.setCustomColumns(14);
+        model.setCustomMines(30);
+        model.setDifficulty("custom");
+        assertEquals(3, pool.getDepth(12, 14, 30));
+    }
+
+    // Tests that a seeded model keeps its repeatable boards
+    @Test
+    public void testSeededModelDoesNotTake() {
+        BoardPool pool = pool();
+        Model model = new Model();
+        model.setSeed(42);
+        model.setBoardPool(pool);
+        model.newGame("beginner");
+        assertEquals(0, pool.getHits() + pool.getMisses());
+    }
+
+    // Mines around (row, col)
+    private static int count(Board board, int row, int col) {
+        int count = 0;
+        for (int r = row - 1; r <= row + 1; r++)
+            for (int c = col - 1; c <= col + 1; c++)
+                if ((r != row || c != col) && board.inBounds(r, c) && board.isMine(board.index(r, c)))
+                    count++;
+        return count;
+    }
+}
@@ -0,0 +1,79 @@
+import java.util.Arrays;
+
+/* Set of cell indices on a board of a fixed size, with constant-time add,
+ * remove and contains, and its members listed by position (in no
+ * particular order) so it can be walked without allocating. */
+public class CellSet {
+
+    private final int[] members;
+    // Position of each cell in members, or -1 if it is not in the set
+    private final int[] position;
+    private int size;
+
+    public CellSet(int cells)
+    {
+        members = new int[cells];
+        position = new int[cells];
+        Arrays.fill(position,-1);
+    }
+
+    // Adds the cell; returns false if it was already in the set
+    public boolean add(int cell)
+    {
+        if(position[cell]>=0)
+            return false;
+        position[cell] = size;
+        members[size++] = cell;
+        return true;
+    }
+
+    // Removes the cell; returns false if it was not in the set
+    public boolean remove(int cell)
+    {
+        int at = position[cell];
+        if(at<0)
+            return false;
+        // Move the last member into the gap
+        int last = members[--size];
+        members[at] = last;
+        position[last] = at;
+        position[cell] = -1;
+        return true;
+    }
+
+    public boolean contains(int cell)
+    {
+        return position[cell]>=0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size==0;
+    }
+
+    // The member at position i, 0 <= i < size()
+    public int get(int i)
+    {
+        return members[i];
+    }
+
+    public void clear()
+    {
+        for(int i = 0;i<size;i++)
+            position[members[i]] = -1;
+        size = 0;
+    }
+
+    // The members in increasing order
+    public int[] toSortedArray()
+    {
+        int[] sorted = Arrays.copyOf(members,size);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
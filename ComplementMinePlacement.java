@@ -0,0 +1,23 @@
+import java.util.random.RandomGenerator;
+
+/* For boards that are mostly mines: fills the board with mines, then picks
+ * the safe cells with Floyd's algorithm and clears them. Choosing the
+ * safe cells uniformly is the same as choosing the mines uniformly.
+ * O(cells/64) to fill the bits, O(cells-mines) to clear. */
+public class ComplementMinePlacement implements MinePlacementStrategy {
+
+    public void placeMines(Board board, int mines, RandomGenerator rng)
+    {
+        int size = board.size();
+        int safe = size-mines;
+        board.setAllMines();
+        for(int j = size-safe;j<size;j++)
+        {
+            int cell = rng.nextInt(j+1);
+            // A cell already cleared has been chosen, so take j instead
+            if(!board.isMine(cell))
+                cell = j;
+            board.setMine(cell,false);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/* Counts the mine layouts of one frontier component by backtracking, for
+ * the ProbabilityEngine.
+ * The component is given in compressed rows: variables 0..n-1 (in the
+ * order they are searched), constraints with the variables they cover and
+ * the mines they need. The result counts the layouts with m mines, and for
+ * each variable the layouts with m mines where it is one.
+ *
+ * count() searches on the calling thread. task() returns a fork-join task
+ * that splits the first branching levels of the search into subtasks,
+ * each searching its own subtree with its own state, and adds the subtree
+ * counts together; a component searched this way gives the same counts.
+ * Both stop at the deadline and return null. */
+public class ComponentCounter {
+
+    // Components smaller than this are searched in a single task
+    static final int SPLIT_MIN_CELLS = 24;
+    // Variables left below which a subtree is not split any further
+    private static final int SPLIT_MIN_REMAINING = 12;
+
+    private final int n;
+    private final int[] conStart;
+    private final int[] conVars;
+    private final int[] conNeed;
+    private final int[] varConStart;
+    private final int[] varCons;
+    private final long deadline;
+    private volatile boolean outOfTime;
+
+    public ComponentCounter(int n, int[] conStart, int[] conVars, int[] conNeed,
+            int[] varConStart, int[] varCons, long deadline)
+    {
+        this.n = n;
+        this.conStart = conStart;
+        this.conVars = conVars;
+        this.conNeed = conNeed;
+        this.varConStart = varConStart;
+        this.varCons = varCons;
+        this.deadline = deadline;
+    }
+
+    // Number of variables in the component
+    public int size()
+    {
+        return n;
+    }
+
+    // Counts on the calling thread; null if the deadline passed
+    public Counts count()
+    {
+        Walk walk = new Walk();
+        walk.search(0,0);
+        return outOfTime ? null : walk.result();
+    }
+
+    // Counts with the given pool; null if the deadline passed
+    public Counts count(ForkJoinPool pool)
+    {
+        return pool.invoke(task(pool.getParallelism()));
+    }
+
+    // A task counting the component, split for about parallelism workers.
+    // Its result is null if the deadline passed.
+    public RecursiveTask<Counts> task(int parallelism)
+    {
+        // A few subtrees per worker, since subtrees differ a lot in size
+        int splits = 0;
+        while((1<<splits)<parallelism*4)
+            splits++;
+        if(n<SPLIT_MIN_CELLS || parallelism<=1)
+            splits = 0;
+        return new Branch(new Walk(),0,0,splits);
+    }
+
+    // Layout counts: counts[m] layouts with m mines, and mineCounts[v*(n+1)+m]
+    // of those with variable v a mine
+    public static final class Counts {
+        final double[] counts;
+        final double[] mineCounts;
+
+        Counts(double[] counts, double[] mineCounts)
+        {
+            this.counts = counts;
+            this.mineCounts = mineCounts;
+        }
+
+        // Adds the counts of a disjoint subtree
+        void add(Counts other)
+        {
+            for(int i = 0;i<counts.length;i++)
+                counts[i] += other.counts[i];
+            for(int i = 0;i<mineCounts.length;i++)
+                mineCounts[i] += other.mineCounts[i];
+        }
+    }
+
+    // State of one depth-first search: mines and open cells per
+    // constraint, and the values given to the variables so far
+    private final class Walk {
+        private final int[] mines;
+        private final int[] open;
+        private final boolean[] mine;
+        private double[] counts;
+        private double[] mineCounts;
+        private int nodes;
+
+        Walk()
+        {
+            int constraints = conNeed.length;
+            mines = new int[constraints];
+            open = new int[constraints];
+            for(int c = 0;c<constraints;c++)
+                open[c] = conStart[c+1]-conStart[c];
+            mine = new boolean[n];
+        }
+
+        // Copy of another walk's state, for a subtree
+        Walk(Walk other)
+        {
+            mines = other.mines.clone();
+            open = other.open.clone();
+            mine = other.mine.clone();
+        }
+
+        Counts result()
+        {
+            if(counts==null)
+            {
+                counts = new double[n+1];
+                mineCounts = new double[n*(n+1)];
+            }
+            return new Counts(counts,mineCounts);
+        }
+
+        // Backtracking over variables i.., with minesSoFar placed
+        void search(int i, int minesSoFar)
+        {
+            if((++nodes & 1023)==0 && System.nanoTime()>deadline)
+                outOfTime = true;
+            if(outOfTime)
+                return;
+            if(i==n)
+            {
+                if(counts==null)
+                    result();
+                counts[minesSoFar]++;
+                for(int v = 0;v<n;v++)
+                    if(mine[v])
+                        mineCounts[v*(n+1)+minesSoFar]++;
+                return;
+            }
+            for(int value = 0;value<=1;value++)
+            {
+                if(!fits(i,value))
+                    continue;
+                place(i,value,1);
+                search(i+1,minesSoFar+value);
+                place(i,value,-1);
+            }
+        }
+
+        // True if giving variable v the value keeps every constraint of v
+        // satisfiable
+        boolean fits(int v, int value)
+        {
+            for(int j = varConStart[v];j<varConStart[v+1];j++)
+            {
+                int c = varCons[j];
+                int m = mines[c]+value;
+                if(m>conNeed[c] || m+open[c]-1<conNeed[c])
+                    return false;
+            }
+            return true;
+        }
+
+        void place(int v, int value, int sign)
+        {
+            mine[v] = sign>0 && value==1;
+            for(int j = varConStart[v];j<varConStart[v+1];j++)
+            {
+                int c = varCons[j];
+                mines[c] += sign*value;
+                open[c] -= sign;
+            }
+        }
+    }
+
+    // The search below variable i of a walk. Variables with one possible
+    // value are set in place; at a variable with two, both subtrees become
+    // tasks until the split budget is used up.
+    private final class Branch extends RecursiveTask<Counts> {
+        private static final long serialVersionUID = 1L;
+        private final Walk walk;
+        private int i;
+        private int minesSoFar;
+        private final int splits;
+
+        Branch(Walk walk, int i, int minesSoFar, int splits)
+        {
+            this.walk = walk;
+            this.i = i;
+            this.minesSoFar = minesSoFar;
+            this.splits = splits;
+        }
+
+        @Override
+        protected Counts compute()
+        {
+            while(splits>0 && n-i>=SPLIT_MIN_REMAINING && !outOfTime)
+            {
+                boolean safe = walk.fits(i,0);
+                boolean mine = walk.fits(i,1);
+                if(safe && mine)
+                {
+                    Walk mineWalk = new Walk(walk);
+                    mineWalk.place(i,1,1);
+                    Branch mineBranch = new Branch(mineWalk,i+1,minesSoFar+1,splits-1);
+                    mineBranch.fork();
+                    walk.place(i,0,1);
+                    Counts result = new Branch(walk,i+1,minesSoFar,splits-1).compute();
+                    Counts other = mineBranch.join();
+                    if(result==null || other==null)
+                        return null;
+                    result.add(other);
+                    return result;
+                }
+                if(!safe && !mine)
+                    return walk.result();
+                walk.place(i,mine ? 1 : 0,1);
+                minesSoFar += mine ? 1 : 0;
+                i++;
+            }
+            walk.search(i,minesSoFar);
+            return outOfTime ? null : walk.result();
+        }
+    }
+}
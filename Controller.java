@@ -1,285 +1,336 @@
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 // The Controller class manages communication between the view (GUI) and the model components.
 // It follows the MVC (Model-View-Controller) architecture to handle user inputs and updates.
 public class Controller implements ViewGUIToController {
 	
-	private ControllerToViewGUI myView;
-	private ControllerToModel myModel;
+	private final ControllerToViewGUI myView;
+	private final ControllerToModel myModel;
+	// Reused for every hint, so unchanged parts of the board are not solved again
+	private final ProbabilityEngine hintEngine = new ProbabilityEngine();
+	// Follows the moves, so a hint only re-solves what they changed
+	private final SolverSession hintSession;
+	// Settles the last tiles with the total mine count
+	private final EndgameSolver endgame = new EndgameSolver();
+	// Computes requested hints off the event dispatch thread
+	private final Executor hintExecutor;
+	// The requested hint still being computed, if any
+	private CompletableFuture<int[]> pendingHint;
+	// Hint results by position, so asking again without moving, or at a
+	// position seen before, is a lookup
+	private final AnalysisCache hintCache = new AnalysisCache();
 	
-// Constructor initializes the model and view components.
-	// If either component fails to initialize, the program exits with an error.
-	public Controller() {
-		myModel = new Model();
+	// Constructor initializes the view component on top of the given model.
+	// The Controller is the GUI client of the model; headless clients use
+	// the model directly through GameEngine.
+	public Controller(ControllerToModel model) {
+		this(model, Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "hint");
+			thread.setDaemon(true);
+			return thread;
+		}));
+	}
+	
+	// Constructor with the executor requested hints run on (one at a time
+	// by default), e.g. to run them when a test chooses.
+	Controller(ControllerToModel model, Executor hintExecutor) {
+		if(model == null)
+			throw new IllegalArgumentException("Controller needs a model");
+		myModel = model;
+		this.hintExecutor = hintExecutor;
+		hintSession = new SolverSession(model);
 		myView = new ViewGUI(this);
-		if(myModel == null || myView == null)
-			System.exit(NULL_EXIT_CODE);
+		hintEngine.setPool(ForkJoinPool.commonPool());
+	}
+	
+	// Constructor with a new Model of its own.
+	public Controller() {
+		this(new Model());
 	}
 	// Starts the game by initializing the GUI with the list of available difficulties from the model.
 	public void go() {
-		if(myModel == null || myView == null)
-			System.exit(NULL_EXIT_CODE);
 		myView.go(myModel.getDifficulties());
 	}
 	// Instructs the model to set the current game difficulty to the specified value.
 	public void setDifficulty(String difficulty) {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		myModel.setDifficulty(difficulty);
 	}
 		// Retrieves the list of preset difficulty levels from the model.
 	public ArrayList<String> getDifficulties() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		return myModel.getDifficulties();
 	}
 
 	// Returns the string used to represent a mine tile from the model.
 	public String getMineString() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		return myModel.MINE;
 	}
 	// Signals the model that the game is starting and returns true if the game starts successfully.
 	public boolean startGame() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
+		cancelHint();
 		return myModel.startGame();
 	}
 
 		// Returns the number of mines placed on the board, as determined by the model.
 	public int getNumMines() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		return myModel.getNumMines();
 	}
 
 		// Retrieves the current state of the game grid from the model as a 2D array of strings.
 	public String[][] getGrid() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		return myModel.getGrid();
 	}
 
 	// Called when a tile is pressed.
-	// Passes the click event to the model and refreshes the view based on the result.
+	// Passes the click event to the model and refreshes only the tiles it exposed.
 	public void tilePressed(int row, int col, long currentTime) {
-		if(myModel == null || myView == null)
-			System.exit(NULL_EXIT_CODE);
-		myView.refresh(myModel.tilePressed(row, col, currentTime), myModel.EMPTY);
+		cancelHint();
+		myView.refreshChanges(myModel.tilePressedChanges(row, col, currentTime), ControllerToModel.EMPTY);
 	}
 	
 	// Called when a tile is flagged or unflagged.
 	// Updates the model to reflect the new flag status at the given coordinates.
 	public void placeFlag(boolean flagged, int row, int col) {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
+		cancelHint();
 		myModel.tileFlagged(flagged, row, col);
 	}
 	
 	// Returns true if the player has triggered a loss condition, according to the model.
 	public boolean playerLost() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		return myModel.playerLost();
 	}
 	
 	// Returns true if the player has fulfilled the win condition, according to the model.
 	public boolean playerWon() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		return myModel.playerWon();
 	}
 	
 	// Resets the game state in the model to allow a new game to be started.
 	public void reset() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
+		cancelHint();
 		myModel.resetGame();
 	}
 	
 	// Retrieves the row and column of the most recently pressed tile from the model.
 	public int[] getLastPressed() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		return myModel.getLastPressed();
 	}
 	
 	// Sets the number of extra lives allowed in the game via the model.
 	public void setExtraLives(int lives) {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		myModel.setExtraLives(lives);
 	}
 	
 	// Returns the number of extra lives remaining, as tracked by the model.
 	public int getExtraLivesLeft() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		return myModel.getExtraLivesLeft();
 	}
 	
 	// Returns the string used to represent an empty tile from the model.
 	public String getEmptyTileString() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		return myModel.EMPTY;
 	}
 	// Sets the number of rows for a custom game board configuration via the model.
 	public void setCustomRows(int rows) {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		myModel.setCustomRows(rows);
 	}
 	
 	// Sets the number of columns for a custom game board configuration via the model.
 	public void setCustomColumns(int cols) {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		myModel.setCustomColumns(cols);
 	}
 	
 	// Sets the number of mines for a custom game board configuration via the model.
 	public void setCustomMines(int mines) {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		myModel.setCustomMines(mines);
 	}
 	
 	// Retrieves the total number of games won, as stored by the model.
 	public long getTotalGamesWon() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		return myModel.getTotalGamesWon();
 	}
 	
 	// Retrieves the total number of games played, as stored by the model.
 	public long getTotalGamesPlayed() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		return myModel.getTotalGamesPlayed();
 	}
 	
 	// Returns a string summary of the best recorded game times, as stored by the model.
 	public String getBestTime() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		return myModel.getBestTimes();
 	}
 	
+	// Returns how many safe tiles are still hidden in the current game.
+	public int getSafeTilesRemaining() {
+		return myModel.getSafeTilesRemaining();
+	}
+	
+	// Returns the percentage of safe tiles exposed so far in the current game.
+	public double getPercentCleared() {
+		return myModel.getPercentCleared();
+	}
+	
 	// Returns the game rules as a formatted string from the model.
 	public String getRules() {
-		if(myModel == null)
-			System.exit(NULL_EXIT_CODE);
 		return myModel.RULES;
 	}
 /**
  * Provides a hint to the player based on the current game state.
- * Uses the KeyLogicImp class to analyze the game board and suggest a safe move.
+ * Brings the frontier solver session up to date with what the player can
+ * see (numbers and flags), re-solving only what changed, and suggests a
+ * tile that is certainly safe, or else one that is certainly a mine.
+ * Near the end of a game the endgame solver also uses the number of mines
+ * left to find safe tiles. When nothing is certain, suggests the hidden
+ * tile least likely to be a mine.
+ * Results are cached by the hash of the visible state, so a position
+ * already analysed is answered without solving.
  * 
  * @return int[] coordinates [row, col] of the suggested move
  */
 public int[] getHint() {
-    if(myModel == null)
-        System.exit(NULL_EXIT_CODE);
-    
-    // Get the current game state from the model
-    String[][] actualGrid = myModel.getGrid();
-    boolean[][] exposedTiles = myModel.getExposed();
-    boolean[][] flaggedTiles = new boolean[actualGrid.length][actualGrid[0].length];
-    
-    // We need to recreate the flagged tiles array since Model doesn't provide direct access
-    for (int i = 0; i < actualGrid.length; i++) {
-        for (int j = 0; j < actualGrid[0].length; j++) {
-            // A tile is considered flagged if it's not exposed and has a flag on it
-            // This is an approximation - in a full implementation, you would track flags in the Model
-            if (!exposedTiles[i][j]) {
-                // Check if this position is in the list of flagged positions
-                // In a real implementation, you'd have access to the actual flagged array
-                // For now, this is a placeholder
-                // flaggedTiles[i][j] = model.isFlagged(i, j);
-            }
-        }
-    }
-    
-    // First try to find a safe cell to click
-    int[] safeCell = findSafeCell(actualGrid, exposedTiles, flaggedTiles);
-    if (safeCell != null) {
-        return safeCell;
+    long hash = myModel.getStateHash();
+    AnalysisCache.Analysis analysis = hintCache.get(hash);
+    if (analysis == null) {
+        HintBoard board = new HintBoard();
+        analysis = board.safe.length > 0 ? board.certain() : guess(board, null);
+        hintCache.put(hash, analysis);
     }
-    
-    // If no safe cell is found, try to find a cell that should be flagged
-    int[] mineCell = KeyLogicImp.suggestCellToRevealAsMine(actualGrid, exposedTiles, flaggedTiles);
-    if (mineCell != null) {
-        // We found a mine, but we don't want to tell the player to click on a mine
-        // Instead, we'll return it so the UI can highlight it as a flag suggestion
-        return mineCell;
-    }
-    
-    return null;
+    return cell(analysis.getSuggestion(), myModel.getColumns());
 }
 
 /**
- * Helper method to find a safe cell to click based on current game state
+ * Computes the same hint as getHint() without holding up the calling
+ * (event dispatch) thread. Cached and session hints are quick and given
+ * right away; the endgame and probability searches run on the hint thread
+ * from a copy of the board, so the game can go on meanwhile.
+ * The future completes with the hint (null if there is none), or with a
+ * TimeoutException once deadlineMillis have passed. A newer request, a
+ * tile pressed or flagged, or a new game cancels it.
+ *
+ * @param deadlineMillis time the hint may take
+ * @return the hint being computed
  */
-private int[] findSafeCell(String[][] actualGrid, boolean[][] exposedTiles, boolean[][] flaggedTiles) {
-    int rows = actualGrid.length;
-    int cols = actualGrid[0].length;
-    
-    // Check each exposed numbered cell
-    for (int row = 0; row < rows; row++) {
-        for (int col = 0; col < cols; col++) {
-            if (exposedTiles[row][col] && isNumeric(actualGrid[row][col])) {
-                int number = Integer.parseInt(actualGrid[row][col]);
-                
-                // Count flagged neighbors
-                int flaggedCount = 0;
-                ArrayList<int[]> hiddenNeighbors = new ArrayList<>();
-                
-                // Check all 8 surrounding cells
-                for (int dr = -1; dr <= 1; dr++) {
-                    for (int dc = -1; dc <= 1; dc++) {
-                        if (dr == 0 && dc == 0) continue; // Skip the cell itself
-                        
-                        int r = row + dr;
-                        int c = col + dc;
-                        
-                        if (r >= 0 && r < rows && c >= 0 && c < cols) {
-                            if (flaggedTiles[r][c]) {
-                                flaggedCount++;
-                            } else if (!exposedTiles[r][c]) {
-                                hiddenNeighbors.add(new int[]{r, c});
-                            }
-                        }
-                    }
-                }
-                
-                // If this numbered cell has exactly the right number of flags around it,
-                // all other hidden neighbors must be safe
-                if (flaggedCount == number && !hiddenNeighbors.isEmpty()) {
-                    return hiddenNeighbors.get(0);
-                }
+public CompletableFuture<int[]> requestHint(long deadlineMillis) {
+    cancelHint();
+    long hash = myModel.getStateHash();
+    int cols = myModel.getColumns();
+    AnalysisCache.Analysis known = hintCache.get(hash);
+    if (known != null)
+        return CompletableFuture.completedFuture(cell(known.getSuggestion(), cols));
+    HintBoard board = new HintBoard();
+    if (board.safe.length > 0) {
+        known = board.certain();
+        hintCache.put(hash, known);
+        return CompletableFuture.completedFuture(cell(known.getSuggestion(), cols));
+    }
+    CompletableFuture<int[]> hint = new CompletableFuture<>();
+    pendingHint = hint;
+    hintExecutor.execute(() -> {
+        // Cancelled or out of time while waiting for the thread
+        if (hint.isDone())
+            return;
+        try {
+            AnalysisCache.Analysis analysis = guess(board, hint);
+            if (analysis != null) {
+                hintCache.put(hash, analysis);
+                hint.complete(cell(analysis.getSuggestion(), cols));
             }
+        } catch (RuntimeException e) {
+            hint.completeExceptionally(e);
         }
-    }
-    
-    return null;
+    });
+    return hint.orTimeout(deadlineMillis, TimeUnit.MILLISECONDS);
 }
 
-/**
- * Helper method to check if a string is numeric
- */
-private boolean isNumeric(String str) {
-    if (str == null) {
-        return false;
+// Cancels the requested hint still being computed, if any
+public void cancelHint() {
+    if (pendingHint != null) {
+        pendingHint.cancel(false);
+        pendingHint = null;
     }
-    try {
-        Integer.parseInt(str);
-        return true;
-    } catch (NumberFormatException e) {
-        return false;
+}
+
+// The hint results cached by position, with their hit and miss counts
+public AnalysisCache getHintCache() {
+    return hintCache;
+}
+
+// The endgame and probability part of a hint, on a copy of the board.
+// Returns null, before the probability search, if the request is already
+// done.
+private AnalysisCache.Analysis guess(HintBoard board, CompletableFuture<int[]> hint) {
+    int cells = board.rows * board.cols;
+    // The solvers are shared by getHint() and the hint thread
+    synchronized (endgame) {
+        // Few tiles left: the mine count may prove more of them safe
+        if (endgame.solve(board.rows, board.cols, board.visible, board.mines)) {
+            int[] safe = new int[endgame.getSafeCount()];
+            for (int i = 0; i < safe.length; i++)
+                safe[i] = endgame.getSafeCell(i);
+            int[] mines = new int[endgame.getMineCount()];
+            for (int i = 0; i < mines.length; i++)
+                mines[i] = endgame.getMineCell(i);
+            double[] probabilities = new double[cells];
+            for (int cell = 0; cell < cells; cell++)
+                probabilities[cell] = endgame.getProbability(cell);
+            // A safe tile, else a tile to flag (the UI highlights it as a
+            // flag suggestion, not a click), else the best guess
+            int suggestion = safe.length > 0 ? safe[0]
+                    : board.mine.length > 0 ? board.mine[0] : endgame.getSafestCell();
+            return new AnalysisCache.Analysis(safe, mines, probabilities, suggestion);
+        }
+        
+        // If no safe cell is found, suggest a cell that should be flagged
+        if (board.mine.length > 0)
+            return board.certain();
+        
+        // Nothing is certain: suggest the best guess
+        if (hint != null && hint.isDone())
+            return null;
+        hintEngine.compute(board.rows, board.cols, board.visible, board.mines);
+        double[] probabilities = new double[cells];
+        for (int cell = 0; cell < cells; cell++)
+            probabilities[cell] = hintEngine.getProbability(cell);
+        return new AnalysisCache.Analysis(board.safe, board.mine, probabilities, hintEngine.getSafestCell());
     }
 }
 
-	
-	
+private static int[] cell(int cell, int cols) {
+    return cell < 0 ? null : new int[]{cell / cols, cell % cols};
+}
+
+// What a hint needs, read on the calling thread: the session's safe and
+// mine cells, in increasing order so the same board always gets the same
+// hint, and a copy of the board
+private class HintBoard {
+    final int rows = myModel.getRows();
+    final int cols = myModel.getColumns();
+    final int mines = myModel.getNumMines();
+    final int[] visible;
+    final int[] safe;
+    final int[] mine;
+
+    HintBoard() {
+        hintSession.solve();
+        safe = hintSession.getSafeCells();
+        mine = hintSession.getMineCells();
+        // Only the searches need the board
+        visible = safe.length > 0 ? null : new int[rows * cols];
+        if (visible != null)
+            for (int i = 0; i < rows; i++)
+                for (int j = 0; j < cols; j++)
+                    visible[i * cols + j] = myModel.getVisibleValue(i, j);
+    }
+
+    // The session's results, suggesting its top-left safe tile, else its
+    // top-left mine
+    AnalysisCache.Analysis certain() {
+        return new AnalysisCache.Analysis(safe, mine, null,
+                safe.length > 0 ? safe[0] : mine.length > 0 ? mine[0] : -1);
+    }
+}
+}
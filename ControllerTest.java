@@ -0,0 +1,76 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+/* Tests for the hints the controller computes off the calling thread and
+ * caches by position */
+public class ControllerTest {
+
+    // Hint thread stand-in: holds the tasks until the test runs them
+    private final ArrayList<Runnable> queued = new ArrayList<>();
+
+    private Controller controller(Model model) {
+        return new Controller(model, queued::add);
+    }
+
+    private void runQueued() {
+        for (Runnable task : new ArrayList<>(queued))
+            task.run();
+        queued.clear();
+    }
+
+    // Tests that a requested hint is the one getHint() gives
+    @Test
+    public void testRequestedHintMatchesGetHint() {
+        Model model = new Model();
+        model.setSeed(7);
+        model.newGame(9, 9, 10);
+        Controller controller = controller(model);
+        CompletableFuture<int[]> request = controller.requestHint(60000);
+        assertFalse(request.isDone());
+        runQueued();
+        assertArrayEquals(controller.getHint(), request.join());
+    }
+
+    // Tests that asking again, or flagging a tile, cancels the pending hint
+    @Test
+    public void testNewRequestOrMoveCancels() {
+        Model model = new Model();
+        model.setSeed(7);
+        model.newGame(9, 9, 10);
+        Controller controller = controller(model);
+        CompletableFuture<int[]> first = controller.requestHint(60000);
+        CompletableFuture<int[]> second = controller.requestHint(60000);
+        assertTrue(first.isCancelled());
+        runQueued();
+        assertNotNull(second.join());
+
+        // A new position, so the hint is not in the cache
+        controller.placeFlag(true, 0, 0);
+        CompletableFuture<int[]> third = controller.requestHint(60000);
+        controller.placeFlag(false, 0, 0);
+        assertTrue(third.isCancelled());
+        runQueued();
+        assertTrue(third.isCancelled());
+    }
+
+    // Tests that asking again without moving, or after undoing a flag, is
+    // answered from the cache
+    @Test
+    public void testRepeatedHintFromCache() {
+        Model model = new Model();
+        model.setSeed(7);
+        model.newGame(9, 9, 10);
+        model.press(4, 4);
+        Controller controller = controller(model);
+        int[] hint = controller.getHint();
+        assertArrayEquals(hint, controller.getHint());
+        model.flag(0, 0, true);
+        model.flag(0, 0, false);
+        assertArrayEquals(hint, controller.requestHint(60000).join());
+        assertEquals(1, controller.getHintCache().getMisses());
+        assertEquals(2, controller.getHintCache().getHits());
+    }
+}
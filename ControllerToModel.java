@@ -1,9 +1,16 @@
 import java.util.ArrayList;
 //implemented by the Model and used by the Controller to communicate with the Model
-public interface ControllerToModel {
+//(the headless game operations are in GameEngine)
+public interface ControllerToModel extends GameEngine {
 
     public final int NULL_EXIT_CODE = -1;
 
+    // Layout of the entries returned by tilePressedChanges:
+    // (cell index << DELTA_VALUE_BITS) | value, value 0-8 or DELTA_MINE
+    public final int DELTA_VALUE_BITS = 4;
+    public final int DELTA_VALUE_MASK = (1<<DELTA_VALUE_BITS)-1;
+    public final int DELTA_MINE = 9;
+
     public final String MINE = "M"; //represents a mine tile in the game
     public final String EMPTY = " "; //represents an empty tile in the game
     public final String RULES = "Rules for Minesweeper:\n\n"
@@ -38,23 +45,26 @@ public interface ControllerToModel {
     public void setDifficulty(String difficulty);
     public ArrayList<String> getDifficulties();
     public boolean startGame();
-    public int getNumMines();
     public String [][] getGrid();
     public boolean [][] tilePressed(int row, int col, long currentTime);
+    public int[] tilePressedChanges(int row, int col, long currentTime);
+    public void pressTile(int row, int col, long currentTime);
+    public boolean canChord(int row, int col);
+    public int[] chord(int row, int col, long currentTime);
     public void tileFlagged(boolean flagged,int row, int col);
     public boolean playerLost();
     public boolean playerWon();
     public void resetGame();
     public int[] getLastPressed();
-    public void setExtraLives(int lives);
-    public int getExtraLivesLeft();
     public void setCustomRows(int rows);
     public void setCustomColumns(int cols);
     public void setCustomMines(int mines);
+    public boolean isLargeBoardMode();
     public long getTotalGamesWon();
     public long getTotalGamesPlayed();
     public String getBestTimes();
     public boolean[][] getExposed();
+    public double getPercentCleared();
 
 }
 
@@ -6,4 +6,5 @@ public interface ControllerToViewGUI {
 
     public void go(ArrayList<String> diffs);
     public void refresh(boolean[][] exposed, String emptyTileText);
+    public void refreshChanges(int[] changes, String emptyTileText);
 }
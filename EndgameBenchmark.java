@@ -0,0 +1,71 @@
+import java.util.ArrayList;
+
+/* Benchmark for the endgame solver.
+ * Collects expert-board positions as SolverBenchmark does, then runs
+ * EndgameSolver on every one with an empty transposition table and checks
+ * the mean solve against a fixed budget, so a hint can afford one on every
+ * move. Counts the positions solved (few enough undecided tiles) and, of
+ * those, the ones where the numbers alone give no safe tile but the mine
+ * count does. Also times asking each position a second time, which the
+ * transposition table answers.
+ *
+ * Run with e.g. java EndgameBenchmark, or pass the number of games to
+ * collect positions from: java EndgameBenchmark 500 */
+public class EndgameBenchmark {
+
+    private static final int DEFAULT_GAMES = 200;
+    private static final long SEED = 594;
+
+    // Budget per endgame solve of an expert position
+    private static final double SOLVE_MICROS = 500;
+
+    public static void main(String[] args)
+    {
+        int games = args.length>0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        ArrayList<int[]> positions = SolverBenchmark.expertPositions(games,SEED);
+        System.out.println(positions.size()+" expert positions from "+games+" games");
+
+        EndgameSolver endgame = new EndgameSolver();
+        FrontierSolver solver = new FrontierSolver();
+        int solved = 0;
+        int unstuck = 0;
+        long slowest = 0;
+        long solveNanos = 0;
+        long lookupNanos = 0;
+        for(int round = 0;round<2;round++) // the first round warms up
+        {
+            solved = 0;
+            unstuck = 0;
+            slowest = 0;
+            solveNanos = 0;
+            lookupNanos = 0;
+            for(int[] visible : positions)
+            {
+                endgame.clearCache();
+                long start = System.nanoTime();
+                boolean done = endgame.solve(16,30,visible,99);
+                long time = System.nanoTime()-start;
+                solveNanos += time;
+                slowest = Math.max(slowest,time);
+                start = System.nanoTime();
+                endgame.solve(16,30,visible,99);
+                lookupNanos += System.nanoTime()-start;
+                if(!done)
+                    continue;
+                solved++;
+                solver.solve(16,30,visible);
+                if(solver.getSafeCount()==0 && endgame.getSafeCount()>0)
+                    unstuck++;
+            }
+        }
+        double micros = solveNanos/1e3/positions.size();
+        boolean passed = micros<=SOLVE_MICROS;
+        System.out.printf("  %-32s %8.2f us/solve, %.2f ms slowest  (budget %.0f)  %s%n",
+                "EndgameSolver.solve",micros,slowest/1e6,SOLVE_MICROS,passed ? "OK" : "OVER");
+        System.out.printf("  %-32s %8d%n","positions solved",solved);
+        System.out.printf("  %-32s %8d%n","safe tile only from the count",unstuck);
+        System.out.printf("  %-32s %8.2f us/solve%n","asked again",lookupNanos/1e3/positions.size());
+        if(!passed)
+            System.exit(1);
+    }
+}
@@ -0,0 +1,565 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* Exact solver for the end of a game, using the total mine count.
+ * The tiles the numbers alone settle are found first with FrontierSolver.
+ * Once at most getThreshold() (up to 64) hidden tiles are left undecided,
+ * every mine layout of them that fits the numbers and has exactly the
+ * mines left is taken into account: the undecided tiles next to a number
+ * are enumerated by backtracking over bit masks, and each such layout
+ * with k mines weighs C(interior, mines left - k) for the undecided tiles
+ * away from the numbers. A tile that is a mine in no layout is safe and one that is
+ * a mine in all of them is a mine, which often settles positions the
+ * numbers alone cannot; the weights give exact probabilities for the rest.
+ *
+ * Flags are not trusted: flagged tiles count as hidden, so a position
+ * depends only on which tiles are hidden, and results are kept in a
+ * transposition table keyed on the hidden-tile bitset (checked against
+ * the board size, mine total and numbers on a hit). Asking again after flagging, or after moves that
+ * come back to a position, costs a lookup.
+ *
+ * The search stops at a time budget; solve() then returns false, as it
+ * does when more tiles are undecided than the threshold. */
+public class EndgameSolver {
+
+    public static final int DEFAULT_THRESHOLD = 40;
+    public static final int MAX_THRESHOLD = 64;
+    public static final long DEFAULT_BUDGET_MICROS = 2000;
+    private static final int CACHE_SIZE = 256;
+    // Marks a hidden tile the numbers prove safe in the working copy
+    private static final int PROVEN_SAFE = 10;
+
+    private int threshold = DEFAULT_THRESHOLD;
+    private long budgetNanos = DEFAULT_BUDGET_MICROS*1000;
+    private long deadline;
+    private boolean outOfTime;
+    private int nodes;
+    private final FrontierSolver numbers = new FrontierSolver();
+
+    private final Map<Key,Solution> table = new LinkedHashMap<Key,Solution>(16,0.75f,true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key,Solution> eldest)
+        {
+            return size()>CACHE_SIZE;
+        }
+    };
+    private long hits;
+    private long misses;
+
+    // The position being searched, with flags taken off and the tiles the
+    // numbers settle filled in; its undecided tiles by local index, and for
+    // each number next to them the mask of its undecided tiles and the
+    // mines they hold
+    private int[] visible = new int[0];
+    private int[] work = new int[0];
+    private int[] hiddenCells = new int[MAX_THRESHOLD];
+    private int hiddenCount;
+    private long[] conMask = new long[64];
+    private int[] conNeed = new int[64];
+    private int conCount;
+    private int minesLeft;
+    private int interior;
+    private long interiorMask;
+    // Frontier tiles in search order, the constraints of each, and per
+    // constraint the mines placed and tiles still open during the search
+    private int[] order = new int[MAX_THRESHOLD];
+    private int frontierCount;
+    private int[][] varConList = new int[MAX_THRESHOLD][8];
+    private int[] varConCount = new int[MAX_THRESHOLD];
+    private int[] placed = new int[64];
+    private int[] open = new int[64];
+    private double[] binomial;
+    // Weighted totals of the search
+    private double total;
+    private final double[] mineWeight = new double[MAX_THRESHOLD];
+    private double interiorMines;
+    private long canBeMine;
+    private long canBeSafe;
+    private boolean interiorCanBeMine;
+    private boolean interiorCanBeSafe;
+
+    private Solution solution;
+
+    // Undecided tiles up to which solve() runs, at most MAX_THRESHOLD
+    public void setThreshold(int cells)
+    {
+        if(cells<1 || cells>MAX_THRESHOLD)
+            throw new IllegalArgumentException("Threshold must be between 1 and "+MAX_THRESHOLD);
+        threshold = cells;
+    }
+
+    public int getThreshold()
+    {
+        return threshold;
+    }
+
+    // Time allowed for one search, in microseconds
+    public void setTimeBudget(long micros)
+    {
+        if(micros<0)
+            throw new IllegalArgumentException("Time budget must not be negative");
+        budgetNanos = micros*1000;
+    }
+
+    public long getTimeBudget()
+    {
+        return budgetNanos/1000;
+    }
+
+    // Solves the game being played through a GameEngine
+    public boolean solve(GameEngine engine)
+    {
+        int rows = engine.getRows();
+        int cols = engine.getColumns();
+        if(visible.length!=rows*cols)
+            visible = new int[rows*cols];
+        for(int i = 0;i<rows;i++)
+            for(int j = 0;j<cols;j++)
+                visible[i*cols+j] = engine.getVisibleValue(i,j);
+        return solve(rows,cols,visible,engine.getNumMines());
+    }
+
+    // Solves a visible state (values as in GameEngine.getVisibleValue) of a
+    // board with totalMines mines. Returns false, with no results, if more
+    // tiles are undecided than the threshold, the search ran out of time, no
+    // layout fits or the board is too large for a NeighborTable.
+    public boolean solve(int rows, int cols, int[] visible, int totalMines)
+    {
+        solution = null;
+        if(!NeighborTable.fits(rows,cols))
+            return false;
+        int cells = rows*cols;
+        long[] hiddenBits = new long[(cells+63)>>>6];
+        for(int cell = 0;cell<cells;cell++)
+            if(visible[cell]==GameEngine.HIDDEN || visible[cell]==GameEngine.FLAGGED)
+                hiddenBits[cell>>>6] |= 1L<<cell;
+        Key key = new Key(hiddenBits);
+        Solution cached = table.get(key);
+        // A position kept as over a lower threshold is searched again
+        if(cached!=null && cached.matches(cols,visible,cells,totalMines)
+                && (cached.solved || cached.undecided==0 || cached.undecided>threshold))
+        {
+            hits++;
+            if(cached.solved && cached.undecided<=threshold)
+                solution = cached;
+            return solution!=null;
+        }
+        misses++;
+        Solution result = search(rows,cols,visible,totalMines);
+        if(result==null) // out of time, not kept: a larger budget may finish
+            return false;
+        table.put(key,result);
+        if(result.solved)
+            solution = result;
+        return result.solved;
+    }
+
+    // True if the last solve() succeeded
+    public boolean isSolved()
+    {
+        return solution!=null;
+    }
+
+    // Number of hidden tiles that are safe in every layout
+    public int getSafeCount()
+    {
+        return solution==null ? 0 : solution.safeCells.length;
+    }
+
+    // The i-th safe tile (flat index), in increasing order
+    public int getSafeCell(int i)
+    {
+        return solution.safeCells[i];
+    }
+
+    public int getMineCount()
+    {
+        return solution==null ? 0 : solution.mineCells.length;
+    }
+
+    public int getMineCell(int i)
+    {
+        return solution.mineCells[i];
+    }
+
+    // Probability that a hidden tile is a mine; 0 for exposed tiles
+    public double getProbability(int cell)
+    {
+        if(solution==null)
+            throw new IllegalStateException("No solved endgame");
+        int i = Arrays.binarySearch(solution.hiddenCells,cell);
+        return i<0 ? 0 : solution.probabilities[i];
+    }
+
+    // The hidden tile least likely to be a mine, lowest index on ties
+    public int getSafestCell()
+    {
+        if(solution==null)
+            return -1;
+        int best = -1;
+        for(int i = 0;i<solution.hiddenCells.length;i++)
+            if(best<0 || solution.probabilities[i]<solution.probabilities[best])
+                best = i;
+        return best<0 ? -1 : solution.hiddenCells[best];
+    }
+
+    // Positions answered from the transposition table, and searched
+    public long getCacheHits()
+    {
+        return hits;
+    }
+
+    public long getCacheMisses()
+    {
+        return misses;
+    }
+
+    public void clearCache()
+    {
+        table.clear();
+    }
+
+    // Settles what the numbers prove, builds the constraints of the
+    // undecided tiles and searches every layout; null if the search ran
+    // out of time
+    private Solution search(int rows, int cols, int[] visible, int totalMines)
+    {
+        int cells = rows*cols;
+        deadline = System.nanoTime()+budgetNanos;
+        if(work.length!=cells)
+            work = new int[cells];
+        for(int cell = 0;cell<cells;cell++)
+            work[cell] = visible[cell]==GameEngine.FLAGGED ? GameEngine.HIDDEN : visible[cell];
+        numbers.solve(rows,cols,work);
+        if(!numbers.isConsistent())
+            return Solution.unsolved(cols,visible,cells,totalMines);
+        // Proven mines now count as shown, so the numbers next to them need
+        // fewer, and proven safe tiles as exposed
+        for(int i = 0;i<numbers.getMineCount();i++)
+            work[numbers.getMineCell(i)] = GameEngine.VISIBLE_MINE;
+        for(int i = 0;i<numbers.getSafeCount();i++)
+            work[numbers.getSafeCell(i)] = PROVEN_SAFE;
+
+        NeighborTable neighbors = NeighborTable.forBoard(rows,cols);
+        hiddenCount = 0;
+        int shownMines = 0;
+        for(int cell = 0;cell<cells;cell++)
+        {
+            int value = work[cell];
+            if(value==GameEngine.HIDDEN)
+            {
+                if(hiddenCount<threshold)
+                    hiddenCells[hiddenCount] = cell;
+                hiddenCount++;
+            }
+            else if(value==GameEngine.VISIBLE_MINE)
+                shownMines++;
+        }
+        if(hiddenCount>threshold)
+            return Solution.overThreshold(cols,visible,cells,totalMines,hiddenCount);
+        minesLeft = totalMines-shownMines;
+
+        // One constraint per number next to an undecided tile
+        conCount = 0;
+        long frontier = 0;
+        for(int cell = 0;cell<cells;cell++)
+        {
+            int value = work[cell];
+            if(value<0 || value>8)
+                continue;
+            long mask = 0;
+            int need = value;
+            for(int j = neighbors.start(cell);j<neighbors.end(cell);j++)
+            {
+                int next = neighbors.get(j);
+                if(work[next]==GameEngine.HIDDEN)
+                    mask |= 1L<<Arrays.binarySearch(hiddenCells,0,hiddenCount,next);
+                else if(work[next]==GameEngine.VISIBLE_MINE)
+                    need--;
+            }
+            if(mask==0)
+            {
+                if(need!=0)
+                    return Solution.unsolved(cols,visible,cells,totalMines);
+                continue;
+            }
+            if(conCount==conMask.length)
+            {
+                conMask = Arrays.copyOf(conMask,conCount*2);
+                conNeed = Arrays.copyOf(conNeed,conCount*2);
+                placed = new int[conCount*2];
+                open = new int[conCount*2];
+            }
+            conMask[conCount] = mask;
+            conNeed[conCount] = need;
+            conCount++;
+            frontier |= mask;
+        }
+        interiorMask = hiddenCount==64 ? ~frontier : ((1L<<hiddenCount)-1) & ~frontier;
+        interior = Long.bitCount(interiorMask);
+        orderFrontier();
+        binomial = binomialRow(interior);
+
+        total = 0;
+        Arrays.fill(mineWeight,0);
+        interiorMines = 0;
+        canBeMine = 0;
+        canBeSafe = 0;
+        interiorCanBeMine = false;
+        interiorCanBeSafe = false;
+        for(int c = 0;c<conCount;c++)
+        {
+            placed[c] = 0;
+            open[c] = Long.bitCount(conMask[c]);
+        }
+        outOfTime = false;
+        nodes = 0;
+        walk(0,0,0L);
+        if(outOfTime)
+            return null;
+        if(total==0)
+            return Solution.unsolved(cols,visible,cells,totalMines);
+        return collect(cols,visible,cells,totalMines);
+    }
+
+    // Orders the frontier tiles as the constraints list them, so that the
+    // search closes constraints early, and lists each tile's constraints
+    private void orderFrontier()
+    {
+        frontierCount = 0;
+        long seen = 0;
+        for(int i = 0;i<hiddenCount;i++)
+            varConCount[i] = 0;
+        for(int c = 0;c<conCount;c++)
+        {
+            long mask = conMask[c];
+            while(mask!=0)
+            {
+                int v = Long.numberOfTrailingZeros(mask);
+                mask &= mask-1;
+                if((seen & 1L<<v)==0)
+                {
+                    seen |= 1L<<v;
+                    order[frontierCount++] = v;
+                }
+                varConList[v][varConCount[v]++] = c;
+            }
+        }
+    }
+
+    // Backtracking over order[i..]: mines placed so far and their mask
+    private void walk(int i, int mines, long layout)
+    {
+        if((++nodes & 1023)==0 && System.nanoTime()>deadline)
+            outOfTime = true;
+        if(outOfTime || mines>minesLeft)
+            return;
+        if(i==frontierCount)
+        {
+            int rest = minesLeft-mines;
+            if(rest>interior)
+                return;
+            double weight = binomial[rest];
+            total += weight;
+            long bits = layout;
+            while(bits!=0)
+            {
+                mineWeight[Long.numberOfTrailingZeros(bits)] += weight;
+                bits &= bits-1;
+            }
+            canBeMine |= layout;
+            canBeSafe |= ~layout;
+            if(interior>0)
+            {
+                interiorMines += weight*rest/interior;
+                interiorCanBeMine |= rest>0;
+                interiorCanBeSafe |= rest<interior;
+            }
+            return;
+        }
+        int v = order[i];
+        for(int value = 0;value<=1;value++)
+        {
+            if(!fits(v,value))
+                continue;
+            place(v,value,1);
+            walk(i+1,mines+value,value==1 ? layout | 1L<<v : layout);
+            place(v,value,-1);
+        }
+    }
+
+    private boolean fits(int v, int value)
+    {
+        for(int j = 0;j<varConCount[v];j++)
+        {
+            int c = varConList[v][j];
+            int m = placed[c]+value;
+            if(m>conNeed[c] || m+open[c]-1<conNeed[c])
+                return false;
+        }
+        return true;
+    }
+
+    private void place(int v, int value, int sign)
+    {
+        for(int j = 0;j<varConCount[v];j++)
+        {
+            int c = varConList[v][j];
+            placed[c] += sign*value;
+            open[c] -= sign;
+        }
+    }
+
+    // Turns the search totals, and what the numbers proved, into the safe
+    // and mine tiles and the probabilities of every hidden tile
+    private Solution collect(int cols, int[] visible, int cells, int totalMines)
+    {
+        int count = 0;
+        for(int cell = 0;cell<cells;cell++)
+            if(visible[cell]==GameEngine.HIDDEN || visible[cell]==GameEngine.FLAGGED)
+                count++;
+        int[] hidden = new int[count];
+        double[] probabilities = new double[count];
+        int safe = 0;
+        int mine = 0;
+        int[] safeCells = new int[count];
+        int[] mineCells = new int[count];
+        int n = 0;
+        int v = 0;
+        for(int cell = 0;cell<cells;cell++)
+        {
+            if(visible[cell]!=GameEngine.HIDDEN && visible[cell]!=GameEngine.FLAGGED)
+                continue;
+            hidden[n] = cell;
+            boolean mayBeMine;
+            boolean mayBeSafe;
+            if(work[cell]==PROVEN_SAFE)
+            {
+                mayBeMine = false;
+                mayBeSafe = true;
+            }
+            else if(work[cell]==GameEngine.VISIBLE_MINE)
+            {
+                mayBeMine = true;
+                mayBeSafe = false;
+            }
+            else
+            {
+                // Undecided tiles are in cell order, as hiddenCells lists them
+                boolean inside = (interiorMask & 1L<<v)!=0;
+                mayBeMine = inside ? interiorCanBeMine : (canBeMine & 1L<<v)!=0;
+                mayBeSafe = inside ? interiorCanBeSafe : (canBeSafe & 1L<<v)!=0;
+                probabilities[n] = inside ? interiorMines/total : mineWeight[v]/total;
+                v++;
+            }
+            if(!mayBeMine)
+            {
+                probabilities[n] = 0;
+                safeCells[safe++] = cell;
+            }
+            else if(!mayBeSafe)
+            {
+                probabilities[n] = 1;
+                mineCells[mine++] = cell;
+            }
+            n++;
+        }
+        return new Solution(cols,visible,cells,totalMines,hiddenCount,hidden,probabilities,
+                Arrays.copyOf(safeCells,safe),Arrays.copyOf(mineCells,mine),true);
+    }
+
+    // C(n, k) for k = 0..n
+    private static double[] binomialRow(int n)
+    {
+        double[] row = new double[n+1];
+        row[0] = 1;
+        for(int k = 1;k<=n;k++)
+            row[k] = row[k-1]*(n-k+1)/k;
+        return row;
+    }
+
+    // Hidden-tile bitset of a position
+    private static final class Key {
+        private final long[] bits;
+        private final int hash;
+
+        Key(long[] bits)
+        {
+            this.bits = bits;
+            hash = Arrays.hashCode(bits);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return other instanceof Key && Arrays.equals(bits,((Key)other).bits);
+        }
+    }
+
+    // A solved (or unsolvable) position, with the board it was solved for
+    // and the number of tiles the search had to decide (or found too many
+    // of)
+    private static final class Solution {
+        private final int cols;
+        private final int totalMines;
+        private final int undecided;
+        private final int[] numbers;
+        private final int[] hiddenCells;
+        private final double[] probabilities;
+        private final int[] safeCells;
+        private final int[] mineCells;
+        private final boolean solved;
+
+        Solution(int cols, int[] visible, int cells, int totalMines, int undecided, int[] hiddenCells,
+                double[] probabilities, int[] safeCells, int[] mineCells, boolean solved)
+        {
+            this.cols = cols;
+            this.totalMines = totalMines;
+            this.undecided = undecided;
+            numbers = Arrays.copyOf(visible,cells);
+            this.hiddenCells = hiddenCells;
+            this.probabilities = probabilities;
+            this.safeCells = safeCells;
+            this.mineCells = mineCells;
+            this.solved = solved;
+        }
+
+        static Solution unsolved(int cols, int[] visible, int cells, int totalMines)
+        {
+            return new Solution(cols,visible,cells,totalMines,0,new int[0],new double[0],new int[0],new int[0],false);
+        }
+
+        static Solution overThreshold(int cols, int[] visible, int cells, int totalMines, int undecided)
+        {
+            return new Solution(cols,visible,cells,totalMines,undecided,new int[0],new double[0],new int[0],new int[0],false);
+        }
+
+        // True if it was solved for the same board, mine total and numbers
+        // (flags aside)
+        boolean matches(int cols, int[] visible, int cells, int totalMines)
+        {
+            if(numbers.length!=cells || this.cols!=cols || this.totalMines!=totalMines)
+                return false;
+            for(int cell = 0;cell<cells;cell++)
+            {
+                int a = numbers[cell];
+                int b = visible[cell];
+                if(a!=b && !(hiddenValue(a) && hiddenValue(b)))
+                    return false;
+            }
+            return true;
+        }
+
+        private static boolean hiddenValue(int value)
+        {
+            return value==GameEngine.HIDDEN || value==GameEngine.FLAGGED;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+/* Tests for the endgame solver */
+public class EndgameSolverTest {
+
+    private static final int H = GameEngine.HIDDEN;
+    private static final int F = GameEngine.FLAGGED;
+
+    // The 1 holds the only mine, so the count makes the tiles away from it
+    // safe, which the numbers alone cannot
+    @Test
+    public void testCountSettlesInterior() {
+        EndgameSolver solver = new EndgameSolver();
+        // 1 sees tiles 0 and 2; tiles 3 and 4 are away from every number
+        assertTrue(solver.solve(1, 5, new int[] {H, 1, H, H, H}, 1));
+        assertEquals(2, solver.getSafeCount());
+        assertEquals(3, solver.getSafeCell(0));
+        assertEquals(4, solver.getSafeCell(1));
+        assertEquals(0.5, solver.getProbability(0), 1e-12);
+        assertEquals(0, solver.getProbability(4), 1e-12);
+    }
+
+    // Compares the solver with listing every layout of the hidden tiles
+    // with the mines left, on positions from seeded games with flags
+    @Test
+    public void testMatchesBruteForce() {
+        Random rng = new Random(9);
+        EndgameSolver solver = new EndgameSolver();
+        int positions = 0;
+        for (int game = 0; game < 300; game++) {
+            int rows = 3 + rng.nextInt(4);
+            int cols = 3 + rng.nextInt(4);
+            int mines = 1 + rng.nextInt(rows * cols / 3);
+            Model model = new Model();
+            model.setSeed(rng.nextLong());
+            model.setFirstClickSafe(true);
+            model.newGame(rows, cols, mines);
+            model.press(rng.nextInt(rows), rng.nextInt(cols));
+            while (model.getStatus() == GameStatus.PLAYING) {
+                int[] visible = SolverBenchmark.visibleState(model);
+                // A random flag, right or wrong, must not change anything
+                int flag = rng.nextInt(visible.length);
+                if (visible[flag] == H)
+                    visible[flag] = F;
+                double[] expected = bruteForce(rows, cols, visible, mines);
+                boolean solved = solver.solve(rows, cols, visible, mines);
+                if (expected != null) {
+                    assertTrue(solved);
+                    positions++;
+                    for (int cell = 0; cell < visible.length; cell++)
+                        assertEquals("cell " + cell, expected[cell], solver.getProbability(cell), 1e-9);
+                    for (int i = 0; i < solver.getSafeCount(); i++)
+                        assertEquals(0, expected[solver.getSafeCell(i)], 0);
+                    for (int i = 0; i < solver.getMineCount(); i++)
+                        assertEquals(1, expected[solver.getMineCell(i)], 0);
+                }
+                int cell = solver.isSolved() ? solver.getSafestCell() : firstHidden(visible);
+                model.press(cell / cols, cell % cols);
+            }
+        }
+        assertTrue(positions > 500);
+    }
+
+    // Tests that a position asked again after flagging comes from the
+    // transposition table, and that one over the threshold is not solved
+    @Test
+    public void testTableAndThreshold() {
+        EndgameSolver solver = new EndgameSolver();
+        int[] visible = {H, 1, H, H, H};
+        assertTrue(solver.solve(1, 5, visible, 1));
+        visible[0] = F;
+        assertTrue(solver.solve(1, 5, visible, 1));
+        assertEquals(1, solver.getCacheHits());
+        assertEquals(1, solver.getCacheMisses());
+        assertEquals(3, solver.getSafeCell(0));
+
+        solver.setThreshold(2);
+        assertFalse(solver.solve(1, 5, visible, 1));
+        assertFalse(solver.isSolved());
+    }
+
+    private static int firstHidden(int[] visible) {
+        for (int cell = 0; cell < visible.length; cell++)
+            if (visible[cell] == H || visible[cell] == F)
+                return cell;
+        return -1;
+    }
+
+    // Probability of a mine in each tile over all layouts of the hidden
+    // and flagged tiles with the mines left that fit the numbers, or null
+    // if there are too many hidden tiles to list
+    private static double[] bruteForce(int rows, int cols, int[] visible, int mines) {
+        int[] hidden = new int[visible.length];
+        int count = 0;
+        int left = mines;
+        for (int cell = 0; cell < visible.length; cell++) {
+            if (visible[cell] == H || visible[cell] == F)
+                hidden[count++] = cell;
+            else if (visible[cell] == GameEngine.VISIBLE_MINE)
+                left--;
+        }
+        if (count > 16)
+            return null;
+        double[] mineLayouts = new double[visible.length];
+        double layouts = 0;
+        boolean[] mine = new boolean[visible.length];
+        for (int cell = 0; cell < visible.length; cell++)
+            mine[cell] = visible[cell] == GameEngine.VISIBLE_MINE;
+        for (int layout = 0; layout < 1 << count; layout++) {
+            if (Integer.bitCount(layout) != left)
+                continue;
+            for (int i = 0; i < count; i++)
+                mine[hidden[i]] = (layout >>> i & 1) != 0;
+            if (!fits(rows, cols, visible, mine))
+                continue;
+            layouts++;
+            for (int i = 0; i < count; i++)
+                if (mine[hidden[i]])
+                    mineLayouts[hidden[i]]++;
+        }
+        for (int i = 0; i < count; i++)
+            mineLayouts[hidden[i]] /= layouts;
+        return mineLayouts;
+    }
+
+    private static boolean fits(int rows, int cols, int[] visible, boolean[] mine) {
+        for (int cell = 0; cell < visible.length; cell++) {
+            if (visible[cell] < 0 || visible[cell] > 8)
+                continue;
+            int row = cell / cols;
+            int col = cell % cols;
+            int count = 0;
+            for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++)
+                for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++)
+                    if (mine[r * cols + c])
+                        count++;
+            if (count != visible[cell])
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,26 @@
+import java.util.random.RandomGenerator;
+
+/* Partial Fisher-Yates shuffle over the cell indices: the first mines
+ * positions of the shuffled array are a uniform random subset.
+ * O(cells) to fill the index array, O(mines) swaps. */
+public class FisherYatesMinePlacement implements MinePlacementStrategy {
+
+    // Largest board this strategy is picked for automatically (64 MB of indices)
+    public static final int MAX_CELLS = 1<<24;
+
+    public void placeMines(Board board, int mines, RandomGenerator rng)
+    {
+        int size = board.size();
+        int[] cells = new int[size];
+        for(int i = 0;i<size;i++)
+            cells[i] = i;
+        for(int i = 0;i<mines;i++)
+        {
+            int j = i+rng.nextInt(size-i);
+            int cell = cells[j];
+            cells[j] = cells[i];
+            cells[i] = cell;
+            board.setMine(cell,true);
+        }
+    }
+}
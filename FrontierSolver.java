@@ -0,0 +1,832 @@
+import java.util.Arrays;
+
+/* Constraint-propagation solver for what the player can see.
+ * The input is the visible value of every cell, as returned by
+ * GameEngine.getVisibleValue (HIDDEN, FLAGGED, VISIBLE_MINE or 0-8), in a
+ * flat array indexed row*cols + col. Flags and exposed mines are taken to
+ * be mines.
+ *
+ * Every exposed number next to hidden tiles gives a constraint: its hidden
+ * neighbors (the frontier) hold exactly number - (flags and exposed mines
+ * around it) mines. The frontier is split into independent components
+ * (cells linked through shared constraints), and each component is
+ * propagated to a fixpoint:
+ *  - a constraint needing no mines makes its cells safe, one needing as
+ *    many mines as it has cells makes them all mines
+ *  - two overlapping constraints bound the mines in their shared cells,
+ *    which can settle the cells only one of them has (this covers the
+ *    subset/superset rule, where one of them has no cells of its own)
+ * In ELIMINATION mode, components still undecided after propagation also
+ * go through GaussianEliminator, which finds deductions that need three
+ * or more constraints together, and what is left of a component after
+ * that is enumerated if it has at most ENUMERATION_LIMIT cells.
+ *
+ * Constraints are stored in flat primitive arrays and the buffers are kept
+ * between calls, so a solver reused for every move stops allocating once
+ * it has seen its largest frontier. Neighbors come from the shared
+ * NeighborTable; boards over NeighborTable.MAX_CELLS cells have none and
+ * use clamped loops instead. */
+public class FrontierSolver {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte SAFE = 1;
+    private static final byte MINE = 2;
+
+    // How far the solver goes: the single and pair rules only, or those
+    // followed by elimination and enumeration of small remainders
+    public enum Mode { PROPAGATION, ELIMINATION }
+
+    // Components with at most this many undecided cells left after
+    // elimination are enumerated in ELIMINATION mode
+    static final int ENUMERATION_LIMIT = 24;
+    // Time allowed to enumerate one component
+    private static final long ENUMERATION_NANOS = 5_000_000;
+
+    private Mode mode = Mode.PROPAGATION;
+
+    private int rows;
+    private int cols;
+    private int[] visible;
+    // Null for boards too large to have a table
+    private NeighborTable neighbors;
+    // Neighbors of one cell, on boards without a table
+    private final int[] around = new int[8];
+    private int[] engineVisible = new int[0]; // filled by solve(GameEngine)
+
+    // Variables: frontier cells (hidden, not flagged, next to a number)
+    private int[] cellVar = new int[0]; // cell -> variable, or -1
+    private int[] varCell = new int[64]; // variable -> cell
+    private byte[] varState = new byte[64];
+    private int varCount;
+
+    // Constraints, in compressed rows: the variables of constraint c are
+    // conVars[conStart[c]] .. conVars[conStart[c+1]-1]
+    private int[] conStart = new int[65];
+    private int[] conVars = new int[512];
+    private int[] conMines = new int[64]; // mines needed among the variables
+    private int conCount;
+    private int used; // entries of conVars in use
+
+    // Constraints of each variable, in the same compressed form
+    private int[] varConStart = new int[65];
+    private int[] varCons = new int[512];
+
+    // Components: variables and constraints of component k are at
+    // compVarStart[k] .. compVarStart[k+1]-1 (and likewise for constraints)
+    private int[] parent = new int[64]; // union-find over the variables
+    private int[] varComponent = new int[64];
+    private int[] compVarStart = new int[65];
+    private int[] compVars = new int[64];
+    private int[] compConStart = new int[65];
+    private int[] compCons = new int[64];
+    private int componentCount;
+
+    private final IntQueue work = new IntQueue();
+    private boolean[] queued = new boolean[64];
+    // Stamps, so each pair of constraints is looked at once per visit
+    private int[] conStamp = new int[64];
+    private int stamp;
+
+    // Scratch for the unknown variables of two constraints (at most 8 each)
+    private final int[] unknownA = new int[8];
+    private final int[] unknownB = new int[8];
+
+    // Elimination mode: the undecided variables of a component in local
+    // order, each variable's local index, and the local constraint rows
+    private final GaussianEliminator eliminator = new GaussianEliminator();
+    private int[] localVars = new int[64];
+    private int[] localIndex = new int[64];
+    private final int[] localRow = new int[8];
+
+    // Results, as cell indices
+    private int[] safeCells = new int[64];
+    private int safeCount;
+    private int[] mineCells = new int[64];
+    private int mineCount;
+    private boolean consistent;
+
+    // Solves the visible state of a game being played through a GameEngine
+    public void solve(GameEngine engine)
+    {
+        int r = engine.getRows();
+        int c = engine.getColumns();
+        int cells = r*c;
+        if(engineVisible.length<cells)
+            engineVisible = new int[cells];
+        for(int i = 0;i<r;i++)
+            for(int j = 0;j<c;j++)
+                engineVisible[i*c+j] = engine.getVisibleValue(i,j);
+        solve(r,c,engineVisible);
+    }
+
+    // Solves the given visible state (values as in GameEngine.getVisibleValue)
+    public void solve(int rows, int cols, int[] visible)
+    {
+        solve(rows,cols,visible,null,0);
+    }
+
+    // Solves only the constraints of the given exposed number cells
+    // (numbers[0..count-1]), for callers that know which part of the board
+    // changed. The cells must include every number next to the hidden
+    // cells they see, or the result only holds for the given numbers.
+    public void solve(int rows, int cols, int[] visible, int[] numbers, int count)
+    {
+        if(rows<1 || cols<1 || visible.length<rows*cols)
+            throw new IllegalArgumentException("Visible state does not match a "+rows+" x "+cols+" board");
+        this.rows = rows;
+        this.cols = cols;
+        this.visible = visible;
+        if(!NeighborTable.fits(rows,cols))
+            neighbors = null;
+        else if(neighbors==null || neighbors.getRows()!=rows || neighbors.getCols()!=cols)
+            neighbors = NeighborTable.forBoard(rows,cols);
+        safeCount = 0;
+        mineCount = 0;
+        consistent = true;
+        buildConstraints(numbers,count);
+        if(!consistent)
+            return;
+        buildComponents();
+        for(int k = 0;k<componentCount && consistent;k++)
+            propagate(k);
+        if(mode==Mode.ELIMINATION)
+            for(int k = 0;k<componentCount && consistent;k++)
+                deepen(k);
+        if(!consistent)
+        {
+            // The flags contradict the numbers, so nothing can be deduced
+            safeCount = 0;
+            mineCount = 0;
+            return;
+        }
+        Arrays.sort(safeCells,0,safeCount);
+        Arrays.sort(mineCells,0,mineCount);
+    }
+
+    public void setMode(Mode mode)
+    {
+        if(mode==null)
+            throw new IllegalArgumentException("Solver mode must not be null");
+        this.mode = mode;
+    }
+
+    public Mode getMode()
+    {
+        return mode;
+    }
+
+    // Number of frontier cells proven safe by the last solve
+    public int getSafeCount()
+    {
+        return safeCount;
+    }
+
+    // The i-th safe cell (flat index), in increasing order
+    public int getSafeCell(int i)
+    {
+        return safeCells[i];
+    }
+
+    // Number of frontier cells proven to be mines by the last solve
+    public int getMineCount()
+    {
+        return mineCount;
+    }
+
+    // The i-th mine cell (flat index), in increasing order
+    public int getMineCell(int i)
+    {
+        return mineCells[i];
+    }
+
+    public int[] getSafeCells()
+    {
+        return Arrays.copyOf(safeCells,safeCount);
+    }
+
+    public int[] getMineCells()
+    {
+        return Arrays.copyOf(mineCells,mineCount);
+    }
+
+    // False if the numbers and flags cannot all be right; nothing is
+    // deduced in that case
+    public boolean isConsistent()
+    {
+        return consistent;
+    }
+
+    // Number of frontier cells (hidden, unflagged, next to a number)
+    public int getFrontierSize()
+    {
+        return varCount;
+    }
+
+    // Number of independent frontier components
+    public int getComponentCount()
+    {
+        return componentCount;
+    }
+
+    public int getRows()
+    {
+        return rows;
+    }
+
+    public int getCols()
+    {
+        return cols;
+    }
+
+    // Neighbors of a cell of the last solved board, into into[0..7];
+    // returns how many
+    int neighborsOf(int cell, int[] into)
+    {
+        if(neighbors==null)
+            return NeighborTable.around(rows,cols,cell,into);
+        int count = 0;
+        for(int j = neighbors.start(cell);j<neighbors.end(cell);j++)
+            into[count++] = neighbors.get(j);
+        return count;
+    }
+
+    // Visible value of a cell in the last solved state
+    int visibleValue(int cell)
+    {
+        return visible[cell];
+    }
+
+    // The constraint system after propagation, for the probability engine.
+    // Variables are 0 .. getFrontierSize()-1.
+
+    int variableCell(int v)
+    {
+        return varCell[v];
+    }
+
+    // True if propagation could not settle variable v
+    boolean isUndecided(int v)
+    {
+        return varState[v]==UNKNOWN;
+    }
+
+    int constraintCount()
+    {
+        return conCount;
+    }
+
+    // The variables of constraint c are constraintVar(i) for
+    // constraintStart(c) <= i < constraintStart(c+1)
+    int constraintStart(int c)
+    {
+        return conStart[c];
+    }
+
+    int constraintVar(int i)
+    {
+        return conVars[i];
+    }
+
+    // Mines constraint c still needs among its undecided variables
+    int constraintMinesLeft(int c)
+    {
+        return conMines[c]-minesSet(c);
+    }
+
+    // The constraints of variable v are variableConstraint(j) for
+    // variableConstraintStart(v) <= j < variableConstraintStart(v+1)
+    int variableConstraintStart(int v)
+    {
+        return varConStart[v];
+    }
+
+    int variableConstraint(int j)
+    {
+        return varCons[j];
+    }
+
+    // Makes one constraint per exposed number with hidden neighbors, for
+    // every cell or only the listed ones
+    private void buildConstraints(int[] numbers, int count)
+    {
+        int cells = rows*cols;
+        if(cellVar.length<cells)
+        {
+            cellVar = new int[cells];
+            Arrays.fill(cellVar,-1);
+        }
+        else
+        {
+            for(int v = 0;v<varCount;v++)
+                cellVar[varCell[v]] = -1;
+        }
+        varCount = 0;
+        conCount = 0;
+        used = 0;
+        if(numbers==null)
+        {
+            for(int cell = 0;cell<cells && consistent;cell++)
+                addConstraint(cell);
+        }
+        else
+        {
+            for(int i = 0;i<count && consistent;i++)
+                addConstraint(numbers[i]);
+        }
+        if(!consistent)
+            return;
+        conStart[conCount] = used;
+
+        // Constraints of each variable
+        if(varConStart.length<varCount+1)
+            varConStart = new int[varCell.length+1];
+        if(varCons.length<used)
+            varCons = new int[conVars.length];
+        Arrays.fill(varConStart,0,varCount+1,0);
+        for(int i = 0;i<used;i++)
+            varConStart[conVars[i]+1]++;
+        prefixSums(varConStart,varCount);
+        for(int c = 0;c<conCount;c++)
+            for(int i = conStart[c];i<conStart[c+1];i++)
+                varCons[varConStart[conVars[i]]++] = c;
+        shiftStarts(varConStart,varCount);
+    }
+
+    // Turns the counts in start[1..n] into compressed-row starts, so that
+    // start[i] is the first slot of row i and start[n] the total
+    private static void prefixSums(int[] start, int n)
+    {
+        for(int i = 0;i<n;i++)
+            start[i+1] += start[i];
+    }
+
+    // After rows were filled by start[i]++, start[i] is where row i+1
+    // begins; moves every start back to the row it belongs to
+    private static void shiftStarts(int[] start, int n)
+    {
+        for(int i = n;i>0;i--)
+            start[i] = start[i-1];
+        start[0] = 0;
+    }
+
+    // Adds the constraint of the cell if it is an exposed number with hidden
+    // neighbors; clears consistent if the flags around it are too many or
+    // too few
+    private void addConstraint(int cell)
+    {
+        int number = visible[cell];
+        if(number<0 || number>8)
+            return;
+        ensureConstraints(conCount+1,used+8);
+        int start = used;
+        int known = 0;
+        if(neighbors!=null)
+        {
+            for(int j = neighbors.start(cell);j<neighbors.end(cell);j++)
+                known += addNeighbor(neighbors.get(j));
+        }
+        else
+        {
+            int count = NeighborTable.around(rows,cols,cell,around);
+            for(int j = 0;j<count;j++)
+                known += addNeighbor(around[j]);
+        }
+        int needed = number-known;
+        if(needed<0 || needed>used-start)
+        {
+            consistent = false;
+            return;
+        }
+        if(used==start)
+            return;
+        conStart[conCount] = start;
+        conMines[conCount] = needed;
+        conCount++;
+    }
+
+    // Adds a neighbor of the constraint being built: a hidden cell becomes
+    // one of its variables. Returns 1 if the neighbor is a known mine.
+    private int addNeighbor(int neighbor)
+    {
+        int value = visible[neighbor];
+        if(value==GameEngine.HIDDEN)
+            conVars[used++] = variable(neighbor);
+        return value==GameEngine.FLAGGED || value==GameEngine.VISIBLE_MINE ? 1 : 0;
+    }
+
+    // Returns the variable of a hidden cell, making one if needed
+    private int variable(int cell)
+    {
+        int v = cellVar[cell];
+        if(v>=0)
+            return v;
+        if(varCount==varCell.length)
+        {
+            int length = varCount*2;
+            varCell = Arrays.copyOf(varCell,length);
+            varState = Arrays.copyOf(varState,length);
+        }
+        v = varCount++;
+        varCell[v] = cell;
+        varState[v] = UNKNOWN;
+        cellVar[cell] = v;
+        return v;
+    }
+
+    private void ensureConstraints(int constraints, int entries)
+    {
+        if(conMines.length<constraints)
+        {
+            int length = Math.max(constraints,conMines.length*2);
+            conMines = Arrays.copyOf(conMines,length);
+            conStart = Arrays.copyOf(conStart,length+1);
+        }
+        if(conVars.length<entries)
+            conVars = Arrays.copyOf(conVars,Math.max(entries,conVars.length*2));
+    }
+
+    // Splits the frontier into components with a union-find over the
+    // variables, then lists the variables and constraints of each
+    private void buildComponents()
+    {
+        if(parent.length<varCount)
+        {
+            parent = new int[varCell.length];
+            varComponent = new int[varCell.length];
+            compVars = new int[varCell.length];
+        }
+        for(int v = 0;v<varCount;v++)
+            parent[v] = v;
+        for(int c = 0;c<conCount;c++)
+        {
+            int root = find(conVars[conStart[c]]);
+            for(int i = conStart[c]+1;i<conStart[c+1];i++)
+            {
+                int other = find(conVars[i]);
+                if(other!=root)
+                    parent[other] = root;
+            }
+        }
+        componentCount = 0;
+        for(int v = 0;v<varCount;v++)
+            if(parent[v]==v)
+                varComponent[v] = componentCount++;
+        for(int v = 0;v<varCount;v++)
+            varComponent[v] = varComponent[find(v)];
+
+        if(compVarStart.length<componentCount+1)
+        {
+            compVarStart = new int[varCell.length+1];
+            compConStart = new int[varCell.length+1];
+        }
+        if(compCons.length<conCount)
+        {
+            compCons = new int[conMines.length];
+            queued = new boolean[conMines.length];
+            conStamp = new int[conMines.length];
+        }
+        Arrays.fill(compVarStart,0,componentCount+1,0);
+        Arrays.fill(compConStart,0,componentCount+1,0);
+        for(int v = 0;v<varCount;v++)
+            compVarStart[varComponent[v]+1]++;
+        for(int c = 0;c<conCount;c++)
+            compConStart[varComponent[conVars[conStart[c]]]+1]++;
+        prefixSums(compVarStart,componentCount);
+        prefixSums(compConStart,componentCount);
+        for(int v = 0;v<varCount;v++)
+            compVars[compVarStart[varComponent[v]]++] = v;
+        for(int c = 0;c<conCount;c++)
+            compCons[compConStart[varComponent[conVars[conStart[c]]]]++] = c;
+        shiftStarts(compVarStart,componentCount);
+        shiftStarts(compConStart,componentCount);
+    }
+
+    // Root of v in the union-find, halving the path on the way
+    private int find(int v)
+    {
+        while(parent[v]!=v)
+        {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    // Elimination mode, after propagation: eliminates over what component k
+    // left undecided and propagates whatever that settles, until nothing
+    // more is settled; then enumerates the rest if it is small enough
+    private void deepen(int k)
+    {
+        while(consistent)
+        {
+            int undecided = localize(k);
+            if(undecided==0)
+                return;
+            eliminator.reset(undecided);
+            for(int i = compConStart[k];i<compConStart[k+1];i++)
+            {
+                int c = compCons[i];
+                int count = localRow(c);
+                if(count>0)
+                    eliminator.addRow(localRow,count,conMines[c]-minesSet(c));
+            }
+            if(!eliminator.solve())
+            {
+                consistent = false;
+                return;
+            }
+            boolean settled = false;
+            for(int i = 0;i<undecided;i++)
+            {
+                byte state = eliminator.getState(i);
+                if(state!=GaussianEliminator.UNKNOWN)
+                {
+                    assign(localVars[i],state==GaussianEliminator.SAFE ? SAFE : MINE);
+                    settled = true;
+                }
+            }
+            if(!settled)
+            {
+                if(undecided<=ENUMERATION_LIMIT)
+                    enumerate(k,undecided);
+                return;
+            }
+            propagate(k);
+        }
+    }
+
+    // Numbers the undecided variables of component k in the order their
+    // constraints list them, so neighbors are close; returns how many
+    private int localize(int k)
+    {
+        int undecided = 0;
+        if(localVars.length<varCount)
+        {
+            localVars = new int[varCell.length];
+            localIndex = new int[varCell.length];
+        }
+        for(int i = compVarStart[k];i<compVarStart[k+1];i++)
+            localIndex[compVars[i]] = -1;
+        for(int i = compConStart[k];i<compConStart[k+1];i++)
+        {
+            int c = compCons[i];
+            for(int j = conStart[c];j<conStart[c+1];j++)
+            {
+                int v = conVars[j];
+                if(varState[v]==UNKNOWN && localIndex[v]<0)
+                {
+                    localIndex[v] = undecided;
+                    localVars[undecided++] = v;
+                }
+            }
+        }
+        return undecided;
+    }
+
+    // Local indices of the undecided variables of constraint c, in
+    // localRow; returns how many
+    private int localRow(int c)
+    {
+        int count = 0;
+        for(int j = conStart[c];j<conStart[c+1];j++)
+            if(varState[conVars[j]]==UNKNOWN)
+                localRow[count++] = localIndex[conVars[j]];
+        return count;
+    }
+
+    // Counts every layout of the undecided variables of component k and
+    // settles those with the same value in all of them
+    private void enumerate(int k, int undecided)
+    {
+        int constraints = 0;
+        int entries = 0;
+        for(int i = compConStart[k];i<compConStart[k+1];i++)
+        {
+            int count = localRow(compCons[i]);
+            if(count>0)
+            {
+                constraints++;
+                entries += count;
+            }
+        }
+        int[] start = new int[constraints+1];
+        int[] vars = new int[entries];
+        int[] needs = new int[constraints];
+        int[] varStart = new int[undecided+1];
+        int[] varCons = new int[entries];
+        int row = 0;
+        int used = 0;
+        for(int i = compConStart[k];i<compConStart[k+1];i++)
+        {
+            int c = compCons[i];
+            int count = localRow(c);
+            if(count==0)
+                continue;
+            start[row] = used;
+            needs[row] = conMines[c]-minesSet(c);
+            for(int j = 0;j<count;j++)
+            {
+                vars[used++] = localRow[j];
+                varStart[localRow[j]+1]++;
+            }
+            row++;
+        }
+        start[constraints] = used;
+        prefixSums(varStart,undecided);
+        for(int r = 0;r<constraints;r++)
+            for(int j = start[r];j<start[r+1];j++)
+                varCons[varStart[vars[j]]++] = r;
+        shiftStarts(varStart,undecided);
+
+        ComponentCounter counter = new ComponentCounter(undecided,start,vars,needs,
+                varStart,varCons,System.nanoTime()+ENUMERATION_NANOS);
+        ComponentCounter.Counts counts = counter.count();
+        if(counts==null)
+            return; // out of time: keep what propagation found
+        double layouts = 0;
+        for(double count : counts.counts)
+            layouts += count;
+        if(layouts==0)
+        {
+            consistent = false;
+            return;
+        }
+        for(int v = 0;v<undecided;v++)
+        {
+            double mines = 0;
+            for(int m = 0;m<=undecided;m++)
+                mines += counts.mineCounts[v*(undecided+1)+m];
+            if(mines==0)
+                assign(localVars[v],SAFE);
+            else if(mines==layouts)
+                assign(localVars[v],MINE);
+        }
+        // Nothing is propagated after enumerating
+        while(!work.isEmpty())
+            queued[work.poll()] = false;
+    }
+
+    // Runs the constraints of component k to a fixpoint
+    private void propagate(int k)
+    {
+        work.clear();
+        for(int i = compConStart[k];i<compConStart[k+1];i++)
+        {
+            int c = compCons[i];
+            queued[c] = true;
+            work.add(c);
+        }
+        while(!work.isEmpty() && consistent)
+        {
+            int a = work.poll();
+            queued[a] = false;
+            visit(a);
+        }
+        // Leave no stale flags if the component turned out inconsistent
+        while(!work.isEmpty())
+            queued[work.poll()] = false;
+    }
+
+    // Applies the single-constraint rule to a, then the pair rule to a and
+    // every constraint sharing an unknown variable with it
+    private void visit(int a)
+    {
+        int countA = unknowns(a,unknownA);
+        if(countA==0)
+            return;
+        int minesA = conMines[a]-minesSet(a);
+        if(minesA<0 || minesA>countA)
+        {
+            consistent = false;
+            return;
+        }
+        if(minesA==0 || minesA==countA)
+        {
+            byte state = minesA==0 ? SAFE : MINE;
+            for(int i = 0;i<countA;i++)
+                assign(unknownA[i],state);
+            return;
+        }
+
+        if(++stamp==0) // wrapped around: clear the old stamps
+        {
+            Arrays.fill(conStamp,0);
+            stamp = 1;
+        }
+        conStamp[a] = stamp;
+        for(int i = 0;i<countA;i++)
+        {
+            int v = unknownA[i];
+            for(int j = varConStart[v];j<varConStart[v+1];j++)
+            {
+                int b = varCons[j];
+                if(conStamp[b]==stamp)
+                    continue;
+                conStamp[b] = stamp;
+                if(!overlap(a,countA,minesA,b) || !consistent)
+                    return;
+            }
+        }
+    }
+
+    // Pair rule for a (whose unknowns are in unknownA) and b. The mines in
+    // the shared cells are at least what either constraint cannot fit in
+    // its own cells and at most what either needs; from those bounds the
+    // cells of one constraint only may all be safe or all be mines.
+    // Returns false once a has been changed, since unknownA is then stale.
+    private boolean overlap(int a, int countA, int minesA, int b)
+    {
+        int countB = unknowns(b,unknownB);
+        if(countB==0)
+            return true;
+        int minesB = conMines[b]-minesSet(b);
+        int shared = 0;
+        for(int i = 0;i<countA;i++)
+            for(int j = 0;j<countB;j++)
+                if(unknownA[i]==unknownB[j])
+                    shared++;
+        int onlyA = countA-shared;
+        int onlyB = countB-shared;
+        int low = Math.max(0,Math.max(minesA-onlyA,minesB-onlyB));
+        int high = Math.min(shared,Math.min(minesA,minesB));
+        if(low>high)
+        {
+            consistent = false;
+            return false;
+        }
+        boolean changedA = false;
+        if(onlyA>0 && (minesA-low==0 || minesA-high==onlyA))
+        {
+            assignOnly(unknownA,countA,unknownB,countB,minesA-low==0 ? SAFE : MINE);
+            changedA = true;
+        }
+        if(onlyB>0 && (minesB-low==0 || minesB-high==onlyB))
+            assignOnly(unknownB,countB,unknownA,countA,minesB-low==0 ? SAFE : MINE);
+        return !changedA;
+    }
+
+    // Assigns state to the variables in first that are not in second. One
+    // already settled the other way by an earlier assignment means the
+    // constraints contradict each other.
+    private void assignOnly(int[] first, int firstCount, int[] second, int secondCount, byte state)
+    {
+        outer:
+        for(int i = 0;i<firstCount;i++)
+        {
+            for(int j = 0;j<secondCount;j++)
+                if(first[i]==second[j])
+                    continue outer;
+            if(varState[first[i]]==UNKNOWN)
+                assign(first[i],state);
+            else if(varState[first[i]]!=state)
+                consistent = false;
+        }
+    }
+
+    // Copies the unknown variables of constraint c into into, returns how many
+    private int unknowns(int c, int[] into)
+    {
+        int count = 0;
+        for(int i = conStart[c];i<conStart[c+1];i++)
+            if(varState[conVars[i]]==UNKNOWN)
+                into[count++] = conVars[i];
+        return count;
+    }
+
+    // Number of variables of constraint c already proven to be mines
+    private int minesSet(int c)
+    {
+        int count = 0;
+        for(int i = conStart[c];i<conStart[c+1];i++)
+            if(varState[conVars[i]]==MINE)
+                count++;
+        return count;
+    }
+
+    // Settles variable v and queues its constraints to be looked at again
+    private void assign(int v, byte state)
+    {
+        varState[v] = state;
+        if(state==SAFE)
+        {
+            if(safeCount==safeCells.length)
+                safeCells = Arrays.copyOf(safeCells,safeCount*2);
+            safeCells[safeCount++] = varCell[v];
+        }
+        else
+        {
+            if(mineCount==mineCells.length)
+                mineCells = Arrays.copyOf(mineCells,mineCount*2);
+            mineCells[mineCount++] = varCell[v];
+        }
+        for(int j = varConStart[v];j<varConStart[v+1];j++)
+        {
+            int c = varCons[j];
+            if(!queued[c])
+            {
+                queued[c] = true;
+                work.add(c);
+            }
+        }
+    }
+}
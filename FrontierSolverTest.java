@@ -0,0 +1,322 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/* Tests for the frontier constraint-propagation solver */
+public class FrontierSolverTest {
+
+    private static final int H = GameEngine.HIDDEN;
+    private static final int F = GameEngine.FLAGGED;
+
+    // Tests the single-constraint rules: a satisfied number makes its other
+    // hidden neighbors safe, a full number makes them all mines
+    @Test
+    public void testSingleConstraint() {
+        FrontierSolver solver = new FrontierSolver();
+        solver.solve(2, 3, new int[] {
+                1, F, H,
+                H, H, H});
+        // (0,0) is a 1 with its flag, so (1,0) and (1,1) are safe
+        assertArrayEquals(new int[] {3, 4}, solver.getSafeCells());
+        assertEquals(0, solver.getMineCount());
+
+        solver.solve(2, 2, new int[] {
+                3, H,
+                H, H});
+        assertArrayEquals(new int[] {1, 2, 3}, solver.getMineCells());
+        assertEquals(0, solver.getSafeCount());
+    }
+
+    // Tests the 1-2-1 pattern along a wall, which needs the overlap rule:
+    // the cells under the 1s are mines and the one under the 2 is safe
+    @Test
+    public void testOneTwoOne() {
+        FrontierSolver solver = new FrontierSolver();
+        solver.solve(2, 3, new int[] {
+                1, 2, 1,
+                H, H, H});
+        assertArrayEquals(new int[] {3, 5}, solver.getMineCells());
+        assertArrayEquals(new int[] {4}, solver.getSafeCells());
+    }
+
+    // Tests the subset rule: a 1 whose cells all belong to another 1 makes
+    // the other one's remaining cells safe
+    @Test
+    public void testSubset() {
+        FrontierSolver solver = new FrontierSolver();
+        solver.solve(2, 3, new int[] {
+                H, H, H,
+                1, 2, F});
+        // The 1 sees cells 0 and 1, the 2 also sees cell 2 and the flag,
+        // so its one remaining mine is the 1's mine and cell 2 is safe
+        assertArrayEquals(new int[] {2}, solver.getSafeCells());
+        assertEquals(0, solver.getMineCount());
+    }
+
+    // Tests that separate frontiers are solved as separate components
+    @Test
+    public void testComponents() {
+        FrontierSolver solver = new FrontierSolver();
+        solver.solve(1, 7, new int[] {
+                H, 1, 0, 0, 0, 1, H});
+        assertEquals(2, solver.getComponentCount());
+        assertEquals(2, solver.getFrontierSize());
+        assertArrayEquals(new int[] {0, 6}, solver.getMineCells());
+    }
+
+    // Tests that flags contradicting the numbers give no deductions
+    @Test
+    public void testInconsistentFlags() {
+        FrontierSolver solver = new FrontierSolver();
+        solver.solve(2, 2, new int[] {
+                1, F,
+                F, H});
+        assertFalse(solver.isConsistent());
+        assertEquals(0, solver.getSafeCount());
+        assertEquals(0, solver.getMineCount());
+    }
+
+    // Plays seeded games using only the solver's deductions (guessing when
+    // there are none), and checks that every deduction made along the way
+    // is forced: it holds in every mine layout that fits the numbers
+    @Test
+    public void testDeductionsAreForced() {
+        Random rng = new Random(11);
+        FrontierSolver solver = new FrontierSolver();
+        for (int game = 0; game < 400; game++) {
+            int rows = 3 + rng.nextInt(4);
+            int cols = 3 + rng.nextInt(4);
+            Model model = new Model();
+            model.setSeed(rng.nextLong());
+            model.setFirstClickSafe(true);
+            model.newGame(rows, cols, 1 + rng.nextInt(rows * cols / 3));
+            model.press(rng.nextInt(rows), rng.nextInt(cols));
+            while (model.getStatus() == GameStatus.PLAYING) {
+                int[] visible = visibleState(model);
+                solver.solve(rows, cols, visible);
+                assertTrue(solver.isConsistent());
+                checkForced(rows, cols, visible, solver);
+                if (solver.getSafeCount() + solver.getMineCount() == 0) {
+                    guess(model, visible, rng);
+                    continue;
+                }
+                for (int cell : solver.getMineCells())
+                    model.flag(cell / cols, cell % cols, true);
+                for (int cell : solver.getSafeCells())
+                    if (model.getStatus() == GameStatus.PLAYING)
+                        assertNotEquals(GameStatus.LOST, model.press(cell / cols, cell % cols).getStatus());
+            }
+        }
+    }
+
+    // Tests that the solver finds the moves a player would on expert boards
+    // and never calls a mine safe or a safe tile a mine
+    @Test
+    public void testExpertBoardsAgreeWithMines() {
+        Random rng = new Random(5);
+        FrontierSolver solver = new FrontierSolver();
+        int deductions = 0;
+        for (int game = 0; game < 200; game++) {
+            Model model = new Model();
+            model.setSeed(rng.nextLong());
+            model.setFirstClickSafe(true);
+            model.newGame("expert");
+            model.press(8, 15);
+            String[][] grid = model.getGrid();
+            while (model.getStatus() == GameStatus.PLAYING) {
+                solver.solve(model);
+                for (int cell : solver.getMineCells())
+                    assertEquals(ControllerToModel.MINE, grid[cell / 30][cell % 30]);
+                for (int cell : solver.getSafeCells())
+                    assertNotEquals(ControllerToModel.MINE, grid[cell / 30][cell % 30]);
+                deductions += solver.getSafeCount() + solver.getMineCount();
+                if (solver.getSafeCount() == 0) {
+                    for (int cell : solver.getMineCells())
+                        model.flag(cell / 30, cell % 30, true);
+                    guess(model, visibleState(model), rng);
+                    continue;
+                }
+                for (int cell : solver.getSafeCells())
+                    if (model.getStatus() == GameStatus.PLAYING)
+                        model.press(cell / 30, cell % 30);
+            }
+        }
+        assertTrue(deductions > 0);
+    }
+
+    // Tests elimination mode on seeded games: it keeps every deduction of
+    // propagation, its deductions are forced, and on frontiers small
+    // enough to list it finds every forced cell
+    @Test
+    public void testEliminationMode() {
+        Random rng = new Random(17);
+        FrontierSolver propagation = new FrontierSolver();
+        FrontierSolver elimination = new FrontierSolver();
+        elimination.setMode(FrontierSolver.Mode.ELIMINATION);
+        int more = 0;
+        for (int game = 0; game < 300; game++) {
+            int rows = 4 + rng.nextInt(4);
+            int cols = 4 + rng.nextInt(4);
+            Model model = new Model();
+            model.setSeed(rng.nextLong());
+            model.setFirstClickSafe(true);
+            model.newGame(rows, cols, 2 + rng.nextInt(rows * cols / 4));
+            model.press(rng.nextInt(rows), rng.nextInt(cols));
+            while (model.getStatus() == GameStatus.PLAYING) {
+                int[] visible = visibleState(model);
+                propagation.solve(rows, cols, visible);
+                elimination.solve(rows, cols, visible);
+                assertTrue(elimination.isConsistent());
+                checkForced(rows, cols, visible, elimination);
+                checkAllFound(rows, cols, visible, elimination);
+                List<Integer> safe = toList(elimination.getSafeCells());
+                List<Integer> mines = toList(elimination.getMineCells());
+                for (int cell : propagation.getSafeCells())
+                    assertTrue(safe.contains(cell));
+                for (int cell : propagation.getMineCells())
+                    assertTrue(mines.contains(cell));
+                if (safe.size() + mines.size() > propagation.getSafeCount() + propagation.getMineCount())
+                    more++;
+                if (safe.isEmpty()) {
+                    guess(model, visible, rng);
+                    continue;
+                }
+                for (int cell : safe)
+                    if (model.getStatus() == GameStatus.PLAYING)
+                        model.press(cell / cols, cell % cols);
+            }
+        }
+        assertTrue(more > 0);
+    }
+
+    // Presses a random hidden tile
+    private static void guess(Model model, int[] visible, Random rng) {
+        int cols = model.getColumns();
+        int cell;
+        do {
+            cell = rng.nextInt(visible.length);
+        } while (visible[cell] != H);
+        model.press(cell / cols, cell % cols);
+    }
+
+    private static int[] visibleState(GameEngine engine) {
+        int rows = engine.getRows();
+        int cols = engine.getColumns();
+        int[] visible = new int[rows * cols];
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < cols; j++)
+                visible[i * cols + j] = engine.getVisibleValue(i, j);
+        return visible;
+    }
+
+    // Enumerates every mine layout of the frontier that fits the numbers
+    // (flags taken as mines) and checks each deduction holds in all of them
+    private static void checkForced(int rows, int cols, int[] visible, FrontierSolver solver) {
+        int[] frontier = new int[rows * cols];
+        int size = 0;
+        for (int cell = 0; cell < visible.length; cell++)
+            if (visible[cell] == H && nextToNumber(rows, cols, visible, cell))
+                frontier[size++] = cell;
+        assertEquals(size, solver.getFrontierSize());
+        if (size > 18) // too many layouts to list
+            return;
+        frontier = Arrays.copyOf(frontier, size);
+
+        boolean[] mine = new boolean[rows * cols];
+        boolean[] canBeMine = new boolean[rows * cols];
+        boolean[] canBeSafe = new boolean[rows * cols];
+        for (long layout = 0; layout < 1L << size; layout++) {
+            for (int i = 0; i < size; i++)
+                mine[frontier[i]] = (layout >>> i & 1) != 0;
+            if (!fits(rows, cols, visible, mine))
+                continue;
+            for (int cell : frontier) {
+                if (mine[cell])
+                    canBeMine[cell] = true;
+                else
+                    canBeSafe[cell] = true;
+            }
+        }
+        for (int cell : solver.getSafeCells())
+            assertFalse("cell " + cell + " can be a mine", canBeMine[cell]);
+        for (int cell : solver.getMineCells())
+            assertFalse("cell " + cell + " can be safe", canBeSafe[cell]);
+    }
+
+    // On frontiers small enough to list, checks that every cell with the
+    // same value in all layouts that fit was deduced
+    private static void checkAllFound(int rows, int cols, int[] visible, FrontierSolver solver) {
+        int[] frontier = new int[rows * cols];
+        int size = 0;
+        for (int cell = 0; cell < visible.length; cell++)
+            if (visible[cell] == H && nextToNumber(rows, cols, visible, cell))
+                frontier[size++] = cell;
+        if (size > 18)
+            return;
+        boolean[] mine = new boolean[rows * cols];
+        boolean[] canBeMine = new boolean[rows * cols];
+        boolean[] canBeSafe = new boolean[rows * cols];
+        for (long layout = 0; layout < 1L << size; layout++) {
+            for (int i = 0; i < size; i++)
+                mine[frontier[i]] = (layout >>> i & 1) != 0;
+            if (!fits(rows, cols, visible, mine))
+                continue;
+            for (int i = 0; i < size; i++) {
+                if (mine[frontier[i]])
+                    canBeMine[frontier[i]] = true;
+                else
+                    canBeSafe[frontier[i]] = true;
+            }
+        }
+        List<Integer> safe = toList(solver.getSafeCells());
+        List<Integer> mines = toList(solver.getMineCells());
+        for (int i = 0; i < size; i++) {
+            int cell = frontier[i];
+            if (!canBeMine[cell])
+                assertTrue("cell " + cell + " is safe", safe.contains(cell));
+            if (!canBeSafe[cell])
+                assertTrue("cell " + cell + " is a mine", mines.contains(cell));
+        }
+    }
+
+    private static List<Integer> toList(int[] cells) {
+        List<Integer> list = new ArrayList<>();
+        for (int cell : cells)
+            list.add(cell);
+        return list;
+    }
+
+    private static boolean nextToNumber(int rows, int cols, int[] visible, int cell) {
+        int row = cell / cols;
+        int col = cell % cols;
+        for (int r = row - 1; r <= row + 1; r++)
+            for (int c = col - 1; c <= col + 1; c++)
+                if (r >= 0 && c >= 0 && r < rows && c < cols && visible[r * cols + c] >= 0 && visible[r * cols + c] <= 8)
+                    return true;
+        return false;
+    }
+
+    private static boolean fits(int rows, int cols, int[] visible, boolean[] mine) {
+        for (int cell = 0; cell < visible.length; cell++) {
+            if (visible[cell] < 0 || visible[cell] > 8)
+                continue;
+            int row = cell / cols;
+            int col = cell % cols;
+            int count = 0;
+            for (int r = row - 1; r <= row + 1; r++)
+                for (int c = col - 1; c <= col + 1; c++)
+                    if (r >= 0 && c >= 0 && r < rows && c < cols) {
+                        int value = visible[r * cols + c];
+                        if (value == F || value == GameEngine.VISIBLE_MINE || (value == H && mine[r * cols + c]))
+                            count++;
+                    }
+            if (count != visible[cell])
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,43 @@
+//headless minesweeper game: no Swing, no System.exit, any number of
+//instances per JVM. Problems are reported with exceptions:
+//IllegalArgumentException for bad settings or tiles, GameStateException
+//for moves made before a game was started or after it was won or lost.
+//Implemented by the Model; the GUI Controller is one client of it
+public interface GameEngine {
+
+    //values returned by getVisibleValue, besides the numbers 0-8
+    public final int HIDDEN = -1;
+    public final int FLAGGED = -2;
+    public final int VISIBLE_MINE = 9; //a mine that was exposed
+
+    //starts a new game of one of the preset difficulties
+    //("beginner", "intermediate", "expert")
+    public void newGame(String difficulty);
+    //starts a new custom game, within the limits of the board mode
+    public void newGame(int rows, int cols, int mines);
+
+    public MoveResult press(int row, int col);
+    public MoveResult chordAt(int row, int col);
+    public void flag(int row, int col, boolean flagged);
+
+    public GameStatus getStatus();
+    public int getRows();
+    public int getColumns();
+    public int getNumMines();
+    //what the player sees at (row, col): HIDDEN, FLAGGED, VISIBLE_MINE or 0-8
+    public int getVisibleValue(int row, int col);
+    //BoardHash of everything getVisibleValue shows, kept up to date on
+    //every move: equal positions of a board have equal hashes
+    public long getStateHash();
+    public int getSafeTilesRemaining();
+    public int getExtraLivesLeft();
+
+    //listeners are told about every game started, tile exposed and flag
+    public void addGameListener(GameListener listener);
+    public void removeGameListener(GameListener listener);
+
+    public void setExtraLives(int lives);
+    public void setSeed(long seed);
+    public void setFirstClickSafe(boolean safe);
+    public void setLargeBoardMode(boolean large);
+}
@@ -0,0 +1,125 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/* Tests for the headless GameEngine API of the Model */
+public class GameEngineTest {
+
+    // Tests that moves before a game is started throw instead of exiting
+    @Test(expected = GameStateException.class)
+    public void testPressBeforeStart() {
+        GameEngine engine = new Model();
+        assertEquals(GameStatus.NOT_STARTED, engine.getStatus());
+        engine.press(0, 0);
+    }
+
+    // Tests that invalid settings and tiles throw IllegalArgumentException
+    @Test
+    public void testInvalidArguments() {
+        GameEngine engine = new Model();
+        try {
+            engine.newGame(31, 31, 10);
+            fail("31x31 board accepted without large-board mode");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            engine.newGame(3, 3, 9);
+            fail("Board without safe tiles accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+        engine.newGame("beginner");
+        try {
+            engine.press(9, 0);
+            fail("Tile outside the board accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    // Tests a seeded game played through the engine: the visible values
+    // follow the moves and the result reports the game status
+    @Test
+    public void testPlayGame() {
+        GameEngine engine = new Model();
+        engine.setSeed(3);
+        engine.setFirstClickSafe(true);
+        engine.newGame(16, 30, 99);
+        assertEquals(16, engine.getRows());
+        assertEquals(30, engine.getColumns());
+        assertEquals(GameEngine.HIDDEN, engine.getVisibleValue(0, 0));
+
+        MoveResult result = engine.press(8, 15);
+        assertEquals(GameStatus.PLAYING, result.getStatus());
+        assertTrue(result.getChangedCount() > 0);
+        int value = engine.getVisibleValue(8, 15);
+        assertTrue(value >= 0 && value <= 8);
+
+        engine.flag(0, 0, true);
+        assertEquals(GameEngine.FLAGGED, engine.getVisibleValue(0, 0));
+        engine.flag(0, 0, false);
+        assertEquals(GameEngine.HIDDEN, engine.getVisibleValue(0, 0));
+    }
+
+    // Tests that a won game takes no more presses and is counted once
+    @Test
+    public void testPressAfterWin() {
+        Model engine = new Model();
+        engine.setMinePlacementStrategy((board, count, rng) -> board.setMine(0, true));
+        engine.newGame(3, 3, 1);
+        engine.press(2, 2);
+        assertEquals(GameStatus.WON, engine.getStatus());
+        assertEquals(1, engine.getTotalGamesWon());
+        try {
+            engine.press(2, 2);
+            fail("Press accepted after the game was won");
+        } catch (GameStateException expected) {
+        }
+        try {
+            engine.press(0, 0);
+            fail("Press on a mine accepted after the game was won");
+        } catch (GameStateException expected) {
+        }
+        try {
+            engine.chordAt(1, 1);
+            fail("Chord accepted after the game was won");
+        } catch (GameStateException expected) {
+        }
+        assertEquals(GameStatus.WON, engine.getStatus());
+        assertEquals(1, engine.getTotalGamesWon());
+        // The GUI's pressTile does not throw, but counts the win once
+        engine.pressTile(2, 2, 0);
+        assertEquals(1, engine.getTotalGamesWon());
+    }
+
+    // Tests that a lost game takes no more presses
+    @Test
+    public void testPressAfterLoss() {
+        Model engine = new Model();
+        engine.setMinePlacementStrategy((board, count, rng) -> board.setMine(0, true));
+        engine.newGame(3, 3, 1);
+        engine.press(0, 0);
+        assertEquals(GameStatus.LOST, engine.getStatus());
+        try {
+            engine.press(2, 2);
+            fail("Press accepted after the game was lost");
+        } catch (GameStateException expected) {
+        }
+        assertEquals(GameStatus.LOST, engine.getStatus());
+        assertEquals(0, engine.getTotalGamesWon());
+    }
+
+    // Tests that separate engines do not share games or statistics
+    @Test
+    public void testIndependentInstances() {
+        Model first = new Model();
+        Model second = new Model();
+        first.newGame(2, 2, 1);
+        String[][] grid = first.getGrid();
+        for (int i = 0; i < 2; i++)
+            for (int j = 0; j < 2; j++)
+                if (!"M".equals(grid[i][j]))
+                    first.press(i, j);
+        assertEquals(GameStatus.WON, first.getStatus());
+        assertEquals(1, first.getTotalGamesWon());
+        assertEquals(0, second.getTotalGamesWon());
+        assertEquals(GameStatus.NOT_STARTED, second.getStatus());
+    }
+}
@@ -0,0 +1,14 @@
+//notified by a GameEngine as what the player can see changes, so clients
+//can follow a game without scanning the whole board after every move
+public interface GameListener {
+
+    //a new game was started; the board may have a new size
+    public void gameStarted(GameEngine engine);
+    //a move exposed cells[0..count-1] (flat indices, row*cols + col).
+    //The array belongs to the engine and is only valid during the call.
+    //A large move may be passed on in several calls, made while it is
+    //being played (the game's result is known after the last one)
+    public void tilesExposed(GameEngine engine, int[] cells, int count);
+    //the tile at cell was flagged or unflagged
+    public void tileFlagged(GameEngine engine, int cell, boolean flagged);
+}
@@ -0,0 +1,351 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Hosts games for bots and tools over a localhost socket. Every connection
+ * is a session with a Model of its own, run on a thread of its own: a
+ * virtual thread where the JVM has them (Java 21 and later), else a
+ * platform thread, so the server still runs on Java 17.
+ *
+ * The protocol is one request line, one reply line. Replies start with OK
+ * or ERR <message>. Rows and columns count from 0.
+ *   START <difficulty>            OK <rows> <cols> <mines>
+ *   START custom <rows> <cols> <mines>
+ *   PRESS <row> <col>             OK <status> <row>,<col>,<value> ...
+ *   CHORD <row> <col>             (value 0-8, or M for a mine)
+ *   FLAG <row> <col>              OK
+ *   UNFLAG <row> <col>            OK
+ *   HINT                          OK SAFE|MINE|GUESS <row> <col>, or OK NONE
+ *   STATS                         OK <played> <won> <percent cleared>
+ *   QUIT                          OK, then the server closes the connection
+ * <status> is PLAYING, WON or LOST. A press or chord after the game is over
+ * is an error.
+ * STATS counts the games started and won on this connection, and gives
+ * how much of the current game is cleared.
+ *
+ * Run with java GameServer [port], 5940 by default. */
+public class GameServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 5940;
+    // Connections waiting to be accepted; load tests open thousands at once
+    private static final int BACKLOG = 4096;
+
+    private final ServerSocket server;
+    private final ExecutorService sessions;
+    private final boolean virtual;
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder served = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private Thread acceptor;
+
+    public static void main(String[] args) throws IOException
+    {
+        int port = args.length>0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameServer server = new GameServer(port);
+        server.start();
+        System.out.println("Serving games on localhost:"+server.getPort()
+                +(server.isVirtual() ? " (virtual threads)" : " (platform threads)"));
+    }
+
+    // Binds the loopback address; port 0 picks a free port
+    public GameServer(int port) throws IOException
+    {
+        server = new ServerSocket(port,BACKLOG,InetAddress.getLoopbackAddress());
+        ExecutorService executor = newVirtualThreadExecutor();
+        virtual = executor!=null;
+        sessions = virtual ? executor : Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable,"session");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // One virtual thread per task, or null before Java 21. Looked up by
+    // reflection so the code still compiles for Java 17.
+    static ExecutorService newVirtualThreadExecutor()
+    {
+        try
+        {
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch(ReflectiveOperationException e)
+        {
+            return null;
+        }
+    }
+
+    // Accepts connections on a thread of its own until closed
+    public void start()
+    {
+        acceptor = new Thread(this::accept,"game-server");
+        acceptor.start();
+    }
+
+    public int getPort()
+    {
+        return server.getLocalPort();
+    }
+
+    // True if sessions run on virtual threads
+    public boolean isVirtual()
+    {
+        return virtual;
+    }
+
+    // Sessions connected now
+    public int getActiveSessions()
+    {
+        return active.get();
+    }
+
+    // Sessions connected since the server started
+    public long getSessionsServed()
+    {
+        return served.sum();
+    }
+
+    public long getRequests()
+    {
+        return requests.sum();
+    }
+
+    // Stops accepting and ends every session
+    public void close() throws IOException
+    {
+        server.close();
+        sessions.shutdownNow();
+    }
+
+    private void accept()
+    {
+        while(!server.isClosed())
+        {
+            Socket socket;
+            try
+            {
+                socket = server.accept();
+            }
+            catch(IOException e)
+            {
+                // Closed while waiting
+                return;
+            }
+            served.increment();
+            active.incrementAndGet();
+            sessions.execute(() -> serve(socket));
+        }
+    }
+
+    // Answers the requests of one connection until it quits or drops
+    private void serve(Socket socket)
+    {
+        try(Socket connection = socket;
+            BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(),StandardCharsets.US_ASCII));
+            Writer out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(),StandardCharsets.US_ASCII)))
+        {
+            connection.setTcpNoDelay(true);
+            Session session = new Session();
+            String line;
+            while((line = in.readLine())!=null)
+            {
+                requests.increment();
+                out.write(session.execute(line));
+                out.write('\n');
+                out.flush();
+                if(session.isQuit())
+                    break;
+            }
+        }
+        catch(SocketException e)
+        {
+            // The client went away
+        }
+        catch(IOException e)
+        {
+            System.err.println("Session ended: "+e.getMessage());
+        }
+        finally
+        {
+            active.decrementAndGet();
+        }
+    }
+
+    /* The game of one connection: a Model of its own, and the solvers for
+     * hints, made on the first HINT. Used by one thread at a time. */
+    static class Session {
+
+        private final Model model = new Model();
+        private SolverSession solver;
+        private EndgameSolver endgame;
+        private ProbabilityEngine probabilities;
+        private long started;
+        // Games started in this session; the model's own count is the
+        // GUI's, which counts from 1 and only on resetGame
+        private long played;
+        private boolean quit;
+
+        Session()
+        {
+            model.setFirstClickSafe(true);
+        }
+
+        boolean isQuit()
+        {
+            return quit;
+        }
+
+        // Runs one request line and returns the reply line
+        String execute(String line)
+        {
+            String[] words = line.trim().split("\\s+");
+            try
+            {
+                switch(words[0].toUpperCase())
+                {
+                    case "START":
+                        return start(words);
+                    case "PRESS":
+                        return move(words,false);
+                    case "CHORD":
+                        return move(words,true);
+                    case "FLAG":
+                        return flag(words,true);
+                    case "UNFLAG":
+                        return flag(words,false);
+                    case "HINT":
+                        return hint();
+                    case "STATS":
+                        return stats();
+                    case "QUIT":
+                        quit = true;
+                        return "OK";
+                    default:
+                        return "ERR Unknown request "+words[0];
+                }
+            }
+            catch(NumberFormatException e)
+            {
+                return "ERR Not a number: "+e.getMessage();
+            }
+            catch(IllegalArgumentException | IllegalStateException e)
+            {
+                return "ERR "+e.getMessage();
+            }
+        }
+
+        private String start(String[] words)
+        {
+            if(words.length==5 && words[1].equalsIgnoreCase("custom"))
+                model.newGame(Integer.parseInt(words[2]),Integer.parseInt(words[3]),Integer.parseInt(words[4]));
+            else if(words.length==2)
+                model.newGame(words[1].toLowerCase());
+            else
+                return "ERR Usage: START <difficulty> or START custom <rows> <cols> <mines>";
+            started = System.currentTimeMillis();
+            played++;
+            return "OK "+model.getRows()+" "+model.getColumns()+" "+model.getNumMines();
+        }
+
+        private String move(String[] words, boolean chord)
+        {
+            int row = row(words);
+            int col = col(words);
+            if(model.getStatus()!=GameStatus.PLAYING)
+                return "ERR Game is over";
+            long seconds = (System.currentTimeMillis()-started)/1000;
+            int[] changes = chord ? model.chord(row,col,seconds) : model.tilePressedChanges(row,col,seconds);
+            int cols = model.getColumns();
+            StringBuilder reply = new StringBuilder("OK ").append(model.getStatus());
+            for(int change : changes)
+            {
+                int cell = change>>>ControllerToModel.DELTA_VALUE_BITS;
+                int value = change & ControllerToModel.DELTA_VALUE_MASK;
+                reply.append(' ').append(cell/cols).append(',').append(cell%cols).append(',');
+                if(value==ControllerToModel.DELTA_MINE)
+                    reply.append(ControllerToModel.MINE);
+                else
+                    reply.append(value);
+            }
+            return reply.toString();
+        }
+
+        private String flag(String[] words, boolean flagged)
+        {
+            model.tileFlagged(flagged,row(words),col(words));
+            return "OK";
+        }
+
+        private String stats()
+        {
+            double cleared = model.getStatus()==GameStatus.NOT_STARTED ? 0 : model.getPercentCleared();
+            return "OK "+played+" "+model.getTotalGamesWon()+" "+cleared;
+        }
+
+        // A safe tile, else a tile to flag, else the best guess
+        private String hint()
+        {
+            if(model.getStatus()!=GameStatus.PLAYING)
+                return "OK NONE";
+            if(solver==null)
+            {
+                solver = new SolverSession(model);
+                endgame = new EndgameSolver();
+                probabilities = new ProbabilityEngine();
+            }
+            int cols = model.getColumns();
+            solver.solve();
+            if(solver.getSafeCount()>0)
+                return tile("SAFE",solver.getSafeCell(0),cols);
+            if(endgame.solve(model) && endgame.getSafeCount()>0)
+                return tile("SAFE",endgame.getSafeCell(0),cols);
+            if(solver.getMineCount()>0)
+            {
+                // A mine not flagged yet
+                for(int i = 0;i<solver.getMineCount();i++)
+                {
+                    int cell = solver.getMineCell(i);
+                    if(model.getVisibleValue(cell/cols,cell%cols)==GameEngine.HIDDEN)
+                        return tile("MINE",cell,cols);
+                }
+            }
+            probabilities.compute(model);
+            int cell = probabilities.getSafestCell();
+            return cell<0 ? "OK NONE" : tile("GUESS",cell,cols);
+        }
+
+        private static String tile(String kind, int cell, int cols)
+        {
+            return "OK "+kind+" "+cell/cols+" "+cell%cols;
+        }
+
+        private int row(String[] words)
+        {
+            if(words.length!=3)
+                throw new IllegalArgumentException("Usage: "+words[0].toUpperCase()+" <row> <col>");
+            int row = Integer.parseInt(words[1]);
+            if(row<0 || row>=model.getRows())
+                throw new IllegalArgumentException("No row "+row);
+            return row;
+        }
+
+        private int col(String[] words)
+        {
+            int col = Integer.parseInt(words[2]);
+            if(col<0 || col>=model.getColumns())
+                throw new IllegalArgumentException("No column "+col);
+            return col;
+        }
+    }
+}
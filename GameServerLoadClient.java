@@ -0,0 +1,204 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Load generator for GameServer: opens the given number of sessions at
+ * once, waits until every one is connected, then has each play a game to
+ * the end by asking for a hint and following it. Reports the round-trip
+ * latency of the requests (p50, p99, max) and the requests per second.
+ * Sessions run on virtual threads where the JVM has them.
+ *
+ * Run with java GameServerLoadClient [sessions] [difficulty] [port]:
+ * 10000 beginner sessions by default, against a server started in this JVM
+ * unless a port is given. Each session takes a socket on both ends, so
+ * 10000 sessions in one JVM need a limit of over 20000 open files (ulimit
+ * -n); against a server in another JVM each side needs 10000. */
+public class GameServerLoadClient {
+
+    private static final int DEFAULT_SESSIONS = 10000;
+
+    private final int port;
+    private final String difficulty;
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder won = new LongAdder();
+    private volatile String firstFailure;
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        int sessions = args.length>0 ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+        String difficulty = args.length>1 ? args[1] : "beginner";
+        GameServer server = null;
+        int port;
+        if(args.length>2)
+            port = Integer.parseInt(args[2]);
+        else
+        {
+            server = new GameServer(0);
+            server.start();
+            port = server.getPort();
+        }
+        try
+        {
+            new GameServerLoadClient(port,difficulty).run(sessions);
+        }
+        finally
+        {
+            if(server!=null)
+                server.close();
+        }
+    }
+
+    public GameServerLoadClient(int port, String difficulty)
+    {
+        this.port = port;
+        this.difficulty = difficulty;
+    }
+
+    // Plays one game per session, all at once, and prints the latencies
+    public void run(int sessions) throws InterruptedException
+    {
+        ExecutorService executor = GameServer.newVirtualThreadExecutor();
+        boolean virtual = executor!=null;
+        if(!virtual)
+            executor = Executors.newFixedThreadPool(sessions);
+        long[][] latencies = new long[sessions][];
+        CountDownLatch connected = new CountDownLatch(sessions);
+        long start = System.nanoTime();
+        for(int s = 0;s<sessions;s++)
+        {
+            int session = s;
+            executor.execute(() -> latencies[session] = play(connected));
+        }
+        executor.shutdown();
+        executor.awaitTermination(1,TimeUnit.HOURS);
+        double seconds = (System.nanoTime()-start)/1e9;
+        print(sessions,virtual,latencies,seconds);
+    }
+
+    public long getFailures()
+    {
+        return failures.sum();
+    }
+
+    public long getWon()
+    {
+        return won.sum();
+    }
+
+    // One session: connects, waits for the others, plays a game and returns
+    // the round-trip times of its requests in nanoseconds (empty if it
+    // failed)
+    private long[] play(CountDownLatch connected)
+    {
+        long[] times = new long[64];
+        int count = 0;
+        boolean counted = false;
+        try(Socket socket = new Socket(InetAddress.getLoopbackAddress(),port);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),StandardCharsets.US_ASCII));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),StandardCharsets.US_ASCII)))
+        {
+            socket.setTcpNoDelay(true);
+            connected.countDown();
+            counted = true;
+            connected.await();
+            String reply = "";
+            String request = "START "+difficulty;
+            while(request!=null)
+            {
+                long sent = System.nanoTime();
+                out.write(request);
+                out.write('\n');
+                out.flush();
+                reply = in.readLine();
+                if(count==times.length)
+                    times = Arrays.copyOf(times,count*2);
+                times[count++] = System.nanoTime()-sent;
+                if(reply==null || reply.startsWith("ERR"))
+                    throw new IOException(request+": "+reply);
+                request = next(request,reply);
+            }
+            if(reply.startsWith("OK WON"))
+                won.increment();
+        }
+        catch(IOException | InterruptedException e)
+        {
+            fail(e.toString());
+            count = 0;
+        }
+        finally
+        {
+            // A session that could not connect must not hold up the others
+            if(!counted)
+                connected.countDown();
+        }
+        return Arrays.copyOf(times,count);
+    }
+
+    // The request after a reply: a hint, then the move it suggests, until
+    // the game is over
+    private static String next(String request, String reply)
+    {
+        if(request.startsWith("HINT"))
+        {
+            String[] words = reply.split(" ");
+            if(words[1].equals("NONE"))
+                return null;
+            String tile = words[2]+" "+words[3];
+            return words[1].equals("MINE") ? "FLAG "+tile : "PRESS "+tile;
+        }
+        if(request.startsWith("PRESS") && !reply.startsWith("OK PLAYING"))
+            return null;
+        return "HINT";
+    }
+
+    private void fail(String message)
+    {
+        if(firstFailure==null)
+            firstFailure = message;
+        failures.increment();
+    }
+
+    private void print(int sessions, boolean virtual, long[][] latencies, double seconds)
+    {
+        int total = 0;
+        for(long[] times : latencies)
+            total += times==null ? 0 : times.length;
+        long[] all = new long[total];
+        int at = 0;
+        for(long[] times : latencies)
+        {
+            if(times==null)
+                continue;
+            System.arraycopy(times,0,all,at,times.length);
+            at += times.length;
+        }
+        Arrays.sort(all);
+        System.out.printf("%d %s sessions on %s threads: %d failed, %d won%n",
+                sessions,difficulty,virtual ? "virtual" : "platform",getFailures(),getWon());
+        if(firstFailure!=null)
+            System.out.println("  first failure: "+firstFailure);
+        if(total==0)
+            return;
+        System.out.printf("  %d requests in %.2f s (%.0f/s)  p50 %.0f us  p99 %.0f us  max %.0f us%n",
+                total,seconds,total/seconds,percentile(all,0.50)/1e3,percentile(all,0.99)/1e3,all[total-1]/1e3);
+    }
+
+    // The value below which the given fraction of the sorted values lie
+    private static long percentile(long[] sorted, double fraction)
+    {
+        int index = (int)Math.ceil(fraction*sorted.length)-1;
+        return sorted[Math.max(index,0)];
+    }
+}
@@ -0,0 +1,92 @@
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+/* Tests for GameServer and its line protocol */
+public class GameServerTest {
+
+    // Tests that START replies with the board size and mine count
+    @Test
+    public void testStart() {
+        GameServer.Session session = new GameServer.Session();
+        assertEquals("OK 9 9 10", session.execute("START beginner"));
+        assertEquals("OK 5 6 3", session.execute("start custom 5 6 3"));
+    }
+
+    // Tests that bad requests get an error reply instead of ending the session
+    @Test
+    public void testErrors() {
+        GameServer.Session session = new GameServer.Session();
+        assertTrue(session.execute("PRESS 0 0").startsWith("ERR"));
+        assertTrue(session.execute("DANCE").startsWith("ERR"));
+        assertTrue(session.execute("START nightmare").startsWith("ERR"));
+        session.execute("START beginner");
+        assertTrue(session.execute("PRESS 9 0").startsWith("ERR"));
+        assertTrue(session.execute("PRESS a b").startsWith("ERR"));
+        assertTrue(session.execute("FLAG 1").startsWith("ERR"));
+        assertFalse(session.isQuit());
+    }
+
+    // Tests that a game can be played to the end by following the hints
+    @Test
+    public void testPlayWithHints() {
+        GameServer.Session session = new GameServer.Session();
+        session.execute("START intermediate");
+        String reply = session.execute("PRESS 8 8");
+        assertTrue(reply, reply.startsWith("OK PLAYING 8,8,"));
+        for (int move = 0; move < 16 * 16 && reply.startsWith("OK PLAYING"); move++) {
+            String[] hint = session.execute("HINT").split(" ");
+            String tile = hint[2] + " " + hint[3];
+            if (hint[1].equals("MINE"))
+                assertEquals("OK", session.execute("FLAG " + tile));
+            else
+                reply = session.execute("PRESS " + tile);
+        }
+        assertTrue(reply, reply.startsWith("OK WON") || reply.startsWith("OK LOST"));
+        assertEquals("OK NONE", session.execute("HINT"));
+        assertEquals("ERR Game is over", session.execute("PRESS 0 0"));
+        assertTrue(session.execute("STATS").startsWith("OK 1 "));
+    }
+
+    // Tests that STATS counts the games played and won in the session
+    @Test
+    public void testStats() {
+        GameServer.Session session = new GameServer.Session();
+        assertEquals("OK 0 0 0.0", session.execute("STATS"));
+        // One safe tile, and the first press is always safe: a win
+        for (int game = 0; game < 5; game++) {
+            session.execute("START custom 3 3 8");
+            assertTrue(session.execute("PRESS 1 1").startsWith("OK WON"));
+        }
+        assertEquals("OK 5 5 100.0", session.execute("STATS"));
+        session.execute("START custom 3 3 8");
+        assertEquals("OK 6 5 0.0", session.execute("STATS"));
+    }
+
+    // Tests a session over a socket, through to QUIT
+    @Test
+    public void testSocket() throws Exception {
+        try (GameServer server = new GameServer(0)) {
+            server.start();
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true)) {
+                out.println("START expert");
+                assertEquals("OK 16 30 99", in.readLine());
+                out.println("FLAG 0 0");
+                assertEquals("OK", in.readLine());
+                out.println("QUIT");
+                assertEquals("OK", in.readLine());
+                assertNull(in.readLine());
+            }
+            assertEquals(1, server.getSessionsServed());
+            assertEquals(3, server.getRequests());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+//thrown by a GameEngine when an operation needs a game that has not been
+//started (instead of exiting the program), or a move is made after the
+//game was won or lost
+public class GameStateException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public GameStateException(String message)
+    {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+//state of a game run through a GameEngine
+public enum GameStatus {
+    NOT_STARTED, // no game started yet
+    PLAYING,
+    WON,
+    LOST
+}
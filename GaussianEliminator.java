@@ -0,0 +1,244 @@
+import java.util.Arrays;
+
+/* Gaussian elimination over the constraints of one frontier component,
+ * for FrontierSolver's elimination mode.
+ * Each row is a linear equation over the component's undecided cells with
+ * coefficients -1, 0 or +1, kept as two packed bitsets (the +1 cells and
+ * the -1 cells) and the mines it needs, so subtracting one row from
+ * another is a few ANDs and ORs per 64 cells. Rows are reduced against
+ * each other column by column; a subtraction that would make a
+ * coefficient of 2 is skipped, which keeps every row a sum or difference
+ * of the original constraints, so whatever a row proves is sound.
+ *
+ * Each row then bounds its mines: with P cells at +1 and N at -1 the
+ * left side lies between -N and P, so a row needing P makes its +1 cells
+ * mines and its -1 cells safe, and one needing -N the other way round.
+ * Settled cells are substituted into every row and the bounds are checked
+ * again until nothing changes. */
+public class GaussianEliminator {
+
+    public static final byte UNKNOWN = 0;
+    public static final byte SAFE = 1;
+    public static final byte MINE = 2;
+
+    private int n;
+    private int words;
+    private int rowCount;
+    // Row r uses words r*words .. r*words+words-1 of both masks
+    private long[] pos = new long[0];
+    private long[] neg = new long[0];
+    private int[] need = new int[0];
+    private byte[] state = new byte[0];
+    private boolean consistent;
+
+    // Starts a system over variables 0..vars-1, all undecided
+    public void reset(int vars)
+    {
+        n = vars;
+        words = (vars+63)>>>6;
+        rowCount = 0;
+        consistent = true;
+        if(state.length<vars)
+            state = new byte[vars];
+        Arrays.fill(state,0,vars,UNKNOWN);
+    }
+
+    // Adds the constraint that mines of the count variables are mines
+    public void addRow(int[] vars, int count, int mines)
+    {
+        if((rowCount+1)*words>pos.length)
+        {
+            int length = Math.max((rowCount+1)*words,pos.length*2);
+            pos = Arrays.copyOf(pos,length);
+            neg = Arrays.copyOf(neg,length);
+        }
+        if(rowCount==need.length)
+            need = Arrays.copyOf(need,Math.max(8,rowCount*2));
+        int base = rowCount*words;
+        Arrays.fill(pos,base,base+words,0L);
+        Arrays.fill(neg,base,base+words,0L);
+        for(int i = 0;i<count;i++)
+            pos[base+(vars[i]>>>6)] |= 1L<<vars[i];
+        need[rowCount++] = mines;
+    }
+
+    // Reduces the rows and settles what their bounds force. Returns false
+    // if the rows contradict each other.
+    public boolean solve()
+    {
+        eliminate();
+        boolean changed = true;
+        while(changed && consistent)
+            changed = applyBounds();
+        return consistent;
+    }
+
+    // State of variable v after solve(): UNKNOWN, SAFE or MINE
+    public byte getState(int v)
+    {
+        return state[v];
+    }
+
+    public boolean isConsistent()
+    {
+        return consistent;
+    }
+
+    // Reduced row echelon form as far as coefficients stay in -1..1
+    private void eliminate()
+    {
+        int pivotRow = 0;
+        for(int col = 0;col<n && pivotRow<rowCount;col++)
+        {
+            int w = col>>>6;
+            long bit = 1L<<col;
+            int found = -1;
+            for(int r = pivotRow;r<rowCount && found<0;r++)
+                if(((pos[r*words+w] | neg[r*words+w]) & bit)!=0)
+                    found = r;
+            if(found<0)
+                continue;
+            swap(found,pivotRow);
+            int p = pivotRow*words;
+            boolean pivotPositive = (pos[p+w] & bit)!=0;
+            for(int r = 0;r<rowCount;r++)
+            {
+                if(r==pivotRow)
+                    continue;
+                int q = r*words;
+                boolean positive = (pos[q+w] & bit)!=0;
+                if(!positive && (neg[q+w] & bit)==0)
+                    continue;
+                // Same sign: subtract the pivot row, else add it
+                combine(r,pivotRow,positive==pivotPositive);
+            }
+            pivotRow++;
+        }
+    }
+
+    // Row r becomes r - s (or r + s), unless a coefficient would reach 2
+    private void combine(int r, int s, boolean subtract)
+    {
+        int a = r*words;
+        int b = s*words;
+        for(int w = 0;w<words;w++)
+        {
+            long bPos = subtract ? pos[b+w] : neg[b+w];
+            long bNeg = subtract ? neg[b+w] : pos[b+w];
+            if(((pos[a+w] & bNeg) | (neg[a+w] & bPos))!=0)
+                return;
+        }
+        for(int w = 0;w<words;w++)
+        {
+            long aPos = pos[a+w];
+            long aNeg = neg[a+w];
+            long bPos = subtract ? pos[b+w] : neg[b+w];
+            long bNeg = subtract ? neg[b+w] : pos[b+w];
+            // a - b with b's signs as above: equal signs cancel
+            pos[a+w] = (aPos & ~bPos) | (bNeg & ~aNeg);
+            neg[a+w] = (aNeg & ~bNeg) | (bPos & ~aPos);
+        }
+        need[r] += subtract ? -need[s] : need[s];
+    }
+
+    private void swap(int r, int s)
+    {
+        if(r==s)
+            return;
+        for(int w = 0;w<words;w++)
+        {
+            long t = pos[r*words+w];
+            pos[r*words+w] = pos[s*words+w];
+            pos[s*words+w] = t;
+            t = neg[r*words+w];
+            neg[r*words+w] = neg[s*words+w];
+            neg[s*words+w] = t;
+        }
+        int t = need[r];
+        need[r] = need[s];
+        need[s] = t;
+    }
+
+    // Checks every row's bounds, settles the cells they force and
+    // substitutes them into all rows. Returns true if a cell was settled.
+    private boolean applyBounds()
+    {
+        boolean changed = false;
+        for(int r = 0;r<rowCount && consistent;r++)
+        {
+            int base = r*words;
+            int plus = 0;
+            int minus = 0;
+            for(int w = 0;w<words;w++)
+            {
+                plus += Long.bitCount(pos[base+w]);
+                minus += Long.bitCount(neg[base+w]);
+            }
+            if(need[r]>plus || need[r]<-minus)
+            {
+                consistent = false;
+                return false;
+            }
+            if(plus+minus==0)
+                continue;
+            if(need[r]==plus)
+            {
+                settleRow(r,MINE,SAFE);
+                changed = true;
+            }
+            else if(need[r]==-minus)
+            {
+                settleRow(r,SAFE,MINE);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // Settles the +1 cells of row r to plusState and the -1 cells to
+    // minusState, and removes them from every row
+    private void settleRow(int r, byte plusState, byte minusState)
+    {
+        int base = r*words;
+        for(int w = 0;w<words;w++)
+        {
+            long plus = pos[base+w];
+            long minus = neg[base+w];
+            while(plus!=0)
+            {
+                settle((w<<6)+Long.numberOfTrailingZeros(plus),plusState);
+                plus &= plus-1;
+            }
+            while(minus!=0)
+            {
+                settle((w<<6)+Long.numberOfTrailingZeros(minus),minusState);
+                minus &= minus-1;
+            }
+        }
+    }
+
+    // Settles v and takes it out of every row, moving a mine to the
+    // other side
+    private void settle(int v, byte value)
+    {
+        state[v] = value;
+        int w = v>>>6;
+        long bit = 1L<<v;
+        for(int r = 0;r<rowCount;r++)
+        {
+            int i = r*words+w;
+            if((pos[i] & bit)!=0)
+            {
+                pos[i] &= ~bit;
+                if(value==MINE)
+                    need[r]--;
+            }
+            else if((neg[i] & bit)!=0)
+            {
+                neg[i] &= ~bit;
+                if(value==MINE)
+                    need[r]++;
+            }
+        }
+    }
+}
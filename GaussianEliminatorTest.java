@@ -0,0 +1,46 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/* Tests for the bitset Gaussian elimination */
+public class GaussianEliminatorTest {
+
+    // a+b = 1, c+d = 1, a+b+c+d+e = 2: no two rows settle anything, but
+    // the three together make e safe
+    @Test
+    public void testThreeConstraints() {
+        GaussianEliminator eliminator = new GaussianEliminator();
+        eliminator.reset(5);
+        eliminator.addRow(new int[] {0, 1}, 2, 1);
+        eliminator.addRow(new int[] {2, 3}, 2, 1);
+        eliminator.addRow(new int[] {0, 1, 2, 3, 4}, 5, 2);
+        assertTrue(eliminator.solve());
+        assertEquals(GaussianEliminator.SAFE, eliminator.getState(4));
+        for (int v = 0; v < 4; v++)
+            assertEquals(GaussianEliminator.UNKNOWN, eliminator.getState(v));
+    }
+
+    // Rows across more than one 64-cell word: a chain x0+x1 = 1, x1+x2 = 1,
+    // ..., with x0 + x98 = 2 settles the whole chain
+    @Test
+    public void testWideRows() {
+        GaussianEliminator eliminator = new GaussianEliminator();
+        eliminator.reset(100);
+        for (int v = 0; v < 99; v++)
+            eliminator.addRow(new int[] {v, v + 1}, 2, 1);
+        eliminator.addRow(new int[] {0, 98}, 2, 2);
+        assertTrue(eliminator.solve());
+        for (int v = 0; v < 100; v++)
+            assertEquals(v % 2 == 0 ? GaussianEliminator.MINE : GaussianEliminator.SAFE, eliminator.getState(v));
+    }
+
+    // a+b = 1, c+d = 1, a+b+c+d = 3 contradict each other
+    @Test
+    public void testContradiction() {
+        GaussianEliminator eliminator = new GaussianEliminator();
+        eliminator.reset(4);
+        eliminator.addRow(new int[] {0, 1}, 2, 1);
+        eliminator.addRow(new int[] {2, 3}, 2, 1);
+        eliminator.addRow(new int[] {0, 1, 2, 3}, 4, 3);
+        assertFalse(eliminator.solve());
+    }
+}
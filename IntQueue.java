@@ -0,0 +1,72 @@
+/* First-in first-out queue of ints backed by a ring buffer.
+ * The buffer only grows (doubling when full) and is kept between uses, so
+ * a queue that is reused for every cascade stops allocating once it has
+ * reached the size the largest cascade needs. */
+public class IntQueue {
+
+    private int[] items;
+    private int head; // next item to poll
+    private int tail; // next free slot
+    private int size;
+
+    public IntQueue()
+    {
+        this(64);
+    }
+
+    public IntQueue(int capacity)
+    {
+        // Power of two, so wrapping around is a mask
+        int length = 2;
+        while(length<capacity)
+            length <<= 1;
+        items = new int[length];
+    }
+
+    public void add(int value)
+    {
+        if(size==items.length)
+            grow();
+        items[tail] = value;
+        tail = (tail+1) & (items.length-1);
+        size++;
+    }
+
+    // Removes and returns the oldest item; the queue must not be empty
+    public int poll()
+    {
+        int value = items[head];
+        head = (head+1) & (items.length-1);
+        size--;
+        return value;
+    }
+
+    public boolean isEmpty()
+    {
+        return size==0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    // Empties the queue, keeping its buffer
+    public void clear()
+    {
+        head = 0;
+        tail = 0;
+        size = 0;
+    }
+
+    // Doubles the buffer, unrolling the ring so the oldest item is first
+    private void grow()
+    {
+        int[] bigger = new int[items.length*2];
+        System.arraycopy(items,head,bigger,0,items.length-head);
+        System.arraycopy(items,0,bigger,items.length-head,head);
+        head = 0;
+        tail = items.length;
+        items = bigger;
+    }
+}
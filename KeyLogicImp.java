@@ -1,7 +1,3 @@
-import java.util.ArrayList;
-import java.util.PriorityQueue;
-import java.util.Comparator;
-
 /**
  * The KeyLogicImp class implements logical analysis for Minesweeper game.
  * It provides methods for suggesting moves to the player, both for safety
@@ -11,7 +7,6 @@ public class KeyLogicImp {
 
     // Constants
     private static final String MINE = "M";
-    private static final String EMPTY = " ";
 
     /**
      * Suggests a cell that can be logically inferred to contain a mine.
@@ -23,373 +18,291 @@ public class KeyLogicImp {
      * @return Coordinates [row, col] of a cell that must be a mine, or null if none found
      */
     public static int[] suggestCellToRevealAsMine(String[][] actualGrid, boolean[][] exposedTiles, boolean[][] flaggedTiles) {
-        // Only use information that is visible to the player (exposed tiles)
-        int rows = actualGrid.length;
-        int cols = actualGrid[0].length;
-
-        // Check each exposed numbered cell
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < cols; col++) {
-                if (exposedTiles[row][col] && isNumeric(actualGrid[row][col])) {
-                    int number = Integer.parseInt(actualGrid[row][col]);
-
-                    // Get all hidden neighbors and flagged neighbors
-                    ArrayList<int[]> hiddenNeighbors = getHiddenNeighbors(row, col, rows, cols, exposedTiles);
-                    int flaggedCount = countFlaggedNeighbors(row, col, rows, cols, flaggedTiles);
-
-                    // If (number - flaggedCount) equals remaining hidden cells,
-                    // then all hidden cells must be mines
-                    if (number - flaggedCount == hiddenNeighbors.size() && hiddenNeighbors.size() > 0) {
-                        for (int[] neighbor : hiddenNeighbors) {
-                            if (!flaggedTiles[neighbor[0]][neighbor[1]]) {
-                                return neighbor; // Return the first unflagged mine
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        // More complex inference logic for overlapping constraints
-        return findMineByConstraintOverlap(actualGrid, exposedTiles, flaggedTiles);
+        FrontierSolver solver = solveFrontier(actualGrid, exposedTiles, flaggedTiles);
+        return solver.getMineCount() == 0 ? null : toRowCol(solver.getMineCell(0), solver.getCols());
     }
 
     /**
-     * Uses constraint overlap to find mines when simple methods fail.
-     * This method handles more complex logical inferences.
+     * Suggests a hidden cell that can be logically inferred to be safe.
+     * Uses only the information currently visible to the player.
+     *
+     * @return Coordinates [row, col] of a cell that cannot be a mine, or null if none found
      */
-    private static int[] findMineByConstraintOverlap(String[][] actualGrid, boolean[][] exposedTiles, boolean[][] flaggedTiles) {
-        int rows = actualGrid.length;
-        int cols = actualGrid[0].length;
-
-        // For each pair of adjacent numbered cells, check for constraint overlap
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < cols; col++) {
-                if (exposedTiles[row][col] && isNumeric(actualGrid[row][col])) {
-                    int number1 = Integer.parseInt(actualGrid[row][col]);
-                    ArrayList<int[]> hiddenNeighbors1 = getHiddenNeighbors(row, col, rows, cols, exposedTiles);
-                    int flaggedCount1 = countFlaggedNeighbors(row, col, rows, cols, flaggedTiles);
-                    int remainingMines1 = number1 - flaggedCount1;
-
-                    // Check all neighbors that are also numbered cells
-                    for (int[] offset : getNeighborOffsets()) {
-                        int r2 = row + offset[0];
-                        int c2 = col + offset[1];
-
-                        // Check if the neighbor is valid and is an exposed number
-                        if (isValidCell(r2, c2, rows, cols) &&
-                                exposedTiles[r2][c2] &&
-                                isNumeric(actualGrid[r2][c2])) {
-
-                            int number2 = Integer.parseInt(actualGrid[r2][c2]);
-                            ArrayList<int[]> hiddenNeighbors2 = getHiddenNeighbors(r2, c2, rows, cols, exposedTiles);
-                            int flaggedCount2 = countFlaggedNeighbors(r2, c2, rows, cols, flaggedTiles);
-                            int remainingMines2 = number2 - flaggedCount2;
-
-                            // Find cells that are neighbors of cell1 but not of cell2
-                            ArrayList<int[]> uniqueToCell1 = new ArrayList<>();
-                            for (int[] neighbor : hiddenNeighbors1) {
-                                boolean found = false;
-                                for (int[] neighbor2 : hiddenNeighbors2) {
-                                    if (neighbor[0] == neighbor2[0] && neighbor[1] == neighbor2[1]) {
-                                        found = true;
-                                        break;
-                                    }
-                                }
-                                if (!found) {
-                                    uniqueToCell1.add(neighbor);
-                                }
-                            }
-
-                            // Find common hidden neighbors
-                            ArrayList<int[]> commonHidden = new ArrayList<>();
-                            for (int[] neighbor : hiddenNeighbors1) {
-                                for (int[] neighbor2 : hiddenNeighbors2) {
-                                    if (neighbor[0] == neighbor2[0] && neighbor[1] == neighbor2[1]) {
-                                        commonHidden.add(neighbor);
-                                        break;
-                                    }
-                                }
-                            }
-
-                            // If cell1 has remainingMines1 exactly equal to its unique cells,
-                            // then all common cells must not be mines
-                            if (uniqueToCell1.size() == remainingMines1 && uniqueToCell1.size() > 0 && !uniqueToCell1.isEmpty()) {
-                                // All unique cells must be mines
-                                for (int[] mine : uniqueToCell1) {
-                                    if (!flaggedTiles[mine[0]][mine[1]]) {
-                                        return mine;
-                                    }
-                                }
-                            }
-
-                            // If cell2 requires more mines than are available in its non-common cells,
-                            // then some common cells must be mines
-                            ArrayList<int[]> uniqueToCell2 = new ArrayList<>();
-                            for (int[] neighbor : hiddenNeighbors2) {
-                                boolean found = false;
-                                for (int[] neighbor1 : hiddenNeighbors1) {
-                                    if (neighbor[0] == neighbor1[0] && neighbor[1] == neighbor1[1]) {
-                                        found = true;
-                                        break;
-                                    }
-                                }
-                                if (!found) {
-                                    uniqueToCell2.add(neighbor);
-                                }
-                            }
-
-                            // If cell2's remaining mines minus its unique cells is greater than zero,
-                            // and that equals the number of common cells, all common cells must be mines
-                            if (remainingMines2 > uniqueToCell2.size() &&
-                                    (remainingMines2 - uniqueToCell2.size() == commonHidden.size()) &&
-                                    !commonHidden.isEmpty()) {
-                                // All common cells must be mines
-                                for (int[] mine : commonHidden) {
-                                    if (!flaggedTiles[mine[0]][mine[1]]) {
-                                        return mine;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        return null; // No definite mine found through constraint overlap
+    public static int[] suggestSafeCell(String[][] actualGrid, boolean[][] exposedTiles, boolean[][] flaggedTiles) {
+        FrontierSolver solver = solveFrontier(actualGrid, exposedTiles, flaggedTiles);
+        return solver.getSafeCount() == 0 ? null : toRowCol(solver.getSafeCell(0), solver.getCols());
     }
 
-
     /**
-     * Suggests the next mine to reveal that would lead to the largest expansion.
-     * This uses all information in the grid (not just visible information).
+     * Runs the frontier solver on the visible part of the grid, for callers
+     * that want every certain-safe and certain-mine cell rather than one.
+     * Flagged tiles are taken to be mines.
      *
-     * @param actualGrid The complete game grid with all cell values
-     * @param exposedTiles Boolean matrix indicating which tiles are exposed
-     * @param flaggedTiles Boolean matrix indicating which tiles are flagged
-     * @return Coordinates [row, col] of the mine that would lead to the largest expansion
+     * @return The solver holding the complete safe and mine sets
      */
-    public static int[] suggestNextMineToReveal(String[][] actualGrid, boolean[][] exposedTiles, boolean[][] flaggedTiles) {
-        int rows = actualGrid.length;
-        int cols = actualGrid[0].length;
-
-        // Use a priority queue to rank mines by their expansion potential
-        PriorityQueue<int[]> mineQueue = new PriorityQueue<>(new Comparator<int[]>() {
-            @Override
-            public int compare(int[] mine1, int[] mine2) {
-                // Higher expansion score is better
-                return Integer.compare(
-                        calculateExpansionScore(mine2[0], mine2[1], actualGrid, exposedTiles),
-                        calculateExpansionScore(mine1[0], mine1[1], actualGrid, exposedTiles)
-                );
-            }
-        });
-
-        // Add all mines to the queue
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < cols; col++) {
-                if (actualGrid[row][col].equals(MINE) && !exposedTiles[row][col]) {
-                    mineQueue.add(new int[]{row, col});
-                }
-            }
-        }
+    public static FrontierSolver solveFrontier(String[][] actualGrid, boolean[][] exposedTiles, boolean[][] flaggedTiles) {
+        return solveFrontier(actualGrid, exposedTiles, flaggedTiles, FrontierSolver.Mode.PROPAGATION);
+    }
 
-        // Return the mine with the highest expansion score
-        return mineQueue.isEmpty() ? null : mineQueue.poll();
+    /**
+     * Same as solveFrontier, with the solver mode to use. ELIMINATION also
+     * finds cells that only several constraints together settle, at some
+     * extra cost on positions where propagation gets stuck.
+     *
+     * @param mode How far the solver goes
+     * @return The solver holding the complete safe and mine sets
+     */
+    public static FrontierSolver solveFrontier(String[][] actualGrid, boolean[][] exposedTiles, boolean[][] flaggedTiles, FrontierSolver.Mode mode) {
+        FrontierSolver solver = new FrontierSolver();
+        solver.setMode(mode);
+        solver.solve(actualGrid.length, actualGrid[0].length, visibleState(actualGrid, exposedTiles, flaggedTiles));
+        return solver;
     }
 
     /**
-     * Calculates how many tiles would be revealed if a specific mine was revealed.
-     * This is used to prioritize mines for the hint system.
+     * Suggests the hidden cell least likely to be a mine, for when no cell
+     * is certain. Uses only the information visible to the player and the
+     * total number of mines on the board.
+     *
+     * @param totalMines Number of mines on the board
+     * @return Coordinates [row, col] of the safest hidden cell, or null if none is hidden
      */
-    private static int calculateExpansionScore(int mineRow, int mineCol, String[][] actualGrid, boolean[][] exposedTiles) {
-        int rows = actualGrid.length;
+    public static int[] suggestSafestGuess(String[][] actualGrid, boolean[][] exposedTiles, boolean[][] flaggedTiles, int totalMines) {
         int cols = actualGrid[0].length;
-        int score = 0;
-
-        // Look at neighboring numbered cells of this mine
-        for (int[] offset : getNeighborOffsets()) {
-            int row = mineRow + offset[0];
-            int col = mineCol + offset[1];
-
-            if (isValidCell(row, col, rows, cols) && isNumeric(actualGrid[row][col]) && exposedTiles[row][col]) {
-                // Simulate clicking this numbered cell after the mine is revealed
-                score += countExpansionFromCell(row, col, actualGrid, exposedTiles);
-            }
-        }
-
-        return score;
+        ProbabilityEngine engine = new ProbabilityEngine();
+        engine.compute(actualGrid.length, cols, visibleState(actualGrid, exposedTiles, flaggedTiles), totalMines);
+        int cell = engine.getSafestCell();
+        return cell < 0 ? null : toRowCol(cell, cols);
     }
 
     /**
-     * Estimates how many cells would be revealed by clicking a numbered cell.
-     * Uses a simulation of the flood fill algorithm.
+     * Computes the probability that each cell is a mine, given what the
+     * player can see and the total number of mines. Exposed cells are 0,
+     * flagged cells 1.
+     *
+     * @param totalMines Number of mines on the board
+     * @return Matrix of mine probabilities, one per cell
      */
-    private static int countExpansionFromCell(int row, int col, String[][] actualGrid, boolean[][] exposedTiles) {
+    public static double[][] mineProbabilities(String[][] actualGrid, boolean[][] exposedTiles, boolean[][] flaggedTiles, int totalMines) {
         int rows = actualGrid.length;
         int cols = actualGrid[0].length;
-        boolean[][] visited = new boolean[rows][cols];
-        int count = 0;
-
-        // Count all flagged or exposed mines around this cell
-        int surroundingMines = 0;
-        for (int[] offset : getNeighborOffsets()) {
-            int r = row + offset[0];
-            int c = col + offset[1];
-
-            if (isValidCell(r, c, rows, cols) &&
-                    actualGrid[r][c].equals(MINE) &&
-                    (exposedTiles[r][c] || isMineNeighborHighlighted(r, c, actualGrid, exposedTiles))) {
-                surroundingMines++;
-            }
-        }
-
-        // If all mines are accounted for, simulate expansion
-        if (surroundingMines == Integer.parseInt(actualGrid[row][col])) {
-            count = simulateFloodFill(row, col, actualGrid, exposedTiles, visited);
-        }
-
-        return count;
+        ProbabilityEngine engine = new ProbabilityEngine();
+        engine.compute(rows, cols, visibleState(actualGrid, exposedTiles, flaggedTiles), totalMines);
+        double[][] probabilities = new double[rows][cols];
+        for (int row = 0; row < rows; row++)
+            for (int col = 0; col < cols; col++)
+                probabilities[row][col] = engine.getProbability(row, col);
+        return probabilities;
     }
 
     /**
-     * Simulates the flood fill that would occur if a cell was clicked.
+     * Converts the grid to what the player sees, as a flat array of
+     * GameEngine.getVisibleValue values (row * cols + col).
      */
-    private static int simulateFloodFill(int row, int col, String[][] actualGrid, boolean[][] exposedTiles, boolean[][] visited) {
+    public static int[] visibleState(String[][] actualGrid, boolean[][] exposedTiles, boolean[][] flaggedTiles) {
         int rows = actualGrid.length;
         int cols = actualGrid[0].length;
-        int count = 0;
-
-        // Process all neighbors
-        for (int[] offset : getNeighborOffsets()) {
-            int r = row + offset[0];
-            int c = col + offset[1];
-
-            if (isValidCell(r, c, rows, cols) &&
-                    !visited[r][c] &&
-                    !exposedTiles[r][c] &&
-                    !actualGrid[r][c].equals(MINE)) {
-
-                visited[r][c] = true;
-                count++; // Count this cell
-
-                // If this is an empty cell, recursively expand
-                if (actualGrid[r][c].equals(EMPTY)) {
-                    count += simulateFloodFill(r, c, actualGrid, exposedTiles, visited);
+        int[] visible = new int[rows * cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int value;
+                if (!exposedTiles[row][col]) {
+                    value = flaggedTiles[row][col] ? GameEngine.FLAGGED : GameEngine.HIDDEN;
+                } else if (actualGrid[row][col].equals(MINE)) {
+                    value = GameEngine.VISIBLE_MINE;
+                } else if (isNumeric(actualGrid[row][col])) {
+                    value = actualGrid[row][col].charAt(0) - '0';
+                } else {
+                    value = 0;
                 }
+                visible[row * cols + col] = value;
             }
         }
-
-        return count;
+        return visible;
     }
 
     /**
-     * Checks if a specific cell position is valid within the grid.
+     * Converts a flat cell index to [row, col].
      */
-    private static boolean isValidCell(int row, int col, int rows, int cols) {
-        return row >= 0 && row < rows && col >= 0 && col < cols;
+    private static int[] toRowCol(int cell, int cols) {
+        return new int[]{cell / cols, cell % cols};
     }
 
     /**
-     * Checks if a string is numeric.
+     * Suggests the next mine to reveal that would lead to the largest expansion.
+     * This uses all information in the grid (not just visible information).
+     *
+     * @param actualGrid The complete game grid with all cell values
+     * @param exposedTiles Boolean matrix indicating which tiles are exposed
+     * @param flaggedTiles Boolean matrix indicating which tiles are flagged
+     * @return Coordinates [row, col] of the mine that would lead to the largest expansion
      */
-    private static boolean isNumeric(String str) {
-        if (str == null) {
-            return false;
-        }
-        try {
-            Integer.parseInt(str);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
+    public static int[] suggestNextMineToReveal(String[][] actualGrid, boolean[][] exposedTiles, boolean[][] flaggedTiles) {
+        int[][] best = suggestNextMinesToReveal(actualGrid, exposedTiles, flaggedTiles, 1);
+        return best.length == 0 ? null : best[0];
     }
 
     /**
-     * Gets all hidden (unexposed) neighbors of a cell.
+     * Suggests the k hidden mines whose reveal would lead to the largest
+     * expansions, best first. Mines with the same score come in row-major
+     * order.
+     *
+     * Each mine's score is computed once, each exposed number's flood fill
+     * is simulated once for all the mines around it, with one visited-epoch
+     * array shared by every fill instead of a matrix per fill, and the best
+     * k are kept in a small sorted buffer while scanning, so a hint costs
+     * O(mines x fill size) rather than a sort that scores both sides of
+     * every comparison.
+     *
+     * @param k Number of mines wanted
+     * @return Up to k coordinates [row, col], best first
      */
-    private static ArrayList<int[]> getHiddenNeighbors(int row, int col, int rows, int cols, boolean[][] exposedTiles) {
-        ArrayList<int[]> neighbors = new ArrayList<>();
-
-        for (int[] offset : getNeighborOffsets()) {
-            int r = row + offset[0];
-            int c = col + offset[1];
-
-            if (isValidCell(r, c, rows, cols) && !exposedTiles[r][c]) {
-                neighbors.add(new int[]{r, c});
-            }
+    public static int[][] suggestNextMinesToReveal(String[][] actualGrid, boolean[][] exposedTiles, boolean[][] flaggedTiles, int k) {
+        if (k < 0)
+            throw new IllegalArgumentException("Negative number of mines: " + k);
+        ExpansionScorer scorer = new ExpansionScorer(actualGrid, exposedTiles);
+        int cols = actualGrid[0].length;
+        int[] bestCells = new int[k];
+        int[] bestScores = new int[k];
+        int found = 0;
+        for (int cell = 0; cell < scorer.tile.length; cell++) {
+            if (scorer.tile[cell] != ExpansionScorer.MINE_TILE || scorer.exposed[cell])
+                continue;
+            int score = scorer.score(cell);
+            // Insert behind every kept mine with at least this score
+            int at = found;
+            while (at > 0 && bestScores[at - 1] < score)
+                at--;
+            if (at == k)
+                continue;
+            int last = Math.min(found, k - 1);
+            System.arraycopy(bestCells, at, bestCells, at + 1, last - at);
+            System.arraycopy(bestScores, at, bestScores, at + 1, last - at);
+            bestCells[at] = cell;
+            bestScores[at] = score;
+            if (found < k)
+                found++;
         }
-
-        return neighbors;
+        int[][] mines = new int[found][];
+        for (int i = 0; i < found; i++)
+            mines[i] = toRowCol(bestCells[i], cols);
+        return mines;
     }
 
     /**
-     * Counts how many flagged cells are adjacent to a given cell.
+     * Scores mines by the tiles their reveal would open. The grid is read
+     * once into flat arrays, and simulated flood fills mark the tiles they
+     * reach with a fill number, so no fill allocates.
      */
-    private static int countFlaggedNeighbors(int row, int col, int rows, int cols, boolean[][] flaggedTiles) {
-        int count = 0;
-
-        for (int[] offset : getNeighborOffsets()) {
-            int r = row + offset[0];
-            int c = col + offset[1];
-
-            if (isValidCell(r, c, rows, cols) && flaggedTiles[r][c]) {
-                count++;
+    static final class ExpansionScorer {
+        static final byte MINE_TILE = -1;
+
+        final byte[] tile;
+        final boolean[] exposed;
+        private final int rows;
+        private final int cols;
+        // Null for grids too large to have a table
+        private final NeighborTable neighbors;
+        // Neighbors of the mine being scored and of the tile being filled
+        private final int[] aroundMine = new int[8];
+        private final int[] aroundCell = new int[8];
+        private final int[] visited;
+        private int fill;
+        // Tiles a click on each number would open, -1 until simulated
+        private final int[] fillCount;
+        private final IntQueue queue = new IntQueue();
+
+        ExpansionScorer(String[][] actualGrid, boolean[][] exposedTiles) {
+            rows = actualGrid.length;
+            cols = actualGrid[0].length;
+            neighbors = NeighborTable.fits(rows, cols) ? NeighborTable.forBoard(rows, cols) : null;
+            tile = new byte[rows * cols];
+            exposed = new boolean[rows * cols];
+            visited = new int[rows * cols];
+            fillCount = new int[rows * cols];
+            java.util.Arrays.fill(fillCount, -1);
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    String text = actualGrid[row][col];
+                    int cell = row * cols + col;
+                    tile[cell] = text.equals(MINE) ? MINE_TILE : isNumeric(text) ? (byte) (text.charAt(0) - '0') : 0;
+                    exposed[cell] = exposedTiles[row][col];
+                }
             }
         }
 
-        return count;
-    }
-
-    /**
-     * Checks if a mine is already highlighted by its neighboring cells.
-     * A mine is considered highlighted if one of its exposed neighbor cells
-     * has a number and all other mines around that number are accounted for.
-     */
-    private static boolean isMineNeighborHighlighted(int mineRow, int mineCol, String[][] actualGrid, boolean[][] exposedTiles) {
-        int rows = actualGrid.length;
-        int cols = actualGrid[0].length;
-
-        for (int[] offset : getNeighborOffsets()) {
-            int row = mineRow + offset[0];
-            int col = mineCol + offset[1];
-
-            if (isValidCell(row, col, rows, cols) &&
-                    exposedTiles[row][col] &&
-                    isNumeric(actualGrid[row][col])) {
-
-                int number = Integer.parseInt(actualGrid[row][col]);
-                int surroundingMines = 0;
-
-                // Count mines around this numbered cell
-                for (int[] offset2 : getNeighborOffsets()) {
-                    int r = row + offset2[0];
-                    int c = col + offset2[1];
-
-                    if (isValidCell(r, c, rows, cols) && actualGrid[r][c].equals(MINE)) {
-                        surroundingMines++;
-                    }
+        /**
+         * Calculates how many tiles would be revealed if the mine was
+         * revealed: for every exposed number next to it, the tiles a click
+         * on that number would open. Every mine next to an exposed number
+         * counts as highlighted, so the numbers always account for all
+         * their mines and each one is simulated.
+         */
+        int score(int mine) {
+            int score = 0;
+            int count = neighborsOf(mine, aroundMine);
+            for (int j = 0; j < count; j++) {
+                int number = aroundMine[j];
+                if (exposed[number] && tile[number] > 0) {
+                    // A number's fill does not depend on the mine, so
+                    // mines sharing a number share its fill
+                    if (fillCount[number] < 0)
+                        fillCount[number] = floodFill(number);
+                    score += fillCount[number];
                 }
+            }
+            return score;
+        }
 
-                // If number matches mines, this mine is highlighted
-                if (surroundingMines == number) {
-                    return true;
+        /**
+         * Simulates the flood fill that would occur if a cell was clicked:
+         * counts the hidden safe tiles around it, and around every empty
+         * tile reached that way.
+         */
+        int floodFill(int start) {
+            if (++fill == 0) {
+                java.util.Arrays.fill(visited, 0);
+                fill = 1;
+            }
+            int count = 0;
+            queue.clear();
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                int cell = queue.poll();
+                int around = neighborsOf(cell, aroundCell);
+                for (int j = 0; j < around; j++) {
+                    int next = aroundCell[j];
+                    if (visited[next] == fill || exposed[next] || tile[next] == MINE_TILE)
+                        continue;
+                    visited[next] = fill;
+                    count++;
+                    if (tile[next] == 0)
+                        queue.add(next);
                 }
             }
+            return count;
         }
 
-        return false;
+        /**
+         * Copies the neighbors of a cell into into[0..7], from the table or
+         * by clamped loops, and returns how many there are.
+         */
+        private int neighborsOf(int cell, int[] into) {
+            if (neighbors == null)
+                return NeighborTable.around(rows, cols, cell, into);
+            int count = 0;
+            for (int j = neighbors.start(cell); j < neighbors.end(cell); j++)
+                into[count++] = neighbors.get(j);
+            return count;
+        }
     }
 
     /**
-     * Returns the eight possible neighbor offsets.
+     * Checks if a tile string is a number (1-8). Tiles are single characters,
+     * so this avoids the exception path of Integer.parseInt on every mine and
+     * empty tile.
      */
-    private static int[][] getNeighborOffsets() {
-        return new int[][] {
-                {-1, -1}, {-1, 0}, {-1, 1},
-                {0, -1},           {0, 1},
-                {1, -1},  {1, 0},  {1, 1}
-        };
+    private static boolean isNumeric(String str) {
+        return str != null && str.length() == 1 && str.charAt(0) >= '1' && str.charAt(0) <= '8';
     }
 }
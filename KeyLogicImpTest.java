@@ -0,0 +1,74 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/* Tests for the mine suggestions of the hint logic */
+public class KeyLogicImpTest {
+
+    private static final String M = ControllerToModel.MINE;
+    private static final String E = ControllerToModel.EMPTY;
+
+    // Tests the ranking on a board where the corner mine touches three
+    // exposed numbers and the other mine only one, so the corner opens more
+    @Test
+    public void testBestMinesFirst() {
+        String[][] grid = {
+                {M, "1", E, E},
+                {"1", "2", "1", "1"},
+                {E, "1", M, "1"},
+                {E, "1", "1", "1"}};
+        boolean[][] exposed = new boolean[4][4];
+        exposed[0][1] = true;
+        exposed[1][0] = true;
+        exposed[1][1] = true;
+        boolean[][] flagged = new boolean[4][4];
+
+        int[][] mines = KeyLogicImp.suggestNextMinesToReveal(grid, exposed, flagged, 5);
+        assertEquals(2, mines.length);
+        assertArrayEquals(new int[] {0, 0}, mines[0]);
+        assertArrayEquals(new int[] {2, 2}, mines[1]);
+        assertArrayEquals(new int[] {0, 0}, KeyLogicImp.suggestNextMineToReveal(grid, exposed, flagged));
+        assertEquals(1, KeyLogicImp.suggestNextMinesToReveal(grid, exposed, flagged, 1).length);
+        assertEquals(0, KeyLogicImp.suggestNextMinesToReveal(grid, exposed, flagged, 0).length);
+    }
+
+    // Tests that a board with every mine exposed has no suggestion
+    @Test
+    public void testNoHiddenMine() {
+        String[][] grid = {{M, "1"}, {"1", "1"}};
+        boolean[][] exposed = {{true, true}, {true, true}};
+        assertNull(KeyLogicImp.suggestNextMineToReveal(grid, exposed, new boolean[2][2]));
+    }
+
+    // Tests the hints on a grid too large for a neighbor table: one mine in
+    // the bottom-right corner, with every tile exposed but the mine and the
+    // number next to it
+    @Test
+    public void testLargeGrid() {
+        int size = 520;
+        assertFalse(NeighborTable.fits(size, size));
+        String[][] grid = new String[size][size];
+        boolean[][] exposed = new boolean[size][size];
+        for (int row = 0; row < size; row++) {
+            java.util.Arrays.fill(grid[row], E);
+            java.util.Arrays.fill(exposed[row], true);
+        }
+        int last = size - 1;
+        grid[last][last] = M;
+        grid[last - 1][last - 1] = "1";
+        grid[last - 1][last] = "1";
+        grid[last][last - 1] = "1";
+        exposed[last][last] = false;
+        exposed[last][last - 1] = false;
+        boolean[][] flagged = new boolean[size][size];
+
+        assertArrayEquals(new int[] {last, last - 1}, KeyLogicImp.suggestSafeCell(grid, exposed, flagged));
+        assertArrayEquals(new int[] {last, last}, KeyLogicImp.suggestCellToRevealAsMine(grid, exposed, flagged));
+        FrontierSolver solver = KeyLogicImp.solveFrontier(grid, exposed, flagged, FrontierSolver.Mode.ELIMINATION);
+        assertEquals(1, solver.getSafeCount());
+        assertEquals(1, solver.getMineCount());
+        assertArrayEquals(new int[] {last, last - 1}, KeyLogicImp.suggestSafestGuess(grid, exposed, flagged, 1));
+        assertEquals(1.0, KeyLogicImp.mineProbabilities(grid, exposed, flagged, 1)[last][last], 1e-9);
+        assertArrayEquals(new int[] {last, last}, KeyLogicImp.suggestNextMineToReveal(grid, exposed, flagged));
+        assertEquals(1, KeyLogicImp.suggestNextMinesToReveal(grid, exposed, flagged, 3).length);
+    }
+}
@@ -0,0 +1,125 @@
+import java.lang.ref.Reference;
+
+/* Benchmark for large-board mode.
+ * For boards of 1M, 10M and 100M cells it times startGame at expert
+ * density and a full-board cascade (one click opening a board with a single
+ * mine), and measures the heap held by the game after it starts and after
+ * the cascade. Each result is checked against a fixed per-cell time and
+ * heap budget, so the cost of a game has to stay linear in the number of
+ * cells.
+ *
+ * Run with enough heap for the largest board, e.g.
+ *     java -Xmx2g LargeBoardBenchmark
+ * or pass the board sizes (cells) to run, e.g. java LargeBoardBenchmark 1000000 */
+public class LargeBoardBenchmark {
+
+    private static final long[] DEFAULT_CELLS = {1000000L, 10000000L, 100000000L};
+    // Expert board density: 99 mines on 16 x 30
+    private static final double DENSITY = 99.0/(16*30);
+
+    // Budgets per cell
+    private static final double START_NANOS_PER_CELL = 150;
+    private static final double CASCADE_NANOS_PER_CELL = 150;
+    private static final double HEAP_BYTES_PER_CELL = 4;
+
+    public static void main(String[] args)
+    {
+        long[] sizes = DEFAULT_CELLS;
+        if(args.length>0)
+        {
+            sizes = new long[args.length];
+            for(int i = 0;i<args.length;i++)
+                sizes[i] = Long.parseLong(args[i]);
+        }
+
+        // Warm up the JIT so the first size is not timed in the interpreter
+        for(int i = 0;i<5;i++)
+        {
+            largeModel(500,(int)(500*500*DENSITY)).startGame();
+            Model warm = largeModel(500,1);
+            warm.startGame();
+            warm.pressTile(0,0,1);
+        }
+
+        boolean allPassed = true;
+        for(long cells : sizes)
+        {
+            int side = (int)Math.round(Math.sqrt(cells));
+            long actualCells = (long)side*side;
+            System.out.println("Board "+side+" x "+side+" ("+actualCells+" cells)");
+
+            // startGame at a realistic density
+            int mines = (int)(actualCells*DENSITY);
+            long heapBefore = usedHeap();
+            Model model = largeModel(side,mines);
+            long start = System.nanoTime();
+            boolean started = model.startGame();
+            long startNanos = System.nanoTime()-start;
+            long heapBytes = usedHeap()-heapBefore;
+            Reference.reachabilityFence(model);
+            allPassed &= report("startGame, "+mines+" mines",started,startNanos,actualCells,START_NANOS_PER_CELL);
+            allPassed &= report("heap held by the game",heapBytes,actualCells,HEAP_BYTES_PER_CELL);
+            model = null;
+
+            // Full-board cascade: one mine, one click opens every other tile.
+            // The heap is measured again after it, since a move must not
+            // leave buffers the size of the board behind.
+            heapBefore = usedHeap();
+            model = largeModel(side,1);
+            model.startGame();
+            start = System.nanoTime();
+            model.pressTile(0,0,1);
+            if(!model.playerWon()) // (0,0) was the mine or next to it
+                model.pressTile(side-1,side-1,1);
+            long cascadeNanos = System.nanoTime()-start;
+            allPassed &= report("full-board cascade",model.playerWon(),cascadeNanos,actualCells,CASCADE_NANOS_PER_CELL);
+            heapBytes = usedHeap()-heapBefore;
+            Reference.reachabilityFence(model);
+            allPassed &= report("heap held after the cascade",heapBytes,actualCells,HEAP_BYTES_PER_CELL);
+            model = null;
+            System.out.println();
+        }
+        System.out.println(allPassed ? "All budgets met" : "Some budgets exceeded");
+        if(!allPassed)
+            System.exit(1);
+    }
+
+    private static Model largeModel(int side, int mines)
+    {
+        Model model = new Model();
+        model.setLargeBoardMode(true);
+        model.setCustomRows(side);
+        model.setCustomColumns(side);
+        model.setCustomMines(mines);
+        model.setDifficulty("custom");
+        return model;
+    }
+
+    // Prints a timing result and returns true if it is within budget
+    private static boolean report(String what, boolean ok, long nanos, long cells, double budgetPerCell)
+    {
+        double perCell = (double)nanos/cells;
+        boolean passed = ok && perCell<=budgetPerCell;
+        System.out.printf("  %-32s %8.1f ms  %6.1f ns/cell  (budget %.0f)  %s%n",
+                what,nanos/1e6,perCell,budgetPerCell,passed ? "OK" : "OVER");
+        return passed;
+    }
+
+    // Prints a heap result and returns true if it is within budget
+    private static boolean report(String what, long bytes, long cells, double budgetPerCell)
+    {
+        double perCell = (double)bytes/cells;
+        boolean passed = perCell<=budgetPerCell;
+        System.out.printf("  %-32s %8.1f MB  %6.2f B/cell   (budget %.0f)  %s%n",
+                what,bytes/1e6,perCell,budgetPerCell,passed ? "OK" : "OVER");
+        return passed;
+    }
+
+    private static long usedHeap()
+    {
+        Runtime rt = Runtime.getRuntime();
+        for(int i = 0;i<3;i++)
+            System.gc();
+        return rt.totalMemory()-rt.freeMemory();
+    }
+}
@@ -0,0 +1,161 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/* Benchmark for KeyLogicImp.suggestNextMineToReveal.
+ * Collects positions on expert and 30x30 / 150-mine boards by playing
+ * seeded games with random safe presses, then times the mine suggestion
+ * against the previous implementation (kept below as the reference): a
+ * PriorityQueue whose comparator scores both mines of every comparison,
+ * each score running recursive flood fills on a fresh visited matrix.
+ * Checks on every position that the suggested mine has the best score by
+ * the reference, and prints both times and the speedup.
+ *
+ * Run with java MineHintBenchmark, or pass the positions per board:
+ * java MineHintBenchmark 200 */
+public class MineHintBenchmark {
+
+    private static final int DEFAULT_POSITIONS = 100;
+    private static final long SEED = 16;
+    private static final String MINE = ControllerToModel.MINE;
+    private static final String EMPTY = ControllerToModel.EMPTY;
+
+    public static void main(String[] args)
+    {
+        int count = args.length>0 ? Integer.parseInt(args[0]) : DEFAULT_POSITIONS;
+        run("expert 16 x 30, 99 mines",16,30,99,count);
+        run("30 x 30, 150 mines",30,30,150,count);
+    }
+
+    private static void run(String name, int rows, int cols, int mines, int count)
+    {
+        ArrayList<String[][]> grids = new ArrayList<>();
+        ArrayList<boolean[][]> exposed = new ArrayList<>();
+        positions(rows,cols,mines,count,grids,exposed);
+        boolean[][] flagged = new boolean[rows][cols];
+
+        // Same answers first (this also warms up both)
+        for(int i = 0;i<grids.size();i++)
+        {
+            int[] mine = KeyLogicImp.suggestNextMineToReveal(grids.get(i),exposed.get(i),flagged);
+            int[] reference = referenceSuggestion(grids.get(i),exposed.get(i));
+            int score = referenceScore(mine[0],mine[1],grids.get(i),exposed.get(i));
+            if(score!=referenceScore(reference[0],reference[1],grids.get(i),exposed.get(i)))
+                throw new IllegalStateException("Position "+i+": suggested mine does not have the best score");
+        }
+        for(int i = 0;i<10;i++) // warm up
+        {
+            timeCurrent(grids,exposed,flagged);
+            timeReference(grids,exposed);
+        }
+        double current = timeCurrent(grids,exposed,flagged);
+        double reference = timeReference(grids,exposed);
+        System.out.println(name+", "+grids.size()+" positions, same best scores");
+        System.out.printf("  %-24s %10.1f us/hint%n","previous (priority queue)",reference);
+        System.out.printf("  %-24s %10.1f us/hint%n","cached scores, top-k",current);
+        System.out.printf("  %-24s %10.1fx%n","speedup",reference/current);
+    }
+
+    private static double timeCurrent(ArrayList<String[][]> grids, ArrayList<boolean[][]> exposed, boolean[][] flagged)
+    {
+        long start = System.nanoTime();
+        for(int i = 0;i<grids.size();i++)
+            KeyLogicImp.suggestNextMineToReveal(grids.get(i),exposed.get(i),flagged);
+        return (System.nanoTime()-start)/1e3/grids.size();
+    }
+
+    private static double timeReference(ArrayList<String[][]> grids, ArrayList<boolean[][]> exposed)
+    {
+        long start = System.nanoTime();
+        for(int i = 0;i<grids.size();i++)
+            referenceSuggestion(grids.get(i),exposed.get(i));
+        return (System.nanoTime()-start)/1e3/grids.size();
+    }
+
+    // Positions after a few random safe presses in seeded games
+    private static void positions(int rows, int cols, int mines, int count,
+            ArrayList<String[][]> grids, ArrayList<boolean[][]> exposed)
+    {
+        Random rng = new Random(SEED);
+        while(grids.size()<count)
+        {
+            Model model = new Model();
+            model.setSeed(rng.nextLong());
+            model.setFirstClickSafe(true);
+            model.newGame(rows,cols,mines);
+            model.press(rows/2,cols/2);
+            String[][] grid = model.getGrid();
+            for(int press = 0;press<8 && model.getStatus()==GameStatus.PLAYING && grids.size()<count;press++)
+            {
+                int row = rng.nextInt(rows);
+                int col = rng.nextInt(cols);
+                if(grid[row][col].equals(MINE) || model.getVisibleValue(row,col)!=GameEngine.HIDDEN)
+                    continue;
+                model.press(row,col);
+                boolean[][] shown = new boolean[rows][cols];
+                for(int r = 0;r<rows;r++)
+                    for(int c = 0;c<cols;c++)
+                        shown[r][c] = model.getVisibleValue(r,c)>=0;
+                grids.add(grid);
+                exposed.add(shown);
+            }
+        }
+    }
+
+    // The previous suggestNextMineToReveal
+    private static int[] referenceSuggestion(String[][] grid, boolean[][] exposed)
+    {
+        PriorityQueue<int[]> queue = new PriorityQueue<>(new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b)
+            {
+                return Integer.compare(referenceScore(b[0],b[1],grid,exposed),referenceScore(a[0],a[1],grid,exposed));
+            }
+        });
+        for(int row = 0;row<grid.length;row++)
+            for(int col = 0;col<grid[0].length;col++)
+                if(grid[row][col].equals(MINE) && !exposed[row][col])
+                    queue.add(new int[]{row,col});
+        return queue.poll();
+    }
+
+    // The previous expansion score: a recursive fill with a fresh matrix
+    // for every exposed number next to the mine
+    private static int referenceScore(int mineRow, int mineCol, String[][] grid, boolean[][] exposed)
+    {
+        int score = 0;
+        for(int r = mineRow-1;r<=mineRow+1;r++)
+        {
+            for(int c = mineCol-1;c<=mineCol+1;c++)
+            {
+                if(inside(r,c,grid) && exposed[r][c] && !grid[r][c].equals(MINE) && !grid[r][c].equals(EMPTY))
+                    score += referenceFill(r,c,grid,exposed,new boolean[grid.length][grid[0].length]);
+            }
+        }
+        return score;
+    }
+
+    private static int referenceFill(int row, int col, String[][] grid, boolean[][] exposed, boolean[][] visited)
+    {
+        int count = 0;
+        for(int r = row-1;r<=row+1;r++)
+        {
+            for(int c = col-1;c<=col+1;c++)
+            {
+                if(!inside(r,c,grid) || (r==row && c==col) || visited[r][c] || exposed[r][c] || grid[r][c].equals(MINE))
+                    continue;
+                visited[r][c] = true;
+                count++;
+                if(grid[r][c].equals(EMPTY))
+                    count += referenceFill(r,c,grid,exposed,visited);
+            }
+        }
+        return count;
+    }
+
+    private static boolean inside(int row, int col, String[][] grid)
+    {
+        return row>=0 && col>=0 && row<grid.length && col<grid[0].length;
+    }
+}
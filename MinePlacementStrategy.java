@@ -0,0 +1,22 @@
+import java.util.random.RandomGenerator;
+
+/* Places the mines for a new game on an empty board.
+ * Every strategy picks each set of mine locations with the same
+ * probability and runs in time linear in the board or mine count. */
+public interface MinePlacementStrategy {
+
+    // Sets exactly mines mine bits on the board, 0 < mines < board.size()
+    public void placeMines(Board board, int mines, RandomGenerator rng);
+
+    // Picks the strategy suited to the board size and mine density:
+    // complement sampling above 50% density, sparse sampling for low
+    // density or boards too big for an index array, Fisher-Yates otherwise
+    public static MinePlacementStrategy forBoard(int cells, int mines)
+    {
+        if((long)mines*2>cells)
+            return new ComplementMinePlacement();
+        if((long)mines*10<cells || cells>FisherYatesMinePlacement.MAX_CELLS)
+            return new SparseMinePlacement();
+        return new FisherYatesMinePlacement();
+    }
+}
@@ -0,0 +1,121 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+/* Tests that each mine placement strategy places the right number of mines
+ * and picks mine locations uniformly (chi-square tests with fixed seeds) */
+public class MinePlacementTest {
+
+    // Chi-square critical values at p = 0.001
+    private static final double CHI2_DF5 = 20.52;
+    private static final double CHI2_DF24 = 51.18;
+
+    private static final MinePlacementStrategy[] STRATEGIES = {
+            new FisherYatesMinePlacement(),
+            new SparseMinePlacement(),
+            new ComplementMinePlacement()
+    };
+
+    // Tests that every strategy places exactly the requested number of mines
+    @Test
+    public void testMineCount() {
+        Random rng = new Random(1);
+        for (MinePlacementStrategy strategy : STRATEGIES) {
+            for (int mines : new int[] {1, 10, 50, 99, 479}) {
+                Board board = new Board(16, 30);
+                strategy.placeMines(board, mines, rng);
+                assertEquals(strategy.getClass().getName(), mines, countMines(board));
+            }
+        }
+    }
+
+    // Tests that all 6 ways to place 2 mines on a 2x2 board are equally likely
+    @Test
+    public void testSubsetsUniform() {
+        int trials = 60000;
+        for (MinePlacementStrategy strategy : STRATEGIES) {
+            Random rng = new Random(42);
+            int[] seen = new int[16];
+            for (int t = 0; t < trials; t++) {
+                Board board = new Board(2, 2);
+                strategy.placeMines(board, 2, rng);
+                int mask = 0;
+                for (int i = 0; i < 4; i++)
+                    if (board.isMine(i))
+                        mask |= 1 << i;
+                seen[mask]++;
+            }
+            double expected = trials / 6.0;
+            double chi2 = 0;
+            int subsets = 0;
+            for (int mask = 0; mask < 16; mask++) {
+                if (Integer.bitCount(mask) == 2) {
+                    chi2 += (seen[mask] - expected) * (seen[mask] - expected) / expected;
+                    subsets++;
+                } else {
+                    assertEquals(0, seen[mask]);
+                }
+            }
+            assertEquals(6, subsets);
+            assertTrue(strategy.getClass().getName() + " chi2=" + chi2, chi2 < CHI2_DF5);
+        }
+    }
+
+    // Tests that every cell of a 5x5 board is a mine equally often,
+    // at low, medium and high density
+    @Test
+    public void testCellsUniform() {
+        int trials = 20000;
+        for (MinePlacementStrategy strategy : STRATEGIES) {
+            for (int mines : new int[] {3, 10, 20}) {
+                Random rng = new Random(7 + mines);
+                int[] hits = new int[25];
+                for (int t = 0; t < trials; t++) {
+                    Board board = new Board(5, 5);
+                    strategy.placeMines(board, mines, rng);
+                    for (int i = 0; i < 25; i++)
+                        if (board.isMine(i))
+                            hits[i]++;
+                }
+                double expected = (double) trials * mines / 25;
+                double chi2 = 0;
+                for (int i = 0; i < 25; i++)
+                    chi2 += (hits[i] - expected) * (hits[i] - expected) / expected;
+                assertTrue(strategy.getClass().getName() + " mines=" + mines + " chi2=" + chi2,
+                        chi2 < CHI2_DF24);
+            }
+        }
+    }
+
+    // Tests that the automatic choice follows the board density
+    @Test
+    public void testStrategyForBoard() {
+        assertTrue(MinePlacementStrategy.forBoard(480, 10) instanceof SparseMinePlacement);
+        assertTrue(MinePlacementStrategy.forBoard(480, 99) instanceof FisherYatesMinePlacement);
+        assertTrue(MinePlacementStrategy.forBoard(480, 300) instanceof ComplementMinePlacement);
+        assertTrue(MinePlacementStrategy.forBoard(100000000, 20000000) instanceof SparseMinePlacement);
+    }
+
+    private static int countMines(Board board) {
+        int mines = 0;
+        for (int i = 0; i < board.size(); i++)
+            if (board.isMine(i))
+                mines++;
+        return mines;
+    }
+
+    // Tests that nonMineCell counts the free cells in index order, across words
+    @Test
+    public void testNonMineCell() {
+        Board board = new Board(10, 13);
+        board.setAllMines();
+        board.setMine(5, false);
+        board.setMine(64, false);
+        board.setMine(129, false);
+        assertEquals(5, board.nonMineCell(0));
+        assertEquals(64, board.nonMineCell(1));
+        assertEquals(129, board.nonMineCell(2));
+        assertEquals(-1, board.nonMineCell(3));
+    }
+}
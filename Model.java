@@ -1,6 +1,6 @@
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /* Keeps track of most of the data in the minesweeper program */
 public class Model implements ControllerToModel{
@@ -8,14 +8,27 @@ public class Model implements ControllerToModel{
 	private final int BEGINNERMINES = 10;
 	private final int INTERMEDIATEMINES = 40;
 	private final int EXPERTMINES = 99;
+	// Board limits for normal games (what the GUI can display)
+	private final int MAXDIMENSION = 30;
+	private final int MAXMINES = 150;
+	// Board limits in large-board mode, where any number of mines
+	// that leaves at least one safe tile is allowed
+	private final int LARGEMAXDIMENSION = 10000;
+	// Random tries at finding a tile without a mine for the first click's
+	// mine before picking from the free tiles directly
+	private final int MOVETRIES = 8;
+	// Cells of a move kept at a time for listeners; a cascade is passed on
+	// in chunks of this size, so the buffer does not grow with the board
+	private final int CHANGECHUNK = 64;
 	
 	//Tracks game data while instance of the model runs
-	private static long gamesPlayed = 1;
-	private static long gamesWon = 0;
-	private static long bestTimeSecondsBeg = 0;
-	private static long bestTimeSecondsInter = 0;
-	private static long bestTimeSecondsExpert = 0;
-	private static long bestTimeSecondsCustom = 0;
+	//(per instance, so separate models do not share statistics)
+	private long gamesPlayed = 1;
+	private long gamesWon = 0;
+	private long bestTimeSecondsBeg = 0;
+	private long bestTimeSecondsInter = 0;
+	private long bestTimeSecondsExpert = 0;
+	private long bestTimeSecondsCustom = 0;
 	 
 	// Tracks custom game settings the user sets
 	private int customMines = 10;
@@ -27,34 +40,66 @@ public class Model implements ControllerToModel{
 	private int numberRows;
 	private int numberCols;
 	private int extraLivesLeft; // Starts with value -1
-	
-	// Decides if a numbered tile is pressed for the first time, 
-    // or if it is pressed for autocompletion
-	private int [][] timesNumberPressed;
-	// Tracks which tiles the user can see the values for
-	private boolean[][] exposedTiles;
-	// Tracks values of the tiles on the grid
-	// (actual placements of mines, empties, numbers)
-	private String [][] actualGrid;
-	// Tracks cooredinates of the mines in this grid corresponding
-	// to actualGrid
-	private int[] [] mineLocations;
-	// Tracks mines the user hit but did not flag
-	// Used mostly for extra lives, initiated as [[-1,-1],[-1,-1],[-1,-1]]
-	private int[][] minesHit;
-	// Tracks which tiles the user flagged
-	private boolean [][] flaggedTiles;
+	private boolean largeBoardMode;
+	
+	// Tracks values of the tiles on the grid (actual placements of mines,
+	// empties, numbers), which tiles the user can see the values for, which
+	// tiles the user flagged, and which numbered tiles were already pressed
+	// once (so the next press autocompletes)
+	private Board board;
+	// Neighbors of every cell, shared by boards of the same size; null for
+	// boards too large for a table, which use clamped row loops instead
+	private NeighborTable neighbors;
+	// String and boolean views of the board handed out through getGrid,
+	// getExposed and tilePressed; built lazily from the board
+	private String [][] gridView;
+	private boolean[][] exposedView;
+	private boolean exposedViewStale;
+	// Cells exposed by the current press, in the order they were exposed.
+	// Only kept while a caller wants the changes back (recordChanges) or
+	// someone listens; grown past CHANGECHUNK only for a caller, and
+	// shrunk back once its changes are returned.
+	private int[] changedCells = new int[CHANGECHUNK];
+	private int changedCount;
+	private boolean recordChanges;
 	// Tracks the button last revealed/pressed by the user
 	// Initiated with values [-1,-1]
 	private int[] lastpressed;
 	private boolean won;
 	private boolean lost;
-	
-	// Random generator for the tile grid
-	private Random randgen;
+	// Safe (non-mine) tiles not exposed yet, and how many of those are
+	// flagged; the player has won once every hidden safe tile is flagged
+	private int safeTiles;
+	private int safeTilesHidden;
+	private int safeTilesHiddenFlagged;
+	
+	// Random generator for the tile grid; unseeded generators each get
+	// a different seed, so models created together get different boards
+	private SplittableRandom randgen;
+	// If true, the first tile pressed in a game is never a mine
+	private boolean firstClickSafe;
+	// True once a tile has been pressed in the current game
+	private boolean tilePressedThisGame;
+	// How mines are placed; null picks a strategy per board
+	private MinePlacementStrategy placementStrategy;
+	// Cells waiting to be expanded while filling out an empty area,
+	// reused by every cascade
+	private final IntQueue revealQueue = new IntQueue();
+	// Told about games started, tiles exposed and flags
+	private final ArrayList<GameListener> listeners = new ArrayList<GameListener>();
+	// BoardHash of what the player sees, updated on every exposure and flag
+	private long stateHash;
+	// Boards generated ahead of time; null to generate each board when its
+	// game starts. Not used once the model is seeded or has its own
+	// placement strategy, since pooled boards are not repeatable.
+	private BoardPool boardPool;
+	private boolean seeded;
+	// Makes every board solvable without guessing from the first click;
+	// null for ordinary boards
+	private NoGuessGenerator noGuessGenerator;
 	
 	public Model(){
-		randgen = new Random(System.currentTimeMillis());
+		randgen = new SplittableRandom();
 		numberMines = BEGINNERMINES;
 		numberRows = 9;
 		numberCols = 9;
@@ -67,16 +112,12 @@ public class Model implements ControllerToModel{
 		lastpressed[0] = -1;
 		lastpressed[1] = -1;
 		extraLivesLeft = -1;
-		
-		minesHit = new int[3][2];
-		minesHit[0][0] = lastpressed[0];  minesHit[0][1] = lastpressed[1];
-		minesHit[1][0] = lastpressed[0];  minesHit[1][1] = lastpressed[1];
-		minesHit[2][0] = lastpressed[0];  minesHit[2][1] = lastpressed[1];
+
 	}
 	
 	public void setDifficulty(String diff){
 		if(diff==null)
-			System.exit(NULL_EXIT_CODE);
+			throw new IllegalArgumentException("Difficulty not correct!");
 		switch(diff){
 		case "beginner":
 			numberMines = BEGINNERMINES;
@@ -105,31 +146,47 @@ public class Model implements ControllerToModel{
 		default:
 			throw new IllegalArgumentException("Difficulty not correct!");
 		}
+		// Custom settings are generated from the moment they are chosen
+		if(usesPool())
+			boardPool.warmUp(numberRows,numberCols,numberMines);
 	}
 	
 	// If user wants to play a custom game, change rows
 	public void setCustomRows(int rows){
-		if(rows>=2 && rows<=30)
+		if(rows>=2 && rows<=maxDimension())
 			customRows = rows;
 	}
 	
 	// If user wants to play a custom game, change cols
 	public void setCustomColumns(int cols){
-		if(cols>=2 && cols<=30)
+		if(cols>=2 && cols<=maxDimension())
 			customCols = cols;
 	}
 	
 	// If user wants to play a custom game, change mines
 	public void setCustomMines(int mines){
-		if(mines>=1 && mines<=150)
+		if(mines>=1 && (largeBoardMode || mines<=MAXMINES))
 			customMines = mines;
 	}
 	
+	// Large-board mode lifts the 30x30 / 150 mine limits on custom games
+	// up to LARGEMAXDIMENSION x LARGEMAXDIMENSION with any mine density
+	public void setLargeBoardMode(boolean large){
+		largeBoardMode = large;
+	}
+	
+	public boolean isLargeBoardMode(){
+		return largeBoardMode;
+	}
+	
+	private int maxDimension(){
+		return largeBoardMode ? LARGEMAXDIMENSION : MAXDIMENSION;
+	}
+	
 	// Resets game data to play another game
 	public void resetGame(){
 		gamesPlayed += 1;
 
-		randgen = new Random(System.currentTimeMillis());
 		
 		// Reset difficulty level to default
 		numberMines = BEGINNERMINES;
@@ -146,15 +203,12 @@ public class Model implements ControllerToModel{
 		won = false;
 		lost = false;
 		extraLivesLeft = -1;
-		minesHit = new int[3][2];
-		minesHit[0][0] = lastpressed[0];  minesHit[0][1] = lastpressed[1];
-		minesHit[1][0] = lastpressed[0];  minesHit[1][1] = lastpressed[1];
-		minesHit[2][0] = lastpressed[0];  minesHit[2][1] = lastpressed[1];
 	
 		// Reset custom settings
 		customMines = 10;
 		customRows = 9;
 		customCols = 9;
+		largeBoardMode = false;
 	}
 	
 	public int getNumMines(){
@@ -162,14 +216,11 @@ public class Model implements ControllerToModel{
 	}
 	
 	public boolean [][] getExposed(){
-		if(exposedTiles==null)
-			System.exit(NULL_EXIT_CODE);
-		return exposedTiles;
+		requireGame();
+		return exposedView();
 	}
 	
 	public int[] getLastPressed(){
-		if(lastpressed==null)
-			System.exit(NULL_EXIT_CODE);
 		return lastpressed;
 	}
 	
@@ -198,154 +249,151 @@ public class Model implements ControllerToModel{
 	}
 	
 	public String [][] getGrid(){
-		if(actualGrid==null)
-			System.exit(NULL_EXIT_CODE);
-		return actualGrid;
+		requireGame();
+		if(gridView==null)
+			gridView = board.toGrid();
+		return gridView;
+	}
+	
+	// Returns the exposed tiles as a matrix, copying from the board only
+	// if tiles were exposed since the last call
+	private boolean[][] exposedView(){
+		if(exposedView==null || exposedViewStale){
+			exposedView = board.exposedMatrix(exposedView);
+			exposedViewStale = false;
+		}
+		return exposedView;
 	}
 	
 	public boolean startGame(){
-		if(numberRows>=2 && numberRows<=30 && numberCols<=30 &&
-				numberCols>=2 && numberMines>=1 && numberMines<=150
-				&& (numberRows*numberCols)>numberMines){
-			timesNumberPressed = new int [numberRows][numberCols];
-			for(int i=0; i<numberRows;i++)
-				for(int j=0;j<numberCols;j++)
-					timesNumberPressed[i][j] = 0;
-			
-			flaggedTiles = new boolean [numberRows][numberCols];
-			for(int i=0; i<numberRows;i++)
-				for(int j=0;j<numberCols;j++)
-					flaggedTiles[i][j] = false;
-			
-			// Sets default for all tiles to be not exposed
-			exposedTiles = new boolean[numberRows][numberCols];
-			for(int i=0; i<numberRows;i++)
-				for(int j=0;j<numberCols;j++)
-					exposedTiles[i][j] = false;
-	
-			// Populates grid with mines in unique locations
-			populateGridWithMines();
-			
-			// Populates grid with numbers relating to mines
-			populateGridNumbers();
+		if(validBoard(numberRows,numberCols,numberMines)){
+			// All tiles start not exposed, not flagged and never pressed;
+			// a pooled board already has its mines and numbers
+			Board pooled = usesPool() ? boardPool.take(numberRows,numberCols,numberMines) : null;
+			board = pooled!=null ? pooled : new Board(numberRows,numberCols);
+			neighbors = NeighborTable.fits(numberRows,numberCols) ? NeighborTable.forBoard(numberRows,numberCols) : null;
+			gridView = null;
+			exposedView = null;
+			safeTiles = numberRows*numberCols-numberMines;
+			safeTilesHidden = safeTiles;
+			safeTilesHiddenFlagged = 0;
+			tilePressedThisGame = false;
+			// A model can be reused: the last game's result is gone
+			won = false;
+			lost = false;
+			lastpressed[0] = -1;
+			lastpressed[1] = -1;
+			stateHash = BoardHash.board(numberRows,numberCols,numberMines);
+	
+			if(pooled==null){
+				// Populates grid with mines in unique locations
+				populateGridWithMines();
+				
+				// Populates grid with numbers relating to mines
+				populateGridNumbers();
+			}
+			for(GameListener listener : listeners)
+				listener.gameStarted(this);
 			return true;
 		}
 		else
 			return false;
 	}
 	
+	// Returns true if a board with these settings can be played in the
+	// current board mode
+	private boolean validBoard(int rows, int cols, int mines){
+		return rows>=2 && rows<=maxDimension() && cols<=maxDimension() &&
+				cols>=2 && mines>=1 && (largeBoardMode || mines<=MAXMINES)
+				&& ((long)rows*cols)>mines;
+	}
+	
 	// Populates grid with mines in unique locations
+	// Uses the chosen placement strategy, or the one suited to the board
+	// size and density if none was chosen
 	private void populateGridWithMines(){
-		actualGrid = new String[numberRows][numberCols];
-		for(int i=0;i<numberRows;i++)
-			for(int j=0;j<numberCols;j++)
-				actualGrid[i][j] = EMPTY;
-		
-		mineLocations = new int[2][numberMines];
-		int curRow;
-		int curCol;
-		for(int i=0;i<numberMines;i++){
-			boolean found;
-			do{
-				found = false;
-
-				curRow = randgen.nextInt(numberRows);
-				curCol = randgen.nextInt(numberCols);
-
-				for(int j = 0;j<i;j++){
-					if(curRow==mineLocations[0][j] && curCol==mineLocations[1][j])
-					{
-						found = true;
-						break;
-					}
-				}
-			} while(found);
-			mineLocations[0][i] = curRow;
-			mineLocations[1][i] = curCol;
-			actualGrid[curRow][curCol] = MINE;
-		}
-		
+		MinePlacementStrategy strategy = placementStrategy;
+		if(strategy==null)
+			strategy = MinePlacementStrategy.forBoard(board.size(),numberMines);
+		strategy.placeMines(board,numberMines,randgen);
 	}
 	
-	// Once mines are set in the grid, put in the numbers corresponding to
-	// the number of mines around that tile
-	private void populateGridNumbers(){
-		if(actualGrid==null)
-			System.exit(NULL_EXIT_CODE);
-		for(int i =0;i<numberRows;i++){
-			for(int j=0; j<numberCols;j++){
-				if(!actualGrid[i][j].equals(MINE)){
-					//each tile either empty or mine so far
-					int num = getNumberOfMines(i,j);
-					if(num>0)
-						actualGrid[i][j] = ""+num;		
-				}
-			}
-		}
+	// Seeds the board generator, so the games started from now on are the
+	// same every time for the same seed and settings
+	public void setSeed(long seed){
+		randgen = new SplittableRandom(seed);
+		seeded = true;
 	}
 	
-	// Given the tile coordinate, return the number of mines around it
-	private int getNumberOfMines(int row, int col){
-		if(row==0) 
-		{
-			if(col==0)
-				return isMine(0,1)+isMine(1,1)+isMine(1,0);
-			else if(col==numberCols-1) 
-				return isMine(0,numberCols-2)+isMine(1,numberCols-2)+isMine(1,numberCols-1);
-			else 
-				return isMine(0,col-1)+isMine(0,col+1)+isMine(1,col-1)+
-						isMine(1,col)+isMine(1,col+1);
-		}
-		else if(row==numberRows-1)
-		{
-			if(col==0)
-				return isMine(numberRows-2,0)+isMine(numberRows-2,1)+isMine(numberRows-1,1);
-			else if(col==numberCols-1)
-				return isMine(numberRows-2,numberCols-1)+isMine(numberRows-2,numberCols-2)+
-						isMine(numberRows-1,numberCols-2);
-			else
-				return isMine(numberRows-1,col-1)+isMine(numberRows-1,col+1)+
-						isMine(numberRows-2,col-1)+
-						isMine(numberRows-2,col)+isMine(numberRows-2,col+1);
-		}
-		else if(col==0) 
-			return isMine(row-1,col)+isMine(row+1,col)+isMine(row-1,col+1)+
-					isMine(row,col+1)+isMine(row+1,col+1);
-		else if(col == numberCols-1)
-			return isMine(row-1,numberCols-1)+isMine(row+1,numberCols-1)+
-					isMine(row-1,numberCols-2)+
-					isMine(row,numberCols-2)+isMine(row+1,numberCols-2);
-		else
-		{
-			return isMine(row-1,col-1)+isMine(row-1,col)+isMine(row-1,col+1)+
-					isMine(row,col-1)+isMine(row,col+1)+
-					isMine(row+1,col-1)+isMine(row+1,col)+isMine(row+1,col+1);
+	// Takes boards from the pool when games start, and starts generating
+	// the preset difficulties; null generates every board at startGame
+	public void setBoardPool(BoardPool pool){
+		boardPool = pool;
+		if(usesPool()){
+			boardPool.warmUp(9,9,BEGINNERMINES);
+			boardPool.warmUp(16,16,INTERMEDIATEMINES);
+			boardPool.warmUp(16,30,EXPERTMINES);
 		}
 	}
 	
-	// Returns 1 if tile at (row, col) is a mine, 0 otherwise
-	private int isMine(int row, int col)
-	{
-		if(actualGrid==null)
-			System.exit(NULL_EXIT_CODE);
-		if(actualGrid[row][col].equals(MINE))
-			return 1;
-		else
-			return 0;
+	// Makes every game from now on solvable without guessing from its first
+	// click (the board is generated when the first tile is pressed); null
+	// for ordinary boards
+	public void setNoGuessGenerator(NoGuessGenerator generator){
+		noGuessGenerator = generator;
+	}
+	
+	public NoGuessGenerator getNoGuessGenerator(){
+		return noGuessGenerator;
+	}
+	
+	public BoardPool getBoardPool(){
+		return boardPool;
+	}
+	
+	// True if new boards come from the pool
+	private boolean usesPool(){
+		return boardPool!=null && !seeded && placementStrategy==null;
+	}
+	
+	// If safe, the first tile pressed in each game is never a mine
+	public void setFirstClickSafe(boolean safe){
+		firstClickSafe = safe;
+	}
+	
+	// Sets the strategy used to place mines, null to pick one per board
+	public void setMinePlacementStrategy(MinePlacementStrategy strategy){
+		placementStrategy = strategy;
+	}
+	
+	// Once mines are set in the grid, put in the numbers corresponding to
+	// the number of mines around that tile
+	private void populateGridNumbers(){
+		requireGame();
+		board.computeCounts();
 	}
 	
 	// If flagged == true, tile at (row, col) has been flagged; if false, unflagged
 	public void tileFlagged(boolean flagged,int row, int col)
 	{
-		if(flaggedTiles==null)
-			System.exit(NULL_EXIT_CODE);
-		flaggedTiles[row][col] = flagged;
+		requireGame();
+		int cell = board.index(row,col);
+		if(board.isFlagged(cell)==flagged)
+			return;
+		board.setFlagged(cell,flagged);
+		if(!board.isExposed(cell))
+			stateHash ^= BoardHash.key(cell,FLAGGED);
+		if(!board.isExposed(cell) && !board.isMine(cell))
+			safeTilesHiddenFlagged += flagged ? 1 : -1;
+		// Hit mines are already counted as marked around them
+		if(!board.isHit(cell))
+			board.addMarkedAround(cell,flagged ? 1 : -1);
+		for(GameListener listener : listeners)
+			listener.tileFlagged(this,cell,flagged);
 	}
 	
 	public ArrayList<String> getDifficulties()
 	{
-		if(DIFFICULTIES==null)
-			System.exit(NULL_EXIT_CODE);
 		return DIFFICULTIES;
 	}
 	
@@ -373,31 +421,161 @@ public class Model implements ControllerToModel{
 		return gamesWon;
 	}
 	
-	// Returns true if tile at (row, col) is a mine that was previously hit
-	private boolean minePreviouslyHit(int row, int col)
-	{
-		if(minesHit==null)
-			System.exit(NULL_EXIT_CODE);
-		if( (minesHit[0][0] == row && minesHit[0][1] == col) ||
-				(minesHit[1][0]==row && minesHit[1][1]==col) ||
-				(minesHit[2][0]==row && minesHit[2][1]==col) )
-			return true;
-		else
-			return false;
-	}
-	
 	// A tile was chosen at (row, col) at currentTime
 	// fill in the tiles based on what was pressed
 	// if the player won, update gamesWon and the best time
 	// return exposedTiles
 	public boolean [][] tilePressed(int row, int col, long currentTime)
 	{
-		if(exposedTiles==null)
-			System.exit(NULL_EXIT_CODE);
+		pressTile(row,col,currentTime);
+		return exposedView();
+	}
+	
+	// Same as tilePressed, but returns only the tiles this press exposed,
+	// one int per tile: the cell index (row*cols + col) shifted left by
+	// DELTA_VALUE_BITS, or'd with the tile value (0 empty, 1-8, DELTA_MINE)
+	public int[] tilePressedChanges(int row, int col, long currentTime)
+	{
+		recordChanges = true;
+		try{
+			pressTile(row,col,currentTime);
+			return changes();
+		}
+		finally{
+			endChanges();
+		}
+	}
+	
+	// Packs the cells exposed by the last press for tilePressedChanges
+	private int[] changes()
+	{
+		int[] changes = new int[changedCount];
+		for(int i = 0;i<changedCount;i++)
+		{
+			int cell = changedCells[i];
+			int value = board.isMine(cell) ? DELTA_MINE : board.getCount(cell);
+			changes[i] = (cell<<DELTA_VALUE_BITS) | value;
+		}
+		return changes;
+	}
+	
+	// Stops keeping every change of a move, and lets go of a buffer a
+	// large move grew
+	private void endChanges()
+	{
+		recordChanges = false;
+		changedCount = 0;
+		if(changedCells.length>CHANGECHUNK)
+			changedCells = new int[CHANGECHUNK];
+	}
+	
+	// Same as tilePressed without building the exposed matrix, for
+	// large boards and callers that do not need it
+	public void pressTile(int row, int col, long currentTime)
+	{
+		requireGame();
+		changedCount = 0;
+		if(!tilePressedThisGame && row>=0 && col>=0 && row<numberRows && col<numberCols)
+		{
+			tilePressedThisGame = true;
+			if(noGuessGenerator!=null)
+				useNoGuessBoard(row,col);
+			// A no-guess board already has no mine there; its fallback
+			// keeps the first click safe too
+			if(firstClickSafe || noGuessGenerator!=null)
+				moveMineAway(board.index(row,col));
+		}
+		boolean over = won || lost;
 		fillOutTiles(true,row,col);
+		// A game that was already over is not won again
+		if(!over)
+			recordWin(currentTime);
+		notifyExposed();
+	}
+	
+	// If cell is a mine, moves it to a random tile that is not a mine.
+	// The board was generated uniformly, so after the move every layout
+	// without a mine at cell is equally likely, the same as generating the
+	// board after the click, but only the tiles around the two cells change
+	private void moveMineAway(int cell)
+	{
+		if(!board.isMine(cell))
+			return;
+		int to = -1;
+		for(int i = 0;i<MOVETRIES && to<0;i++){
+			int pick = randgen.nextInt(board.size());
+			if(!board.isMine(pick))
+				to = pick;
+		}
+		// Dense board: the k-th free tile, for a uniform k, is as likely
+		// as any other, and is found in one pass over the mine bits
+		if(to<0)
+			to = board.nonMineCell(randgen.nextInt(board.size()-numberMines));
+		// Nothing is exposed yet: a flagged cell becomes a flagged safe
+		// tile, a flagged to stops being one
+		if(board.isFlagged(cell))
+			safeTilesHiddenFlagged++;
+		if(board.isFlagged(to))
+			safeTilesHiddenFlagged--;
+		board.moveMine(cell,to);
+		if(gridView!=null)
+		{
+			updateGridView(cell);
+			updateGridView(to);
+		}
+	}
+	
+	// Plays the game on a board that needs no guess from a first click on
+	// (row, col), if one is found in time; flags placed before the first
+	// click stay
+	private void useNoGuessBoard(int row, int col)
+	{
+		Board next = noGuessGenerator.generate(numberRows,numberCols,numberMines,row,col);
+		if(next==null)
+			return;
+		safeTilesHiddenFlagged = 0;
+		for(int cell = 0;cell<board.size();cell++)
+		{
+			if(!board.isFlagged(cell))
+				continue;
+			next.setFlagged(cell,true);
+			next.addMarkedAround(cell,1);
+			if(!next.isMine(cell))
+				safeTilesHiddenFlagged++;
+		}
+		board = next;
+		gridView = null;
+	}
+	
+	// Rewrites the tiles around cell in the String view of the board
+	private void updateGridView(int cell)
+	{
+		gridView[board.rowOf(cell)][board.colOf(cell)] = board.tileText(cell);
+		if(neighbors!=null)
+		{
+			for(int j = neighbors.start(cell);j<neighbors.end(cell);j++)
+			{
+				int next = neighbors.get(j);
+				gridView[board.rowOf(next)][board.colOf(next)] = board.tileText(next);
+			}
+			return;
+		}
+		int row = board.rowOf(cell);
+		int col = board.colOf(cell);
+		for(int r = Math.max(row-1,0);r<=Math.min(row+1,numberRows-1);r++)
+			for(int c = Math.max(col-1,0);c<=Math.min(col+1,numberCols-1);c++)
+				gridView[r][c] = board.tileText(board.index(r,c));
+	}
+	
+	// If the player won, update gamesWon and the best time
+	// (no time is recorded for moves made without a clock)
+	private void recordWin(long currentTime)
+	{
 		if(won)
 		{
 			gamesWon += 1;
+			if(currentTime<=0)
+				return;
 			switch(difficultyIndex)
 			{
 			case 0:
@@ -420,7 +598,6 @@ public class Model implements ControllerToModel{
 			}
 			
 		}
-		return exposedTiles;
 	}
 	
 	// Tile needs to be filled in at (row, col)
@@ -428,29 +605,30 @@ public class Model implements ControllerToModel{
 	// false if auto filling out tiles
 	private void fillOutTiles(boolean playerPressed,int row, int col)
 	{
-		if(timesNumberPressed==null||minesHit==null||lastpressed==null||
-				exposedTiles==null||flaggedTiles==null||actualGrid==null)
-			System.exit(NULL_EXIT_CODE);
+		requireGame();
 		if(playerPressed)
 		{
 			lastpressed[0] = row;
 			lastpressed[1] = col;
 		}
-		String numbers = "12345678";
 		if(row<0||col<0||row>numberRows-1||col>numberCols-1)
 			return;
-		if(exposedTiles[row][col] == true && !numbers.contains(actualGrid[row][col]))
+		int cell = board.index(row,col);
+		boolean mine = board.isMine(cell);
+		boolean number = !mine && board.getCount(cell)>0;
+		if(board.isExposed(cell) && !number)
 			return;
 		
-		exposedTiles[row][col] = true;
+		exposeTile(cell);
 		
-		if(isMine(row,col)==1 && flaggedTiles[row][col]==false){ // The tile is a mine and has not been flagged
+		if(mine && !board.isFlagged(cell)){ // The tile is a mine and has not been flagged
 		// If auto complete presses the mine, flag was incorrect and it is still player's fault
 			if(extraLivesLeft>0)
 			{
 				extraLivesLeft=extraLivesLeft-1;
-				minesHit[extraLivesLeft][0] = row;
-				minesHit[extraLivesLeft][1] = col;
+				// A hit mine counts like a flag for autocompleting around it
+				board.setHit(cell,true);
+				board.addMarkedAround(cell,1);
 				if(!playerPressed) // Player placed incorrect flag and tried to autocomplete
 				{
 					lastpressed[0] = row; // Makes lastpressed the position of the mine that was revealed
@@ -468,78 +646,314 @@ public class Model implements ControllerToModel{
 			}
 			
 		}
-		else if(actualGrid[row][col].equals(EMPTY))
+		else if(!mine && !number)
 		{
 			// Fill out all surrounding tiles if this is an empty tile
-			for(int i = 0;i<3;i++)
-			{
-				fillOutTiles(false,row+1,col-1+i);
-				fillOutTiles(false,row,col-1+i);
-				fillOutTiles(false,row-1,col-1+i);
-			}
+			fillOutEmptyArea(cell);
 		}
-		else if(numbers.contains(actualGrid[row][col])) // If this is a number
+		else if(number) // If this is a number
 		{
-			if(timesNumberPressed[row][col]==0) //Initial hit no action
-				timesNumberPressed[row][col]=1;
+			if(!board.isPressed(cell)) //Initial hit no action
+				board.setPressed(cell,true);
 			
 			// Hit again, display surrounding tiles if all "mines" flagged (corresponding to numMines)
-			else if(timesNumberPressed[row][col]==1 && playerPressed)
+			else if(playerPressed && canChord(cell))
+				chordAround(row,col);
+		}
+		
+		if(playerPressed)
+			won = allTilesFilledOut();
+	}
+	
+	// Exposes the open area around the empty tile at start (already exposed):
+	// every empty tile connected to it, and the numbers bordering them.
+	// Works breadth-first over revealQueue instead of recursing, so large
+	// open areas cannot overflow the stack, and nothing is allocated once
+	// the queue has grown to fit. Each tile is exposed at most once; tiles
+	// already exposed are only checked. An empty tile never touches a mine,
+	// so no mines are revealed here.
+	private void fillOutEmptyArea(int start)
+	{
+		IntQueue queue = revealQueue;
+		queue.clear();
+		queue.add(start);
+		while(!queue.isEmpty())
+		{
+			int cell = queue.poll();
+			if(neighbors!=null)
 			{
-				int numMines = getNumberOfMines(row,col);
-				int currentFlaggedOrHitMines = 0;
-				for(int i = 0;i<3;i++)
-				{
-					// If mine is flagged or hit - not care if it is actually a mine (&& isMine(row+1,col-1+i)==1)
-					if(row+1<numberRows && col-1+i<numberCols &&
-							col-1+i>=0 && (flaggedTiles[row+1][col-1+i]==true || minePreviouslyHit(row+1,col-1+i)))
-					{
-						currentFlaggedOrHitMines++;
-					}
-					if(row-1>=0 && col-1+i<numberCols &&
-							col-1+i>=0 && (flaggedTiles[row-1][col-1+i]==true || minePreviouslyHit(row-1,col-1+i)))
-					{
-						currentFlaggedOrHitMines++;
-					}
-					if(col-1+i<numberCols && col-1+i>=0 && i!=1 &&
-							(flaggedTiles[row][col-1+i]==true || minePreviouslyHit(row,col-1+i))) 
-	
-					{
-						currentFlaggedOrHitMines++;				
-					}
-				}
-				
-				// Displays all surrounding tiles if all "mines" flagged
-				if(currentFlaggedOrHitMines>=numMines){
-					for(int i = 0;i<3;i++){
-						// Fills out all surrounding tiles
-						fillOutTiles(false,row+1,col-1+i);
-						fillOutTiles(false,row,col-1+i);
-						fillOutTiles(false,row-1,col-1+i);
-					}
-				}
-					
+				for(int j = neighbors.start(cell);j<neighbors.end(cell);j++)
+					fillOutNeighbor(neighbors.get(j),queue);
+				continue;
 			}
+			int row = board.rowOf(cell);
+			int col = cell-row*numberCols;
+			int firstCol = Math.max(col-1,0);
+			int lastCol = Math.min(col+1,numberCols-1);
+			int last = Math.min(row+1,numberRows-1)*numberCols;
+			for(int rowStart = Math.max(row-1,0)*numberCols;rowStart<=last;rowStart += numberCols)
+				for(int next = rowStart+firstCol;next<=rowStart+lastCol;next++)
+					fillOutNeighbor(next,queue);
 		}
-		
-		won = allTilesFilledOut();
 	}
 	
-	// Returs true if user has won, false otherwise
-	private boolean allTilesFilledOut()
+	// Exposes a tile next to an empty one during a fill; empty tiles go on
+	// the queue to be expanded in turn
+	private void fillOutNeighbor(int next, IntQueue queue)
 	{
-		if(exposedTiles==null||flaggedTiles==null)
-			System.exit(NULL_EXIT_CODE);
-		for(int i = 0; i<numberRows;i++){
-			for(int j = 0;j<numberCols;j++){
-			    // If the tile is not exposed 
-				if(exposedTiles[i][j]==false){
-				 	// If it is not a flagged mine, return false
-					if(flaggedTiles[i][j]==false && isMine(i,j)==0)
-						return false;
-				}
+		if(board.getCount(next)>0)
+		{
+			// Numbers stop the fill, but count as pressed once
+			if(!board.isPressed(next))
+			{
+				exposeTile(next);
+				board.setPressed(next,true);
 			}
 		}
-		return true;
+		else if(!board.isExposed(next))
+		{
+			exposeTile(next);
+			queue.add(next);
+		}
+	}
+	
+	// Returns true if the tile at (row, col) is an exposed number with at
+	// least that many flagged or hit tiles around it, so pressing it again
+	// (or calling chord) exposes all the other tiles around it
+	public boolean canChord(int row, int col)
+	{
+		requireGame();
+		if(row<0||col<0||row>numberRows-1||col>numberCols-1)
+			return false;
+		int cell = board.index(row,col);
+		return board.isExposed(cell) && !board.isMine(cell) && canChord(cell);
+	}
+	
+	// Exposes every tile around the number at (row, col) that is not
+	// flagged, if canChord(row, col); a single press does what pressing an
+	// opened number again does. Counts as a player move (win, loss, last
+	// pressed, best time) and returns the exposed tiles like
+	// tilePressedChanges, or an empty array if the tile cannot be chorded
+	public int[] chord(int row, int col, long currentTime)
+	{
+		if(!canChord(row,col))
+			return new int[0];
+		changedCount = 0;
+		recordChanges = true;
+		try{
+			lastpressed[0] = row;
+			lastpressed[1] = col;
+			boolean over = won || lost;
+			chordAround(row,col);
+			won = allTilesFilledOut();
+			if(!over)
+				recordWin(currentTime);
+			notifyExposed();
+			return changes();
+		}
+		finally{
+			endChanges();
+		}
+	}
+	
+	// Tells the listeners about the tiles the last move exposed (since the
+	// last chunk they were told about)
+	private void notifyExposed()
+	{
+		if(changedCount==0)
+			return;
+		for(GameListener listener : listeners)
+			listener.tilesExposed(this,changedCells,changedCount);
+	}
+	
+	// The number at cell has as many flagged/hit tiles around it as its value
+	private boolean canChord(int cell)
+	{
+		int count = board.getCount(cell);
+		return count>0 && board.getMarkedAround(cell)>=count;
+	}
+	
+	// Fills out all tiles around (row, col), in the order a press always
+	// has, which decides which mine is hit first with a wrong flag
+	private void chordAround(int row, int col)
+	{
+		for(int i = 0;i<3;i++){
+			fillOutTiles(false,row+1,col-1+i);
+			fillOutTiles(false,row,col-1+i);
+			fillOutTiles(false,row-1,col-1+i);
+		}
+	}
+	
+	// Exposes the tile and keeps the hidden safe tile counts up to date
+	private void exposeTile(int cell)
+	{
+		if(board.isExposed(cell))
+			return;
+		if(board.isFlagged(cell))
+			stateHash ^= BoardHash.key(cell,FLAGGED);
+		board.setExposed(cell,true);
+		stateHash ^= BoardHash.key(cell,board.isMine(cell) ? VISIBLE_MINE : board.getCount(cell));
+		exposedViewStale = true;
+		if(!board.isMine(cell))
+		{
+			safeTilesHidden--;
+			if(board.isFlagged(cell))
+				safeTilesHiddenFlagged--;
+		}
+		if(recordChanges || !listeners.isEmpty())
+			recordChange(cell);
+	}
+	
+	// Keeps an exposed cell for the caller and the listeners. Without a
+	// caller keeping the whole move, a full buffer is passed on to the
+	// listeners and reused.
+	private void recordChange(int cell)
+	{
+		if(changedCount==changedCells.length)
+		{
+			if(recordChanges)
+				changedCells = Arrays.copyOf(changedCells,changedCount*2);
+			else
+			{
+				notifyExposed();
+				changedCount = 0;
+			}
+		}
+		changedCells[changedCount++] = cell;
+	}
+	
+	// Returs true if user has won, false otherwise
+	// Every tile not exposed must be a mine or flagged
+	private boolean allTilesFilledOut()
+	{
+		return safeTilesHidden==safeTilesHiddenFlagged;
+	}
+	
+	// Returns the number of safe tiles the player still has to expose
+	public int getSafeTilesRemaining()
+	{
+		requireGame();
+		return safeTilesHidden;
+	}
+	
+	// Returns the percentage (0-100) of safe tiles exposed so far
+	public double getPercentCleared()
+	{
+		requireGame();
+		return 100.0*(safeTiles-safeTilesHidden)/safeTiles;
+	}
+	
+	// Starts a new game of a preset difficulty
+	public void newGame(String difficulty)
+	{
+		setDifficulty(difficulty);
+		if(!startGame())
+			throw new IllegalArgumentException("Cannot start a game with these settings");
+	}
+	
+	// Starts a new custom game
+	public void newGame(int rows, int cols, int mines)
+	{
+		if(!validBoard(rows,cols,mines))
+			throw new IllegalArgumentException("Invalid board: "+rows+" x "+cols+" with "+mines+" mines");
+		customRows = rows;
+		customCols = cols;
+		customMines = mines;
+		setDifficulty("custom");
+		startGame();
+	}
+	
+	public MoveResult press(int row, int col)
+	{
+		checkTile(row,col);
+		requirePlaying();
+		int[] changes = tilePressedChanges(row,col,0);
+		return new MoveResult(getStatus(),changes,extraLivesLeft);
+	}
+	
+	public MoveResult chordAt(int row, int col)
+	{
+		checkTile(row,col);
+		requirePlaying();
+		int[] changes = chord(row,col,0);
+		return new MoveResult(getStatus(),changes,extraLivesLeft);
+	}
+	
+	public void flag(int row, int col, boolean flagged)
+	{
+		checkTile(row,col);
+		tileFlagged(flagged,row,col);
+	}
+	
+	public void addGameListener(GameListener listener)
+	{
+		if(listener==null)
+			throw new IllegalArgumentException("Listener cannot be null");
+		listeners.add(listener);
+	}
+	
+	public void removeGameListener(GameListener listener)
+	{
+		listeners.remove(listener);
+	}
+	
+	public GameStatus getStatus()
+	{
+		if(board==null)
+			return GameStatus.NOT_STARTED;
+		if(lost)
+			return GameStatus.LOST;
+		if(won)
+			return GameStatus.WON;
+		return GameStatus.PLAYING;
+	}
+	
+	public int getRows()
+	{
+		requireGame();
+		return board.getRows();
+	}
+	
+	public int getColumns()
+	{
+		requireGame();
+		return board.getCols();
+	}
+	
+	public int getVisibleValue(int row, int col)
+	{
+		checkTile(row,col);
+		int cell = board.index(row,col);
+		if(board.isExposed(cell))
+			return board.isMine(cell) ? VISIBLE_MINE : board.getCount(cell);
+		return board.isFlagged(cell) ? FLAGGED : HIDDEN;
+	}
+	
+	public long getStateHash()
+	{
+		requireGame();
+		return stateHash;
+	}
+	
+	// Throws if no game has been started yet
+	private void requireGame()
+	{
+		if(board==null)
+			throw new GameStateException("No game has been started");
+	}
+	
+	// Throws if the game is already won or lost
+	private void requirePlaying()
+	{
+		if(won || lost)
+			throw new GameStateException("The game is over");
+	}
+	
+	// Throws if no game has been started or (row, col) is not on the board
+	private void checkTile(int row, int col)
+	{
+		requireGame();
+		if(!board.inBounds(row,col))
+			throw new IllegalArgumentException("No tile at "+row+","+col);
 	}
 }
@@ -0,0 +1,196 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+/* Differential test for Model's reveal logic (flood fill, chording, extra
+ * lives). Plays random presses, chords and flags on random boards, and after
+ * every move compares Model with a copy of the original recursive
+ * fillOutTiles.
+ * Run with -Dreveal.boards=N to play more boards (default 20000). */
+public class ModelRevealTest {
+
+    private static final int BOARDS = Integer.getInteger("reveal.boards", 20000);
+
+    // Tests that Model reveals the same tiles and reports the same
+    // win/loss, last pressed tile and lives as the recursive version
+    @Test
+    public void testMatchesRecursiveFillOutTiles() {
+        Random rng = new Random(2025);
+        for (int game = 0; game < BOARDS; game++) {
+            int rows = 2 + rng.nextInt(14);
+            int cols = 2 + rng.nextInt(14);
+            int mines = 1 + rng.nextInt(Math.min(150, rows * cols - 1));
+            // Low densities most of the time, so there are cascades to compare
+            if (rng.nextInt(4) != 0)
+                mines = 1 + rng.nextInt(Math.max(1, rows * cols / 6));
+            int lives = rng.nextInt(5) - 1;
+            long boardSeed = rng.nextLong();
+
+            Model model = new Model();
+            model.setMinePlacementStrategy((board, count, ignored) ->
+                    new SparseMinePlacement().placeMines(board, count, new Random(boardSeed)));
+            model.setCustomRows(rows);
+            model.setCustomColumns(cols);
+            model.setCustomMines(mines);
+            model.setDifficulty("custom");
+            model.setExtraLives(lives);
+            assertTrue(model.startGame());
+
+            RecursiveReference reference = new RecursiveReference(model.getGrid(), lives);
+            int moves = 1 + rng.nextInt(3 * rows * cols / 2);
+            for (int move = 0; move < moves; move++) {
+                int row = rng.nextInt(rows);
+                int col = rng.nextInt(cols);
+                if (rng.nextInt(4) == 0) {
+                    if (!reference.exposed[row][col]) {
+                        boolean flag = !reference.flagged[row][col];
+                        model.tileFlagged(flag, row, col);
+                        reference.flagged[row][col] = flag;
+                    }
+                } else {
+                    // Press numbers twice sometimes, to chord
+                    int presses = rng.nextInt(3) == 0 ? 2 : 1;
+                    boolean chord = rng.nextInt(5) == 0;
+                    for (int p = 0; p < presses; p++) {
+                        if (chord) {
+                            assertEquals(reference.canChord(row, col), model.canChord(row, col));
+                            model.chord(row, col, 1);
+                            reference.chord(row, col);
+                        } else {
+                            model.tilePressed(row, col, 1);
+                            reference.fillOutTiles(true, row, col);
+                        }
+                        boolean[][] exposed = model.getExposed();
+                        String where = "game " + game + " move " + move;
+                        for (int i = 0; i < rows; i++)
+                            assertArrayEquals(where, reference.exposed[i], exposed[i]);
+                        assertEquals(where, reference.lost, model.playerLost());
+                        assertEquals(where, reference.won, model.playerWon());
+                        assertEquals(where, reference.extraLivesLeft, model.getExtraLivesLeft());
+                        assertArrayEquals(where, reference.lastpressed, model.getLastPressed());
+                    }
+                }
+                if (reference.lost || reference.won)
+                    break;
+            }
+        }
+    }
+
+    // The recursive reveal logic Model used before the iterative fill,
+    // working on the grid of tile strings
+    private static class RecursiveReference {
+        final String[][] grid;
+        final int rows;
+        final int cols;
+        final boolean[][] exposed;
+        final boolean[][] flagged;
+        final int[][] timesNumberPressed;
+        final int[][] minesHit = {{-1, -1}, {-1, -1}, {-1, -1}};
+        final int[] lastpressed = {-1, -1};
+        int extraLivesLeft;
+        boolean won;
+        boolean lost;
+
+        RecursiveReference(String[][] grid, int lives) {
+            this.grid = grid;
+            rows = grid.length;
+            cols = grid[0].length;
+            exposed = new boolean[rows][cols];
+            flagged = new boolean[rows][cols];
+            timesNumberPressed = new int[rows][cols];
+            extraLivesLeft = lives;
+        }
+
+        void fillOutTiles(boolean playerPressed, int row, int col) {
+            if (playerPressed) {
+                lastpressed[0] = row;
+                lastpressed[1] = col;
+            }
+            String numbers = "12345678";
+            if (row < 0 || col < 0 || row > rows - 1 || col > cols - 1)
+                return;
+            if (exposed[row][col] && !numbers.contains(grid[row][col]))
+                return;
+            exposed[row][col] = true;
+            if (grid[row][col].equals("M") && !flagged[row][col]) {
+                if (extraLivesLeft > 0) {
+                    extraLivesLeft--;
+                    minesHit[extraLivesLeft][0] = row;
+                    minesHit[extraLivesLeft][1] = col;
+                } else {
+                    lost = true;
+                }
+                if (!playerPressed) {
+                    lastpressed[0] = row;
+                    lastpressed[1] = col;
+                }
+            } else if (grid[row][col].equals(" ")) {
+                for (int i = 0; i < 3; i++) {
+                    fillOutTiles(false, row + 1, col - 1 + i);
+                    fillOutTiles(false, row, col - 1 + i);
+                    fillOutTiles(false, row - 1, col - 1 + i);
+                }
+            } else if (numbers.contains(grid[row][col])) {
+                if (timesNumberPressed[row][col] == 0) {
+                    timesNumberPressed[row][col] = 1;
+                } else if (playerPressed) {
+                    if (flaggedOrHitAround(row, col) >= Integer.parseInt(grid[row][col])) {
+                        for (int i = 0; i < 3; i++) {
+                            fillOutTiles(false, row + 1, col - 1 + i);
+                            fillOutTiles(false, row, col - 1 + i);
+                            fillOutTiles(false, row - 1, col - 1 + i);
+                        }
+                    }
+                }
+            }
+            won = allTilesFilledOut();
+        }
+
+        // What Model.chord does: the second press on an opened number,
+        // without needing the first
+        boolean canChord(int row, int col) {
+            if (!exposed[row][col] || !"12345678".contains(grid[row][col]))
+                return false;
+            return flaggedOrHitAround(row, col) >= Integer.parseInt(grid[row][col]);
+        }
+
+        void chord(int row, int col) {
+            if (!canChord(row, col))
+                return;
+            lastpressed[0] = row;
+            lastpressed[1] = col;
+            for (int i = 0; i < 3; i++) {
+                fillOutTiles(false, row + 1, col - 1 + i);
+                fillOutTiles(false, row, col - 1 + i);
+                fillOutTiles(false, row - 1, col - 1 + i);
+            }
+            won = allTilesFilledOut();
+        }
+
+        int flaggedOrHitAround(int row, int col) {
+            int flaggedOrHit = 0;
+            for (int r = row - 1; r <= row + 1; r++)
+                for (int c = col - 1; c <= col + 1; c++)
+                    if ((r != row || c != col) && r >= 0 && c >= 0 && r < rows && c < cols
+                            && (flagged[r][c] || previouslyHit(r, c)))
+                        flaggedOrHit++;
+            return flaggedOrHit;
+        }
+
+        boolean previouslyHit(int row, int col) {
+            for (int[] hit : minesHit)
+                if (hit[0] == row && hit[1] == col)
+                    return true;
+            return false;
+        }
+
+        boolean allTilesFilledOut() {
+            for (int i = 0; i < rows; i++)
+                for (int j = 0; j < cols; j++)
+                    if (!exposed[i][j] && !flagged[i][j] && !grid[i][j].equals("M"))
+                        return false;
+            return true;
+        }
+    }
+}
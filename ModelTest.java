@@ -191,4 +191,332 @@ public class ModelTest {
         // Check that playerWon returns true
         assertTrue(model.playerWon());
     }
+
+    // Tests that every number in the grid matches the mines around it
+    @Test
+    public void testGridNumbersMatchMines() {
+        model.setDifficulty("expert");
+        model.startGame();
+        assertEquals(99, checkGridNumbers(model.getGrid()));
+    }
+
+    // Tests the numbers on boards that are mostly mines and on thin boards,
+    // where most tiles are on an edge
+    @Test
+    public void testGridNumbersDenseAndThinBoards() {
+        int[][] settings = {{13, 13, 150}, {2, 30, 45}, {30, 2, 12}, {2, 2, 3}};
+        for (int[] setting : settings) {
+            model.setCustomRows(setting[0]);
+            model.setCustomColumns(setting[1]);
+            model.setCustomMines(setting[2]);
+            model.setDifficulty("custom");
+            assertTrue(model.startGame());
+            assertEquals(setting[2], checkGridNumbers(model.getGrid()));
+        }
+    }
+
+    // Checks every number in the grid against the mines around it
+    // and returns the number of mines
+    private int checkGridNumbers(String[][] grid) {
+        int mines = 0;
+        for (int i = 0; i < grid.length; i++) {
+            for (int j = 0; j < grid[0].length; j++) {
+                if ("M".equals(grid[i][j])) {
+                    mines++;
+                    continue;
+                }
+                int around = 0;
+                for (int r = i - 1; r <= i + 1; r++)
+                    for (int c = j - 1; c <= j + 1; c++)
+                        if (r >= 0 && c >= 0 && r < grid.length && c < grid[0].length && "M".equals(grid[r][c]))
+                            around++;
+                assertEquals(around == 0 ? " " : "" + around, grid[i][j]);
+            }
+        }
+        return mines;
+    }
+
+    // Tests that the grid view stays the same object while a game is played
+    @Test
+    public void testGridViewReused() {
+        model.startGame();
+        String[][] grid = model.getGrid();
+        model.tilePressed(0, 0, 1);
+        assertSame(grid, model.getGrid());
+    }
+
+    // Tests that custom boards stay capped at 30x30 / 150 mines by default
+    @Test
+    public void testCustomLimitsWithoutLargeBoardMode() {
+        model.setCustomRows(31);
+        model.setCustomColumns(31);
+        model.setCustomMines(151);
+        model.setDifficulty("custom");
+        assertEquals(10, model.getNumMines());
+        assertTrue(model.startGame());
+        assertEquals(9, model.getExposed().length);
+    }
+
+    // Tests that large-board mode allows big boards and dense mine counts
+    @Test
+    public void testLargeBoardMode() {
+        model.setLargeBoardMode(true);
+        model.setCustomRows(500);
+        model.setCustomColumns(400);
+        model.setCustomMines(50000);
+        model.setDifficulty("custom");
+        assertTrue(model.startGame());
+        assertEquals(50000, model.getNumMines());
+        assertEquals(500, model.getGrid().length);
+        assertEquals(400, model.getGrid()[0].length);
+    }
+
+    // Tests that one click opens a large board without overflowing the stack
+    @Test
+    public void testLargeBoardCascade() {
+        model.setLargeBoardMode(true);
+        model.setCustomRows(2000);
+        model.setCustomColumns(2000);
+        model.setCustomMines(1);
+        model.setDifficulty("custom");
+        model.startGame();
+        model.pressTile(0, 0, 1);
+        if (!model.playerWon())
+            model.pressTile(1999, 1999, 1);
+        assertTrue(model.playerWon());
+        assertFalse(model.playerLost());
+    }
+
+    // Tests that the progress counters follow exposed tiles and flags
+    @Test
+    public void testProgress() {
+        model.setCustomRows(2);
+        model.setCustomColumns(2);
+        model.setCustomMines(1);
+        model.setDifficulty("custom");
+        model.startGame();
+        assertEquals(3, model.getSafeTilesRemaining());
+        assertEquals(0.0, model.getPercentCleared(), 1e-9);
+
+        String[][] grid = model.getGrid();
+        int pressed = 0;
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 2; j++) {
+                if (!"M".equals(grid[i][j])) {
+                    // Flagging and unflagging a safe tile does not count as progress
+                    model.tileFlagged(true, i, j);
+                    model.tileFlagged(false, i, j);
+                    model.tilePressed(i, j, 1);
+                    pressed++;
+                    assertEquals(3 - pressed, model.getSafeTilesRemaining());
+                    assertEquals(100.0 * pressed / 3, model.getPercentCleared(), 1e-9);
+                }
+            }
+        }
+        assertTrue(model.playerWon());
+    }
+
+    // Tests that tilePressedChanges lists exactly the tiles a press exposed,
+    // with their values
+    @Test
+    public void testTilePressedChanges() {
+        model.setDifficulty("intermediate");
+        model.startGame();
+        String[][] grid = model.getGrid();
+        int cols = grid[0].length;
+        for (int press = 0; press < 20 && !model.playerLost() && !model.playerWon(); press++) {
+            boolean[][] before = copy(model.getExposed());
+            int row = (press * 7) % grid.length;
+            int col = (press * 11) % cols;
+            int[] changes = model.tilePressedChanges(row, col, 1);
+            boolean[][] after = model.getExposed();
+
+            boolean[][] listed = new boolean[grid.length][cols];
+            for (int change : changes) {
+                int cell = change >>> ControllerToModel.DELTA_VALUE_BITS;
+                int value = change & ControllerToModel.DELTA_VALUE_MASK;
+                int r = cell / cols;
+                int c = cell % cols;
+                assertFalse(listed[r][c]);
+                listed[r][c] = true;
+                String text = value == ControllerToModel.DELTA_MINE ? "M" : value == 0 ? " " : "" + value;
+                assertEquals(grid[r][c], text);
+            }
+            for (int i = 0; i < grid.length; i++)
+                for (int j = 0; j < cols; j++)
+                    assertEquals(after[i][j] && !before[i][j], listed[i][j]);
+        }
+    }
+
+    private static boolean[][] copy(boolean[][] matrix) {
+        boolean[][] copy = new boolean[matrix.length][];
+        for (int i = 0; i < matrix.length; i++)
+            copy[i] = matrix[i].clone();
+        return copy;
+    }
+
+    // Tests that the same seed gives the same boards, and that models
+    // created at the same time without a seed do not
+    @Test
+    public void testSeededBoards() {
+        Model other = new Model();
+        model.setDifficulty("expert");
+        other.setDifficulty("expert");
+        model.setSeed(1234);
+        other.setSeed(1234);
+        for (int game = 0; game < 3; game++) {
+            model.startGame();
+            other.startGame();
+            assertArrayEquals(model.getGrid(), other.getGrid());
+        }
+
+        Model first = new Model();
+        Model second = new Model();
+        first.setDifficulty("expert");
+        second.setDifficulty("expert");
+        first.startGame();
+        second.startGame();
+        assertFalse(java.util.Arrays.deepEquals(first.getGrid(), second.getGrid()));
+    }
+
+    // Tests that the first press never hits a mine in first-click-safe mode,
+    // even on a board that is almost all mines, and the numbers still match
+    @Test
+    public void testFirstClickSafe() {
+        model.setCustomRows(3);
+        model.setCustomColumns(3);
+        model.setCustomMines(8);
+        model.setDifficulty("custom");
+        model.setFirstClickSafe(true);
+        model.setSeed(99);
+        for (int game = 0; game < 200; game++) {
+            model.startGame();
+            String[][] grid = model.getGrid();
+            model.tilePressed(game % 3, (game / 3) % 3, 1);
+            assertFalse(model.playerLost());
+            assertSame(grid, model.getGrid());
+            assertEquals(8, checkGridNumbers(grid));
+        }
+    }
+
+    // Tests that in first-click-safe mode the boards are still uniform:
+    // 2 mines on a 2x2 board, first press at (0,0), 3 equally likely boards
+    @Test
+    public void testFirstClickSafeUniform() {
+        model.setCustomRows(2);
+        model.setCustomColumns(2);
+        model.setCustomMines(2);
+        model.setDifficulty("custom");
+        model.setFirstClickSafe(true);
+        model.setSeed(5);
+        int trials = 30000;
+        int[] seen = new int[3];
+        for (int t = 0; t < trials; t++) {
+            model.startGame();
+            model.tilePressed(0, 0, 1);
+            String[][] grid = model.getGrid();
+            assertNotEquals("M", grid[0][0]);
+            // The safe tile other than (0,0)
+            if (!"M".equals(grid[0][1]))
+                seen[0]++;
+            else if (!"M".equals(grid[1][0]))
+                seen[1]++;
+            else
+                seen[2]++;
+        }
+        double expected = trials / 3.0;
+        double chi2 = 0;
+        for (int count : seen)
+            chi2 += (count - expected) * (count - expected) / expected;
+        assertTrue("chi2=" + chi2, chi2 < 13.82); // 2 degrees of freedom, p = 0.001
+    }
+
+    // Tests that starting a new game on the same model forgets the last game's loss
+    @Test
+    public void testStartGameAfterLoss() {
+        model.setMinePlacementStrategy((board, count, rng) -> board.setMine(0, true));
+        model.newGame(3, 3, 1);
+        model.pressTile(0, 0, 0);
+        assertEquals(GameStatus.LOST, model.getStatus());
+        model.startGame();
+        assertNotEquals(GameStatus.LOST, model.getStatus());
+        assertFalse(model.playerWon());
+        model.pressTile(2, 2, 0);
+        assertEquals(GameStatus.WON, model.getStatus());
+    }
+
+    // Tests that the first click's mine finds the one free tile of a full large board
+    @Test
+    public void testFirstClickSafeDenseBoard() {
+        int size = 3000;
+        model.setLargeBoardMode(true);
+        model.setFirstClickSafe(true);
+        model.setMinePlacementStrategy((board, count, rng) -> {
+            board.setAllMines();
+            board.setMine(board.size() - 1, false);
+        });
+        model.newGame(size, size, size * size - 1);
+        long start = System.nanoTime();
+        model.pressTile(0, 0, 0);
+        assertTrue("first click took too long", System.nanoTime() - start < 1_000_000_000L);
+        assertEquals(GameStatus.WON, model.getStatus());
+        assertEquals(3, model.getVisibleValue(0, 0));
+    }
+
+    // Tests that moving the first click's mine onto a flagged safe tile,
+    // or off a flagged click, keeps the win check right: the game is won
+    // exactly when every safe tile is exposed or flagged
+    @Test
+    public void testFirstClickSafeFlagged() {
+        model.setFirstClickSafe(true);
+        model.setMinePlacementStrategy((board, count, rng) -> {
+            for (int cell = 0; cell < count; cell++)
+                board.setMine(cell, true);
+        });
+        for (int mines = 7; mines <= 8; mines++) {
+            for (int seed = 0; seed < 20; seed++) {
+                for (int flagClick = 0; flagClick < 2; flagClick++) {
+                    model.setSeed(seed);
+                    model.newGame(3, 3, mines);
+                    model.tileFlagged(true, 2, 2);
+                    if (flagClick == 1)
+                        model.tileFlagged(true, 0, 0);
+                    model.pressTile(0, 0, 0);
+                    String[][] grid = model.getGrid();
+                    boolean cleared = true;
+                    for (int i = 0; i < 3; i++)
+                        for (int j = 0; j < 3; j++)
+                            if (!"M".equals(grid[i][j]) && model.getVisibleValue(i, j) == GameEngine.HIDDEN)
+                                cleared = false;
+                    assertEquals(cleared ? GameStatus.WON : GameStatus.PLAYING, model.getStatus());
+                }
+            }
+        }
+    }
+
+    // Tests that a cascade reaches listeners in small chunks, while
+    // tilePressedChanges still returns all of it
+    @Test
+    public void testCascadeChanges() {
+        int[] calls = new int[3]; // calls, cells, largest call
+        model.addGameListener(new GameListener() {
+            public void gameStarted(GameEngine engine) { }
+            public void tilesExposed(GameEngine engine, int[] cells, int count) {
+                calls[0]++;
+                calls[1] += count;
+                calls[2] = Math.max(calls[2], count);
+            }
+            public void tileFlagged(GameEngine engine, int cell, boolean flagged) { }
+        });
+        model.setMinePlacementStrategy((board, count, rng) -> board.setMine(0, true));
+        model.newGame(30, 30, 1);
+        model.pressTile(29, 29, 0);
+        assertEquals(GameStatus.WON, model.getStatus());
+        assertEquals(899, calls[1]);
+        assertTrue(calls[0] > 1);
+        assertTrue(calls[2] <= 64);
+
+        model.startGame();
+        assertEquals(899, model.tilePressedChanges(29, 29, 0).length);
+    }
 }
@@ -0,0 +1,39 @@
+//result of a press or chord made through a GameEngine
+public class MoveResult {
+
+    private final GameStatus status;
+    private final int[] changes;
+    private final int extraLivesLeft;
+
+    public MoveResult(GameStatus status, int[] changes, int extraLivesLeft)
+    {
+        this.status = status;
+        this.changes = changes;
+        this.extraLivesLeft = extraLivesLeft;
+    }
+
+    //status of the game after the move
+    public GameStatus getStatus()
+    {
+        return status;
+    }
+
+    //tiles the move exposed, encoded like ControllerToModel.tilePressedChanges:
+    //(cell index << DELTA_VALUE_BITS) | value
+    public int[] getChanges()
+    {
+        return changes;
+    }
+
+    //number of tiles the move exposed
+    public int getChangedCount()
+    {
+        return changes.length;
+    }
+
+    //extra lives left after the move (-1 if not playing with extra lives)
+    public int getExtraLivesLeft()
+    {
+        return extraLivesLeft;
+    }
+}
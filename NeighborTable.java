@@ -0,0 +1,121 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* The neighbors of every cell of a board size, in compressed rows: the
+ * neighbors of cell are get(j) for j from start(cell) to end(cell)-1, in
+ * row-major order and already clamped to the board, so a neighbor loop
+ * needs no offsets, bounds checks or allocation.
+ * Tables never change once built and are shared: forBoard returns the
+ * same table for the same size while it is among the sizes used last.
+ * A table costs about 36 bytes per cell, so sizes over MAX_CELLS cells
+ * (large-board games) have none and keep their own loops. */
+public final class NeighborTable {
+
+    // Largest board (in cells) a table is built for
+    public static final int MAX_CELLS = 1<<18;
+    // Number of board sizes kept
+    private static final int CACHE_SIZE = 8;
+
+    private static final Map<Long,NeighborTable> CACHE = new LinkedHashMap<Long,NeighborTable>(16,0.75f,true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long,NeighborTable> eldest)
+        {
+            return size()>CACHE_SIZE;
+        }
+    };
+
+    private final int rows;
+    private final int cols;
+    private final int[] start;
+    private final int[] neighbors;
+
+    private NeighborTable(int rows, int cols)
+    {
+        this.rows = rows;
+        this.cols = cols;
+        int cells = rows*cols;
+        start = new int[cells+1];
+        // Sum over the cells of the clamped 3x3 block sizes, less the cells
+        neighbors = new int[(3*rows-2)*(3*cols-2)-cells];
+        int used = 0;
+        for(int row = 0;row<rows;row++)
+        {
+            for(int col = 0;col<cols;col++)
+            {
+                start[row*cols+col] = used;
+                for(int r = Math.max(row-1,0);r<=Math.min(row+1,rows-1);r++)
+                    for(int c = Math.max(col-1,0);c<=Math.min(col+1,cols-1);c++)
+                        if(r!=row || c!=col)
+                            neighbors[used++] = r*cols+c;
+            }
+        }
+        start[cells] = used;
+    }
+
+    // True if a rows x cols board is small enough to have a table
+    public static boolean fits(int rows, int cols)
+    {
+        return rows>=1 && cols>=1 && (long)rows*cols<=MAX_CELLS;
+    }
+
+    // The shared table for a rows x cols board
+    public static NeighborTable forBoard(int rows, int cols)
+    {
+        if(!fits(rows,cols))
+            throw new IllegalArgumentException("No neighbor table for a "+rows+" x "+cols+" board");
+        Long key = ((long)rows<<32) | cols;
+        synchronized(CACHE)
+        {
+            NeighborTable table = CACHE.get(key);
+            if(table==null)
+            {
+                table = new NeighborTable(rows,cols);
+                CACHE.put(key,table);
+            }
+            return table;
+        }
+    }
+
+    // The neighbors of cell on a rows x cols board of any size, in the
+    // order a table lists them, into into[0..7]; returns how many. For
+    // boards too large to have a table.
+    public static int around(int rows, int cols, int cell, int[] into)
+    {
+        int row = cell/cols;
+        int col = cell-row*cols;
+        int count = 0;
+        for(int r = Math.max(row-1,0);r<=Math.min(row+1,rows-1);r++)
+            for(int c = Math.max(col-1,0);c<=Math.min(col+1,cols-1);c++)
+                if(r!=row || c!=col)
+                    into[count++] = r*cols+c;
+        return count;
+    }
+
+    public int getRows()
+    {
+        return rows;
+    }
+
+    public int getCols()
+    {
+        return cols;
+    }
+
+    // First slot of the neighbors of cell
+    public int start(int cell)
+    {
+        return start[cell];
+    }
+
+    // One past the last slot of the neighbors of cell
+    public int end(int cell)
+    {
+        return start[cell+1];
+    }
+
+    // The neighbor in slot j
+    public int get(int j)
+    {
+        return neighbors[j];
+    }
+}
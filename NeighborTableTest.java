@@ -0,0 +1,43 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/* Tests for the shared neighbor tables */
+public class NeighborTableTest {
+
+    // Compares every cell's neighbors with the clamped 3x3 block around
+    // it, on boards with one row or column, small boards and expert
+    @Test
+    public void testMatchesBlock() {
+        int[][] sizes = {{1, 1}, {1, 5}, {4, 1}, {2, 2}, {3, 7}, {16, 30}};
+        for (int[] size : sizes) {
+            int rows = size[0];
+            int cols = size[1];
+            NeighborTable table = NeighborTable.forBoard(rows, cols);
+            for (int cell = 0; cell < rows * cols; cell++) {
+                int row = cell / cols;
+                int col = cell % cols;
+                int j = table.start(cell);
+                for (int r = row - 1; r <= row + 1; r++)
+                    for (int c = col - 1; c <= col + 1; c++)
+                        if (r >= 0 && c >= 0 && r < rows && c < cols && (r != row || c != col))
+                            assertEquals(r * cols + c, table.get(j++));
+                assertEquals(table.end(cell), j);
+            }
+        }
+    }
+
+    // Tests that boards of the same size share one table
+    @Test
+    public void testShared() {
+        assertSame(NeighborTable.forBoard(16, 30), NeighborTable.forBoard(16, 30));
+        assertNotSame(NeighborTable.forBoard(16, 30), NeighborTable.forBoard(30, 16));
+    }
+
+    // Tests that boards too large for a table are refused
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLarge() {
+        assertTrue(NeighborTable.fits(512, 512));
+        assertFalse(NeighborTable.fits(513, 512));
+        NeighborTable.forBoard(10000, 10000);
+    }
+}
@@ -0,0 +1,323 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Generates boards that can be cleared from a given first click by logic
+ * alone, with no guess. Random candidates, with no mine on or (where the
+ * mine count allows) around the first click, are searched on every worker
+ * thread at once. Each candidate is checked by replaying the game on its
+ * own visible state: the frontier solver's safe tiles are exposed, with
+ * cascades, until every safe tile is; when the frontier is stuck, the
+ * endgame solver may still prove tiles safe from the mine count. A
+ * candidate that needs a guess is dropped. The first worker to find a
+ * board stops the others.
+ *
+ * The search gives up at the deadline and generate() returns null, and
+ * the caller then uses an ordinary board (Model keeps the first click
+ * safe). Boards too large for a NeighborTable are never searched. The
+ * boards are drawn from the generator's own random streams, so they are
+ * not repeatable from a model's seed.
+ *
+ * Run with java NoGuessGenerator [boards] [deadline ms] to measure the
+ * generation time per difficulty. */
+public class NoGuessGenerator {
+
+    public static final long DEFAULT_DEADLINE_MILLIS = 1000;
+
+    private final ExecutorService workers;
+    private final int threads;
+    private volatile long deadlineMillis = DEFAULT_DEADLINE_MILLIS;
+    private final SplittableRandom random = new SplittableRandom();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder generationNanos = new LongAdder();
+
+    public static void main(String[] args)
+    {
+        int boards = args.length>0 ? Integer.parseInt(args[0]) : 50;
+        NoGuessGenerator generator = new NoGuessGenerator();
+        if(args.length>1)
+            generator.setDeadlineMillis(Long.parseLong(args[1]));
+        System.out.println(boards+" boards per difficulty on "+generator.threads+" threads, deadline "
+                +generator.getDeadlineMillis()+" ms");
+        int[][] settings = {{9,9,10},{16,16,40},{16,30,99}};
+        String[] names = {"beginner","intermediate","expert"};
+        for(int d = 0;d<settings.length;d++)
+        {
+            NoGuessGenerator measured = new NoGuessGenerator(generator.workers,generator.threads);
+            measured.setDeadlineMillis(generator.getDeadlineMillis());
+            int rows = settings[d][0];
+            int cols = settings[d][1];
+            long slowest = 0;
+            for(int i = 0;i<boards;i++)
+            {
+                long start = System.nanoTime();
+                measured.generate(rows,cols,settings[d][2],rows/2,cols/2);
+                slowest = Math.max(slowest,System.nanoTime()-start);
+            }
+            System.out.printf("  %-14s mean %8.2f ms  max %8.2f ms  %8.1f candidates per board  %d fallbacks%n",
+                    names[d],measured.getMeanMillis(),slowest/1e6,
+                    (double)measured.getCandidates()/measured.getRequests(),measured.getFallbacks());
+        }
+        generator.workers.shutdownNow();
+    }
+
+    // A generator searching on one daemon thread per processor
+    public NoGuessGenerator()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public NoGuessGenerator(int threads)
+    {
+        this(Executors.newFixedThreadPool(threads,runnable -> {
+            Thread thread = new Thread(runnable,"no-guess");
+            thread.setDaemon(true);
+            return thread;
+        }),threads);
+    }
+
+    // A generator running threads searches at a time on the given workers
+    NoGuessGenerator(ExecutorService workers, int threads)
+    {
+        if(threads<1)
+            throw new IllegalArgumentException("Need at least one search thread");
+        this.workers = workers;
+        this.threads = threads;
+    }
+
+    // Time a search may take before generate() gives up
+    public void setDeadlineMillis(long millis)
+    {
+        if(millis<0)
+            throw new IllegalArgumentException("Deadline must not be negative");
+        deadlineMillis = millis;
+    }
+
+    public long getDeadlineMillis()
+    {
+        return deadlineMillis;
+    }
+
+    // A board (mines placed, numbers counted, nothing exposed) that can be
+    // cleared by logic from a first click on (row, col), or null if none
+    // was found by the deadline
+    public Board generate(int rows, int cols, int mines, int row, int col)
+    {
+        long start = System.nanoTime();
+        requests.increment();
+        Board board = null;
+        if(NeighborTable.fits(rows,cols) && mines>=1 && mines<rows*cols
+                && row>=0 && col>=0 && row<rows && col<cols)
+            board = search(rows,cols,mines,row*cols+col);
+        if(board==null)
+            fallbacks.increment();
+        generationNanos.add(System.nanoTime()-start);
+        return board;
+    }
+
+    // Boards asked for
+    public long getRequests()
+    {
+        return requests.sum();
+    }
+
+    // Boards not found by the deadline
+    public long getFallbacks()
+    {
+        return fallbacks.sum();
+    }
+
+    // Candidates checked, over all boards asked for
+    public long getCandidates()
+    {
+        return candidates.sum();
+    }
+
+    // Mean time generate() took, fallbacks included
+    public double getMeanMillis()
+    {
+        long count = requests.sum();
+        return count==0 ? 0 : generationNanos.sum()/1e6/count;
+    }
+
+    // Runs the workers until one finds a board or the deadline passes
+    private Board search(int rows, int cols, int mines, int first)
+    {
+        long deadline = System.nanoTime()+TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        AtomicReference<Board> found = new AtomicReference<Board>();
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+        for(int t = 0;t<threads;t++)
+        {
+            SplittableRandom stream = stream();
+            workers.execute(() -> {
+                Board board = new Candidates(rows,cols,mines,first,stream).find(stop,deadline);
+                if(board!=null && found.compareAndSet(null,board))
+                    done.countDown();
+            });
+        }
+        try
+        {
+            done.await(Math.max(deadline-System.nanoTime(),0),TimeUnit.NANOSECONDS);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        stop.set(true);
+        return found.get();
+    }
+
+    private SplittableRandom stream()
+    {
+        synchronized(random)
+        {
+            return random.split();
+        }
+    }
+
+    /* One worker's search: draws candidates and replays each, with solvers
+     * and state of its own. */
+    private class Candidates {
+
+        private final int rows;
+        private final int cols;
+        private final int mines;
+        private final int first;
+        private final SplittableRandom stream;
+        private final NeighborTable neighbors;
+        private final FrontierSolver frontier = new FrontierSolver();
+        private final EndgameSolver endgame = new EndgameSolver();
+        // Cells a mine may go on, kept shuffled from one candidate to the
+        // next (any order of them samples uniformly)
+        private final int[] allowed;
+        private final int[] visible;
+        private final IntQueue cascade = new IntQueue();
+        private int safeLeft;
+
+        Candidates(int rows, int cols, int mines, int first, SplittableRandom stream)
+        {
+            this.rows = rows;
+            this.cols = cols;
+            this.mines = mines;
+            this.first = first;
+            this.stream = stream;
+            neighbors = NeighborTable.forBoard(rows,cols);
+            int cells = rows*cols;
+            visible = new int[cells];
+            // Keep the first click's neighbors clear too, so it opens an
+            // area, when the mines leave room for that
+            boolean opening = mines<=cells-1-(neighbors.end(first)-neighbors.start(first));
+            boolean[] excluded = new boolean[cells];
+            excluded[first] = true;
+            if(opening)
+                for(int j = neighbors.start(first);j<neighbors.end(first);j++)
+                    excluded[neighbors.get(j)] = true;
+            int count = 0;
+            for(int cell = 0;cell<cells;cell++)
+                if(!excluded[cell])
+                    count++;
+            allowed = new int[count];
+            count = 0;
+            for(int cell = 0;cell<cells;cell++)
+                if(!excluded[cell])
+                    allowed[count++] = cell;
+        }
+
+        // The first candidate that needs no guess, or null once stopped or
+        // out of time
+        Board find(AtomicBoolean stop, long deadline)
+        {
+            while(!stop.get() && System.nanoTime()<deadline)
+            {
+                Board board = candidate();
+                candidates.increment();
+                if(solvable(board,stop))
+                    return board;
+            }
+            return null;
+        }
+
+        // A random board with the mines on allowed cells (partial
+        // Fisher-Yates)
+        private Board candidate()
+        {
+            Board board = new Board(rows,cols);
+            for(int i = 0;i<mines;i++)
+            {
+                int j = i+stream.nextInt(allowed.length-i);
+                int cell = allowed[j];
+                allowed[j] = allowed[i];
+                allowed[i] = cell;
+                board.setMine(cell,true);
+            }
+            board.computeCounts();
+            return board;
+        }
+
+        // Replays the game from the first click with deductions only
+        private boolean solvable(Board board, AtomicBoolean stop)
+        {
+            java.util.Arrays.fill(visible,GameEngine.HIDDEN);
+            safeLeft = rows*cols-mines;
+            expose(board,first);
+            while(safeLeft>0)
+            {
+                if(stop.get())
+                    return false;
+                frontier.solve(rows,cols,visible);
+                int safe = frontier.getSafeCount();
+                // Proven mines are flagged, so later solves start from them
+                for(int i = 0;i<frontier.getMineCount();i++)
+                    visible[frontier.getMineCell(i)] = GameEngine.FLAGGED;
+                if(safe>0)
+                {
+                    for(int i = 0;i<safe;i++)
+                        expose(board,frontier.getSafeCell(i));
+                    continue;
+                }
+                // Stuck on the frontier: the mine count may still decide
+                if(!endgame.solve(rows,cols,visible,mines) || endgame.getSafeCount()==0)
+                    return false;
+                for(int i = 0;i<endgame.getSafeCount();i++)
+                    expose(board,endgame.getSafeCell(i));
+            }
+            return true;
+        }
+
+        // Exposes a safe cell, and the area around it if it is empty
+        private void expose(Board board, int cell)
+        {
+            if(visible[cell]!=GameEngine.HIDDEN)
+                return;
+            cascade.clear();
+            visible[cell] = board.getCount(cell);
+            safeLeft--;
+            cascade.add(cell);
+            while(!cascade.isEmpty())
+            {
+                int next = cascade.poll();
+                if(visible[next]!=0)
+                    continue;
+                for(int j = neighbors.start(next);j<neighbors.end(next);j++)
+                {
+                    int around = neighbors.get(j);
+                    if(visible[around]==GameEngine.HIDDEN)
+                    {
+                        visible[around] = board.getCount(around);
+                        safeLeft--;
+                        cascade.add(around);
+                    }
+                }
+            }
+        }
+    }
+}
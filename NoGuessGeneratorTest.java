@@ -0,0 +1,105 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/* Tests for NoGuessGenerator */
+public class NoGuessGeneratorTest {
+
+    // Tests that a generated board has its mines away from the first click
+    @Test
+    public void testBoard() {
+        NoGuessGenerator generator = new NoGuessGenerator(2);
+        Board board = generator.generate(16, 30, 99, 3, 4);
+        assertNotNull(board);
+        int mines = 0;
+        for (int cell = 0; cell < board.size(); cell++)
+            if (board.isMine(cell))
+                mines++;
+        assertEquals(99, mines);
+        for (int r = 2; r <= 4; r++)
+            for (int c = 3; c <= 5; c++)
+                assertFalse(board.isMine(board.index(r, c)));
+        assertEquals(0, board.getCount(board.index(3, 4)));
+        assertEquals(1, generator.getRequests());
+        assertTrue(generator.getCandidates() >= 1);
+    }
+
+    // Tests that games on generated boards are won by deductions alone
+    @Test
+    public void testSolvableWithoutGuessing() {
+        Model model = new Model();
+        model.setNoGuessGenerator(new NoGuessGenerator(2));
+        SolverSession session = new SolverSession(model);
+        EndgameSolver endgame = new EndgameSolver();
+        for (int game = 0; game < 10; game++) {
+            model.newGame("expert");
+            model.pressTile(8, 15, 0);
+            while (model.getStatus() == GameStatus.PLAYING) {
+                session.solve();
+                int cell;
+                if (session.getSafeCount() > 0)
+                    cell = session.getSafeCell(0);
+                else {
+                    assertTrue("needs a guess", endgame.solve(model) && endgame.getSafeCount() > 0);
+                    cell = endgame.getSafeCell(0);
+                }
+                model.pressTile(cell / 30, cell % 30, 0);
+            }
+            assertEquals(GameStatus.WON, model.getStatus());
+        }
+        assertEquals(0, model.getNoGuessGenerator().getFallbacks());
+    }
+
+    // Tests that an ordinary board with a safe first click is played when
+    // the deadline passes
+    @Test
+    public void testFallback() {
+        NoGuessGenerator generator = new NoGuessGenerator(1);
+        generator.setDeadlineMillis(0);
+        assertNull(generator.generate(16, 30, 99, 0, 0));
+        assertEquals(1, generator.getFallbacks());
+        Model model = new Model();
+        model.setNoGuessGenerator(generator);
+        for (int game = 0; game < 20; game++) {
+            model.newGame(4, 4, 15);
+            model.pressTile(1, 1, 0);
+            assertEquals(GameStatus.WON, model.getStatus());
+        }
+    }
+
+    // Tests that flags placed before the first click stay on the new board
+    // (a cascade exposes a flagged safe tile, so games are played until the
+    // flag is out of its reach)
+    @Test
+    public void testFlagsKept() {
+        Model model = new Model();
+        model.setNoGuessGenerator(new NoGuessGenerator(1));
+        boolean kept = false;
+        for (int game = 0; game < 50 && !kept; game++) {
+            model.newGame("beginner");
+            model.tileFlagged(true, 0, 0);
+            model.pressTile(4, 4, 0);
+            kept = model.getVisibleValue(0, 0) == GameEngine.FLAGGED;
+            if (!kept)
+                assertTrue(model.getVisibleValue(0, 0) >= 0);
+        }
+        assertTrue(kept);
+        model.tileFlagged(false, 0, 0);
+        assertEquals(GameEngine.HIDDEN, model.getVisibleValue(0, 0));
+    }
+
+    // Tests that boards that cannot be searched are left to the caller
+    @Test
+    public void testNotSearched() {
+        NoGuessGenerator generator = new NoGuessGenerator(1);
+        assertNull(generator.generate(1000, 1000, 10, 0, 0));
+        assertNull(generator.generate(9, 9, 10, 9, 0));
+        assertEquals(2, generator.getFallbacks());
+        assertEquals(0, generator.getCandidates());
+    }
+
+    // Tests that the deadline cannot be negative
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeDeadline() {
+        new NoGuessGenerator(1).setDeadlineMillis(-1);
+    }
+}
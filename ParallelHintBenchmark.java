@@ -0,0 +1,154 @@
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/* Scaling benchmark for counting frontier components in parallel.
+ * Builds a fixed corpus of hard positions: plays seeded games on a large
+ * custom board, guessing the safest cell, and keeps the positions whose
+ * probabilities took longest to compute on one thread. Then computes the
+ * probabilities of the whole corpus with ForkJoinPools of 1, 2, 4 and 8
+ * workers, each time with a fresh engine so nothing is cached, checks
+ * that every pool gives the same probabilities, and prints the speedup
+ * over one worker. Speedups are only meaningful on a machine with that
+ * many cores (it prints how many this one has).
+ *
+ * Run with java ParallelHintBenchmark, or pass the pool sizes to try:
+ * java ParallelHintBenchmark 1 2 4 8 16 */
+public class ParallelHintBenchmark {
+
+    private static final int[] DEFAULT_POOLS = {1, 2, 4, 8};
+    private static final long SEED = 13;
+    private static final int ROWS = 40;
+    private static final int COLS = 40;
+    private static final int MINES = 330;
+    private static final int GAMES = 30;
+    private static final int CORPUS = 12;
+    // Long enough that no corpus position is cut off
+    private static final long BUDGET_MILLIS = 60000;
+
+    public static void main(String[] args)
+    {
+        int[] pools = DEFAULT_POOLS;
+        if(args.length>0)
+        {
+            pools = new int[args.length];
+            for(int i = 0;i<args.length;i++)
+                pools[i] = Integer.parseInt(args[i]);
+        }
+        System.out.println(Runtime.getRuntime().availableProcessors()+" cores available");
+        ArrayList<int[]> corpus = hardPositions(GAMES,CORPUS,SEED);
+        System.out.println(corpus.size()+" hard positions on "+ROWS+" x "+COLS+" with "+MINES+" mines");
+
+        double[][] reference = null;
+        double base = 0;
+        for(int workers : pools)
+        {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            for(int i = 0;i<3;i++) // warm up
+                run(corpus,pool);
+            long start = System.nanoTime();
+            double[][] probabilities = run(corpus,pool);
+            double millis = (System.nanoTime()-start)/1e6;
+            pool.shutdown();
+            if(reference==null)
+            {
+                reference = probabilities;
+                base = millis;
+            }
+            boolean same = sameProbabilities(reference,probabilities);
+            System.out.printf("  %2d workers  %9.1f ms  speedup %5.2f  %s%n",
+                    workers,millis,base/millis,same ? "same probabilities" : "DIFFERENT PROBABILITIES");
+            if(!same)
+                System.exit(1);
+        }
+    }
+
+    // Probabilities of every corpus position with a fresh engine on the pool
+    private static double[][] run(ArrayList<int[]> corpus, ForkJoinPool pool)
+    {
+        double[][] probabilities = new double[corpus.size()][];
+        for(int i = 0;i<corpus.size();i++)
+        {
+            ProbabilityEngine engine = new ProbabilityEngine();
+            engine.setPool(pool);
+            engine.setTimeBudget(BUDGET_MILLIS);
+            engine.compute(ROWS,COLS,corpus.get(i),MINES);
+            if(!engine.isExact())
+                throw new IllegalStateException("Corpus position "+i+" was cut off by the budget");
+            probabilities[i] = new double[ROWS*COLS];
+            for(int cell = 0;cell<ROWS*COLS;cell++)
+                probabilities[i][cell] = engine.getProbability(cell);
+        }
+        return probabilities;
+    }
+
+    private static boolean sameProbabilities(double[][] a, double[][] b)
+    {
+        for(int i = 0;i<a.length;i++)
+            for(int cell = 0;cell<a[i].length;cell++)
+                if(Math.abs(a[i][cell]-b[i][cell])>1e-9)
+                    return false;
+        return true;
+    }
+
+    // Plays seeded games with the probability engine on one thread and
+    // keeps the count positions that took longest
+    static ArrayList<int[]> hardPositions(int games, int count, long seed)
+    {
+        Random rng = new Random(seed);
+        ArrayList<int[]> positions = new ArrayList<>();
+        ArrayList<Long> times = new ArrayList<>();
+        for(int game = 0;game<games;game++)
+        {
+            Model model = new Model();
+            model.setSeed(rng.nextLong());
+            model.setFirstClickSafe(true);
+            model.setLargeBoardMode(true);
+            model.newGame(ROWS,COLS,MINES);
+            model.press(ROWS/2,COLS/2);
+            ProbabilityEngine engine = new ProbabilityEngine();
+            engine.setTimeBudget(BUDGET_MILLIS);
+            while(model.getStatus()==GameStatus.PLAYING)
+            {
+                int[] visible = SolverBenchmark.visibleState(model);
+                FrontierSolver solver = engine.getSolver();
+                solver.solve(ROWS,COLS,visible);
+                if(solver.getSafeCount()>0)
+                {
+                    for(int i = 0;i<solver.getSafeCount() && model.getStatus()==GameStatus.PLAYING;i++)
+                        model.press(solver.getSafeCell(i)/COLS,solver.getSafeCell(i)%COLS);
+                    continue;
+                }
+                // Time the count without the cache, as the corpus is run
+                ProbabilityEngine timed = new ProbabilityEngine();
+                timed.setTimeBudget(BUDGET_MILLIS);
+                long start = System.nanoTime();
+                timed.compute(ROWS,COLS,visible,MINES);
+                long time = System.nanoTime()-start;
+                keepSlowest(positions,times,visible,time,count);
+                int cell = timed.getSafestCell();
+                model.press(cell/COLS,cell%COLS);
+            }
+        }
+        return positions;
+    }
+
+    private static void keepSlowest(ArrayList<int[]> positions, ArrayList<Long> times, int[] visible, long time, int count)
+    {
+        if(positions.size()<count)
+        {
+            positions.add(visible);
+            times.add(time);
+            return;
+        }
+        int fastest = 0;
+        for(int i = 1;i<times.size();i++)
+            if(times.get(i)<times.get(fastest))
+                fastest = i;
+        if(time>times.get(fastest))
+        {
+            positions.set(fastest,visible);
+            times.set(fastest,time);
+        }
+    }
+}
@@ -3,9 +3,12 @@ public class PlayMinesweeper {
 
     public static void main(String[] args)
     {
-        Controller myController = new Controller();
-        if(myController!=null)
-            myController.go();
+        // The GUI is one client of the headless game engine (Model)
+        Model model = new Model();
+        // Boards are generated in the background, so Play does not wait
+        model.setBoardPool(new BoardPool());
+        Controller myController = new Controller(model);
+        myController.go();
     }
 }
 
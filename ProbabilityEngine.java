@@ -0,0 +1,716 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/* Exact mine probability for every hidden cell, for when no move is
+ * certain.
+ * Starts from a FrontierSolver: cells it settled are 0 or 1. The frontier
+ * cells it could not settle are split again into independent components
+ * (linked through constraints that still have undecided cells), and every
+ * mine layout of each component is enumerated by backtracking, counting
+ * layouts by their number of mines. The cells away from the frontier (the
+ * interior) are unconstrained, so with U interior cells and R mines left
+ * for them a layout of the frontier weighs C(U, R). Combining the
+ * components with those weights gives the exact probability of every cell
+ * under the total mine count.
+ *
+ * Component results are memoized, so components that did not change since
+ * the last call (usually all but one or two) are not enumerated again.
+ * Components are counted by ComponentCounter; with a ForkJoinPool set,
+ * independent components and the first branches of large ones are counted
+ * in parallel and their counts added together.
+ * Enumeration stops at a time budget; components not finished by then get
+ * an estimate from their constraints and isExact() returns false. */
+public class ProbabilityEngine {
+
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 40;
+    // Components with more undecided cells than this are only estimated
+    private static final int MAX_EXACT_CELLS = 2000;
+    private static final int CACHE_SIZE = 256;
+
+    private final FrontierSolver solver;
+    private long budgetNanos = DEFAULT_TIME_BUDGET_MILLIS*1000000L;
+    private long deadline;
+    private boolean exact;
+    private boolean globalCountUsed;
+
+    private double[] probability = new double[0];
+    private int cells;
+    private int safestCell = -1;
+    private double interiorProbability;
+    // Neighbors of the cell being checked by isFrontier
+    private final int[] around = new int[8];
+
+    // Undecided variables, grouped into components
+    private int[] parent = new int[64];
+    private int[] compOf = new int[64];
+    private int[] compStart = new int[65];
+    private int[] compVars = new int[64];
+    private int[] localIndex = new int[64];
+    private int componentCount;
+
+    // Enumeration state of the current component (local variable indices)
+    private int n;
+    private int[] lConStart = new int[65];
+    private int[] lConVars = new int[512];
+    private int[] lConNeed = new int[64];
+    private int[] lVarConStart = new int[65];
+    private int[] lVarCons = new int[512];
+    private int localConCount;
+
+    // Pool for counting components in parallel, null to count on the
+    // calling thread
+    private ForkJoinPool pool;
+
+    private final Map<Key,ComponentCounter.Counts> cache = new LinkedHashMap<Key,ComponentCounter.Counts>(16,0.75f,true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key,ComponentCounter.Counts> eldest)
+        {
+            return size()>CACHE_SIZE;
+        }
+    };
+
+    public ProbabilityEngine()
+    {
+        this(new FrontierSolver());
+    }
+
+    public ProbabilityEngine(FrontierSolver solver)
+    {
+        this.solver = solver;
+    }
+
+    public FrontierSolver getSolver()
+    {
+        return solver;
+    }
+
+    // Time allowed for enumeration in each compute call
+    public void setTimeBudget(long millis)
+    {
+        if(millis<0)
+            throw new IllegalArgumentException("Time budget cannot be negative");
+        budgetNanos = millis*1000000L;
+    }
+
+    public long getTimeBudget()
+    {
+        return budgetNanos/1000000L;
+    }
+
+    // Counts independent components, and the first branches of large ones,
+    // as tasks in the given pool; null counts everything on the calling
+    // thread. The engine itself is still used by one thread at a time.
+    public void setPool(ForkJoinPool pool)
+    {
+        this.pool = pool;
+    }
+
+    public ForkJoinPool getPool()
+    {
+        return pool;
+    }
+
+    // Solves and computes the probabilities for a game being played
+    public void compute(GameEngine engine)
+    {
+        solver.solve(engine);
+        computeSolved(engine.getNumMines());
+    }
+
+    // Solves and computes the probabilities for a visible state (values as
+    // in GameEngine.getVisibleValue) of a board with totalMines mines
+    public void compute(int rows, int cols, int[] visible, int totalMines)
+    {
+        solver.solve(rows,cols,visible);
+        computeSolved(totalMines);
+    }
+
+    // Computes the probabilities for the state the solver last solved
+    public void computeSolved(int totalMines)
+    {
+        deadline = System.nanoTime()+budgetNanos;
+        exact = true;
+        globalCountUsed = true;
+        cells = solver.getRows()*solver.getCols();
+        if(probability.length<cells)
+            probability = new double[cells];
+
+        // Settled cells and what is left for the rest
+        int hidden = 0;
+        int knownMines = 0;
+        for(int cell = 0;cell<cells;cell++)
+        {
+            int value = solver.visibleValue(cell);
+            if(value==GameEngine.HIDDEN)
+                hidden++;
+            else if(value==GameEngine.FLAGGED || value==GameEngine.VISIBLE_MINE)
+                knownMines++;
+            probability[cell] = value==GameEngine.FLAGGED || value==GameEngine.VISIBLE_MINE ? 1 : 0;
+        }
+        for(int i = 0;i<solver.getMineCount();i++)
+            probability[solver.getMineCell(i)] = 1;
+        int frontier = solver.getFrontierSize();
+        int interior = hidden-frontier;
+        int minesLeft = totalMines-knownMines-solver.getMineCount();
+
+        if(!solver.isConsistent())
+        {
+            // No constraint can be trusted; spread the mines evenly
+            exact = false;
+            fillUniform(Math.max(0,totalMines-knownMines),hidden);
+            pickSafest();
+            return;
+        }
+
+        buildComponents();
+        ComponentCounter.Counts[] results = countComponents();
+        double[][] compCounts = new double[componentCount][];
+        double[][] compMineCounts = new double[componentCount][];
+        double approxMines = 0;
+        for(int k = 0;k<componentCount;k++)
+        {
+            ComponentCounter.Counts result = results[k];
+            if(result==null)
+            {
+                approxMines += estimate(k);
+                exact = false;
+            }
+            else
+            {
+                compCounts[k] = result.counts;
+                compMineCounts[k] = result.mineCounts;
+            }
+        }
+        combine(compCounts,compMineCounts,interior,minesLeft-(int)Math.round(approxMines));
+        pickSafest();
+    }
+
+    // Probability that the cell is a mine: 0 for exposed and proven safe
+    // cells, 1 for flagged, exposed and proven mines
+    public double getProbability(int cell)
+    {
+        return probability[cell];
+    }
+
+    public double getProbability(int row, int col)
+    {
+        return probability[row*solver.getCols()+col];
+    }
+
+    // Probability of a mine in each hidden cell away from the frontier
+    public double getInteriorProbability()
+    {
+        return interiorProbability;
+    }
+
+    // The hidden cell least likely to be a mine (lowest index among ties),
+    // or -1 if no cell is hidden. A proven safe cell if there is one.
+    public int getSafestCell()
+    {
+        return safestCell;
+    }
+
+    // False if some component ran out of time (or the flags contradict the
+    // numbers) and its probabilities are estimates
+    public boolean isExact()
+    {
+        return exact;
+    }
+
+    // False if the mines left did not fit the frontier and interior (wrong
+    // flags), so the total mine count was not used
+    public boolean isGlobalCountUsed()
+    {
+        return globalCountUsed;
+    }
+
+    // Groups the undecided variables into components through constraints
+    // that still have undecided variables
+    private void buildComponents()
+    {
+        int vars = solver.getFrontierSize();
+        if(parent.length<vars)
+        {
+            int length = Math.max(vars,parent.length*2);
+            parent = new int[length];
+            compOf = new int[length];
+            compVars = new int[length];
+            localIndex = new int[length];
+            compStart = new int[length+1];
+        }
+        for(int v = 0;v<vars;v++)
+            parent[v] = v;
+        for(int c = 0;c<solver.constraintCount();c++)
+        {
+            int root = -1;
+            for(int i = solver.constraintStart(c);i<solver.constraintStart(c+1);i++)
+            {
+                int v = solver.constraintVar(i);
+                if(!solver.isUndecided(v))
+                    continue;
+                int r = find(v);
+                if(root<0)
+                    root = r;
+                else if(r!=root)
+                    parent[r] = root;
+            }
+        }
+        componentCount = 0;
+        for(int v = 0;v<vars;v++)
+            if(solver.isUndecided(v) && parent[v]==v)
+                compOf[v] = componentCount++;
+        Arrays.fill(compStart,0,componentCount+1,0);
+        for(int v = 0;v<vars;v++)
+        {
+            if(solver.isUndecided(v))
+            {
+                compOf[v] = compOf[find(v)];
+                compStart[compOf[v]+1]++;
+            }
+        }
+        for(int k = 0;k<componentCount;k++)
+            compStart[k+1] += compStart[k];
+        for(int v = 0;v<vars;v++)
+            if(solver.isUndecided(v))
+                compVars[compStart[compOf[v]]++] = v;
+        for(int k = componentCount;k>0;k--)
+            compStart[k] = compStart[k-1];
+        compStart[0] = 0;
+    }
+
+    private int find(int v)
+    {
+        while(parent[v]!=v)
+        {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    // Counts the mine layouts of every component, taking those seen before
+    // from the cache. A component is null if it is too big or its count
+    // ran out of time.
+    private ComponentCounter.Counts[] countComponents()
+    {
+        ComponentCounter.Counts[] results = new ComponentCounter.Counts[componentCount];
+        ComponentCounter[] counters = new ComponentCounter[componentCount];
+        Key[] keys = new Key[componentCount];
+        for(int k = 0;k<componentCount;k++)
+        {
+            if(!buildLocal(k))
+                continue;
+            keys[k] = key();
+            results[k] = cache.get(keys[k]);
+            if(results[k]==null)
+                counters[k] = counter();
+        }
+        if(System.nanoTime()>deadline)
+            return results;
+
+        if(pool==null)
+        {
+            for(int k = 0;k<componentCount;k++)
+                if(counters[k]!=null)
+                    results[k] = counters[k].count();
+        }
+        else
+        {
+            // Every component is a task; large ones split further
+            ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[componentCount];
+            for(int k = 0;k<componentCount;k++)
+                if(counters[k]!=null)
+                    tasks[k] = pool.submit(counters[k].task(pool.getParallelism()));
+            for(int k = 0;k<componentCount;k++)
+                if(tasks[k]!=null)
+                    results[k] = (ComponentCounter.Counts)tasks[k].join();
+        }
+        for(int k = 0;k<componentCount;k++)
+            if(counters[k]!=null && results[k]!=null)
+                cache.put(keys[k],results[k]);
+        return results;
+    }
+
+    // Counter for the component in the local arrays
+    private ComponentCounter counter()
+    {
+        int used = lConStart[localConCount];
+        return new ComponentCounter(n,
+                Arrays.copyOf(lConStart,localConCount+1),
+                Arrays.copyOf(lConVars,used),
+                Arrays.copyOf(lConNeed,localConCount),
+                Arrays.copyOf(lVarConStart,n+1),
+                Arrays.copyOf(lVarCons,used),
+                deadline);
+    }
+
+    // Copies component k into local arrays, ordering its variables by a
+    // breadth-first walk so constraints fill up early in the search.
+    // Returns false if it is too big to enumerate.
+    private boolean buildLocal(int k)
+    {
+        int first = compStart[k];
+        n = compStart[k+1]-first;
+        if(n>MAX_EXACT_CELLS)
+            return false;
+        if(lVarConStart.length<n+1)
+            lVarConStart = new int[Math.max(n+1,lVarConStart.length*2)];
+
+        // Breadth-first order over the component, stored back in compVars
+        for(int i = first;i<first+n;i++)
+            localIndex[compVars[i]] = -1;
+        int[] order = compVars;
+        int head = first;
+        int tail = first+1;
+        int seed = compVars[first];
+        localIndex[seed] = 0;
+        // compVars[first..] is reused as the queue; the displaced entries
+        // are all in the component, so they are found again through links
+        order[first] = seed;
+        while(head<tail)
+        {
+            int v = order[head++];
+            for(int j = solver.variableConstraintStart(v);j<solver.variableConstraintStart(v+1);j++)
+            {
+                int c = solver.variableConstraint(j);
+                for(int i = solver.constraintStart(c);i<solver.constraintStart(c+1);i++)
+                {
+                    int w = solver.constraintVar(i);
+                    if(solver.isUndecided(w) && localIndex[w]<0)
+                    {
+                        localIndex[w] = tail-first;
+                        order[tail++] = w;
+                    }
+                }
+            }
+        }
+
+        // Local constraints: those with undecided variables in this component
+        int conCount = 0;
+        int used = 0;
+        for(int i = first;i<first+n;i++)
+        {
+            int v = order[i];
+            for(int j = solver.variableConstraintStart(v);j<solver.variableConstraintStart(v+1);j++)
+            {
+                int c = solver.variableConstraint(j);
+                // Each constraint is added from its first undecided variable
+                if(firstUndecided(c)!=v)
+                    continue;
+                if(lConNeed.length<=conCount)
+                {
+                    int length = lConNeed.length*2;
+                    lConNeed = Arrays.copyOf(lConNeed,length);
+                    lConStart = Arrays.copyOf(lConStart,length+1);
+                }
+                if(lConVars.length<used+8)
+                    lConVars = Arrays.copyOf(lConVars,lConVars.length*2);
+                lConStart[conCount] = used;
+                for(int x = solver.constraintStart(c);x<solver.constraintStart(c+1);x++)
+                {
+                    int w = solver.constraintVar(x);
+                    if(solver.isUndecided(w))
+                        lConVars[used++] = localIndex[w];
+                }
+                Arrays.sort(lConVars,lConStart[conCount],used);
+                lConNeed[conCount] = solver.constraintMinesLeft(c);
+                conCount++;
+            }
+        }
+        lConStart[conCount] = used;
+        localConCount = conCount;
+
+        // Constraints of each local variable
+        if(lVarCons.length<used)
+            lVarCons = new int[Math.max(used,lVarCons.length*2)];
+        Arrays.fill(lVarConStart,0,n+1,0);
+        for(int i = 0;i<used;i++)
+            lVarConStart[lConVars[i]+1]++;
+        for(int v = 0;v<n;v++)
+            lVarConStart[v+1] += lVarConStart[v];
+        for(int c = 0;c<conCount;c++)
+            for(int i = lConStart[c];i<lConStart[c+1];i++)
+                lVarCons[lVarConStart[lConVars[i]]++] = c;
+        for(int v = n;v>0;v--)
+            lVarConStart[v] = lVarConStart[v-1];
+        lVarConStart[0] = 0;
+        return true;
+    }
+
+    private int firstUndecided(int c)
+    {
+        for(int i = solver.constraintStart(c);i<solver.constraintStart(c+1);i++)
+            if(solver.isUndecided(solver.constraintVar(i)))
+                return solver.constraintVar(i);
+        return -1;
+    }
+
+    // Identifies the local component by its constraints alone: the local
+    // variable numbering comes from the walk, so equal keys mean equal
+    // layouts up to which cells the variables are
+    private Key key()
+    {
+        int used = lConStart[localConCount];
+        int[] data = new int[2+localConCount*2+used];
+        int p = 0;
+        data[p++] = n;
+        data[p++] = localConCount;
+        for(int c = 0;c<localConCount;c++)
+        {
+            data[p++] = lConNeed[c];
+            data[p++] = lConStart[c+1]-lConStart[c];
+        }
+        System.arraycopy(lConVars,0,data,p,used);
+        return new Key(data);
+    }
+
+    // Estimates the cells of component k from their constraints alone (the
+    // mean of mines left / cells left over the constraints of each cell) and
+    // returns the expected number of mines in it
+    private double estimate(int k)
+    {
+        double sum = 0;
+        for(int i = compStart[k];i<compStart[k+1];i++)
+        {
+            int v = compVars[i];
+            double p = 0;
+            int constraints = 0;
+            for(int j = solver.variableConstraintStart(v);j<solver.variableConstraintStart(v+1);j++)
+            {
+                int c = solver.variableConstraint(j);
+                int open = 0;
+                for(int x = solver.constraintStart(c);x<solver.constraintStart(c+1);x++)
+                    if(solver.isUndecided(solver.constraintVar(x)))
+                        open++;
+                p += (double)solver.constraintMinesLeft(c)/open;
+                constraints++;
+            }
+            p /= constraints;
+            probability[solver.variableCell(v)] = p;
+            sum += p;
+        }
+        return sum;
+    }
+
+    // Combines the exact components with the interior under the count of
+    // mines left. weight[j] is C(interior, j) scaled, for j mines in the
+    // interior. after[k][x] is the weight of the components after k and the
+    // interior when x mines are in components 0..k, and before the prefix
+    // convolution of the components before k; probabilities then follow
+    // from one pass per component.
+    private void combine(double[][] compCounts, double[][] compMineCounts, int interior, int minesLeft)
+    {
+        int components = compCounts.length;
+        int total = 0;
+        for(int k = 0;k<components;k++)
+            if(compCounts[k]!=null)
+                total += compCounts[k].length-1;
+
+        double[] weight = interiorWeights(interior,minesLeft,total);
+        double[][] after = weight==null ? null : suffixWeights(compCounts,weight,total);
+        if(after==null || after[0][0]==0)
+        {
+            // The mines left cannot fit: the flags are wrong somewhere
+            globalCountUsed = false;
+            exact = false;
+            weight = new double[total+1];
+            Arrays.fill(weight,1);
+            after = suffixWeights(compCounts,weight,total);
+        }
+
+        double[] before = new double[total+1];
+        before[0] = 1;
+        int beforeMax = 0;
+        for(int k = 0;k<components;k++)
+        {
+            double[] c = compCounts[k];
+            if(c==null)
+                continue;
+            int size = c.length-1;
+            double[] next = after[k+1];
+            // g[m]: weight of everything else when this component has m mines
+            double[] g = new double[size+1];
+            for(int m = 0;m<=size;m++)
+            {
+                double sum = 0;
+                for(int a = 0;a<=beforeMax && a+m<=total;a++)
+                    sum += before[a]*next[a+m];
+                g[m] = sum;
+            }
+            double z = 0;
+            for(int m = 0;m<=size;m++)
+                z += c[m]*g[m];
+            double[] mc = compMineCounts[k];
+            for(int i = compStart[k];i<compStart[k+1];i++)
+            {
+                int local = i-compStart[k];
+                double sum = 0;
+                for(int m = 0;m<=size;m++)
+                    sum += mc[local*(size+1)+m]*g[m];
+                probability[solver.variableCell(localVar(k,local))] = z>0 ? sum/z : 0;
+            }
+
+            double[] grown = new double[total+1];
+            for(int a = 0;a<=beforeMax;a++)
+                if(before[a]!=0)
+                    for(int m = 0;m<=size;m++)
+                        grown[a+m] += before[a]*c[m];
+            before = normalize(grown);
+            beforeMax += size;
+        }
+
+        // Interior: expected mines left over the frontier layouts
+        interiorProbability = 0;
+        if(interior>0)
+        {
+            double z = 0;
+            double sum = 0;
+            for(int x = 0;x<=beforeMax;x++)
+            {
+                double w = before[x]*weight[x];
+                z += w;
+                sum += w*Math.max(0,minesLeft-x)/interior;
+            }
+            interiorProbability = z>0 ? Math.min(1,sum/z) : Math.max(0,Math.min(1,(double)minesLeft/interior));
+            for(int cell = 0;cell<cells;cell++)
+                if(solver.visibleValue(cell)==GameEngine.HIDDEN && !isFrontier(cell))
+                    probability[cell] = interiorProbability;
+        }
+    }
+
+    // after[k][x] for every k, where x counts the mines in the components
+    // before k, and after[components] = weight
+    private static double[][] suffixWeights(double[][] compCounts, double[] weight, int total)
+    {
+        int components = compCounts.length;
+        double[][] after = new double[components+1][];
+        after[components] = weight;
+        for(int k = components-1;k>=0;k--)
+        {
+            double[] next = after[k+1];
+            double[] c = compCounts[k];
+            if(c==null)
+            {
+                after[k] = next;
+                continue;
+            }
+            double[] here = new double[total+1];
+            for(int x = 0;x<=total;x++)
+            {
+                double sum = 0;
+                for(int m = 0;m<c.length && x+m<=total;m++)
+                    sum += c[m]*next[x+m];
+                here[x] = sum;
+            }
+            after[k] = normalize(here);
+        }
+        return after;
+    }
+
+    // Variable of local index i in component k: the walk in buildLocal left
+    // compVars of each component in local order
+    private int localVar(int k, int i)
+    {
+        return compVars[compStart[k]+i];
+    }
+
+    private boolean isFrontier(int cell)
+    {
+        int count = solver.neighborsOf(cell,around);
+        for(int j = 0;j<count;j++)
+        {
+            int value = solver.visibleValue(around[j]);
+            if(value>=0 && value<=8)
+                return true;
+        }
+        return false;
+    }
+
+    // weight[x] = C(interior, minesLeft - x) for x = 0..total mines in the
+    // frontier, scaled so the largest is 1. Null if no x fits.
+    private static double[] interiorWeights(int interior, int minesLeft, int total)
+    {
+        double[] logWeight = new double[total+1];
+        double max = Double.NEGATIVE_INFINITY;
+        // log C(interior, j) relative to j = low, built up by ratios
+        int low = Math.max(0,minesLeft-total);
+        int high = Math.min(interior,minesLeft);
+        if(low>high)
+            return null;
+        double log = 0;
+        Arrays.fill(logWeight,Double.NEGATIVE_INFINITY);
+        for(int j = low;j<=high;j++)
+        {
+            if(j>low)
+                log += Math.log(interior-j+1)-Math.log(j);
+            int x = minesLeft-j;
+            logWeight[x] = log;
+            max = Math.max(max,log);
+        }
+        double[] weight = new double[total+1];
+        for(int x = 0;x<=total;x++)
+            weight[x] = logWeight[x]==Double.NEGATIVE_INFINITY ? 0 : Math.exp(logWeight[x]-max);
+        return weight;
+    }
+
+    private static double[] normalize(double[] values)
+    {
+        double max = 0;
+        for(double v : values)
+            max = Math.max(max,v);
+        if(max>0)
+            for(int i = 0;i<values.length;i++)
+                values[i] /= max;
+        return values;
+    }
+
+    private void fillUniform(int mines, int hidden)
+    {
+        double p = hidden>0 ? Math.min(1,(double)mines/hidden) : 0;
+        for(int cell = 0;cell<cells;cell++)
+            if(solver.visibleValue(cell)==GameEngine.HIDDEN)
+                probability[cell] = p;
+        interiorProbability = p;
+    }
+
+    private void pickSafest()
+    {
+        safestCell = -1;
+        double best = 2;
+        for(int cell = 0;cell<cells;cell++)
+        {
+            if(solver.visibleValue(cell)==GameEngine.HIDDEN && probability[cell]<best)
+            {
+                best = probability[cell];
+                safestCell = cell;
+            }
+        }
+    }
+
+    // Shape of a component: local constraints and their variables
+    private static final class Key {
+        private final int[] data;
+        private final int hash;
+
+        Key(int[] data)
+        {
+            this.data = data;
+            hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return other instanceof Key && Arrays.equals(data,((Key)other).data);
+        }
+    }
+}
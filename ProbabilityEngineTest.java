@@ -0,0 +1,169 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/* Tests for the mine probability engine */
+public class ProbabilityEngineTest {
+
+    private static final int H = GameEngine.HIDDEN;
+
+    // Tests a 50/50 with no interior: the two cells under a 1 are equally
+    // likely and the cell next to them is certain
+    @Test
+    public void testFiftyFifty() {
+        ProbabilityEngine engine = new ProbabilityEngine();
+        engine.compute(2, 2, new int[] {
+                1, 1,
+                H, H}, 1);
+        assertEquals(0.5, engine.getProbability(2), 1e-12);
+        assertEquals(0.5, engine.getProbability(3), 1e-12);
+        assertTrue(engine.isExact());
+    }
+
+    // Tests that the total mine count decides between layouts: with one
+    // mine left the frontier layouts with fewer mines weigh more
+    @Test
+    public void testGlobalCount() {
+        ProbabilityEngine engine = new ProbabilityEngine();
+        // A 1 sees two cells; five interior cells; one mine in total
+        engine.compute(1, 8, new int[] {
+                H, 1, H, H, H, H, H, H}, 1);
+        // The 1 sees cells 0 and 2 and holds the only mine
+        assertEquals(0.5, engine.getProbability(0), 1e-12);
+        assertEquals(0.5, engine.getProbability(2), 1e-12);
+        assertEquals(0, engine.getInteriorProbability(), 1e-12);
+        assertEquals(3, engine.getSafestCell());
+    }
+
+    // Compares the engine with enumerating every mine layout of the hidden
+    // cells, on positions from seeded games
+    @Test
+    public void testMatchesBruteForce() {
+        Random rng = new Random(21);
+        ProbabilityEngine engine = new ProbabilityEngine();
+        int positions = 0;
+        for (int game = 0; game < 300; game++) {
+            int rows = 3 + rng.nextInt(3);
+            int cols = 3 + rng.nextInt(3);
+            int mines = 1 + rng.nextInt(rows * cols / 3);
+            Model model = new Model();
+            model.setSeed(rng.nextLong());
+            model.setFirstClickSafe(true);
+            model.newGame(rows, cols, mines);
+            model.press(rng.nextInt(rows), rng.nextInt(cols));
+            while (model.getStatus() == GameStatus.PLAYING) {
+                int[] visible = SolverBenchmark.visibleState(model);
+                engine.compute(rows, cols, visible, mines);
+                double[] expected = bruteForce(rows, cols, visible, mines);
+                if (expected != null) {
+                    positions++;
+                    assertTrue(engine.isExact());
+                    for (int cell = 0; cell < visible.length; cell++)
+                        if (visible[cell] == H)
+                            assertEquals("cell " + cell, expected[cell], engine.getProbability(cell), 1e-9);
+                }
+                int cell = engine.getSafestCell();
+                model.press(cell / cols, cell % cols);
+            }
+        }
+        assertTrue(positions > 300);
+    }
+
+    // Tests that a zero time budget still gives a safest cell, marked as
+    // an estimate
+    @Test
+    public void testTimeBudget() {
+        Model model = new Model();
+        model.setSeed(8);
+        model.setFirstClickSafe(true);
+        model.newGame("expert");
+        model.press(8, 15);
+        ProbabilityEngine engine = new ProbabilityEngine();
+        engine.setTimeBudget(0);
+        engine.compute(model);
+        assertFalse(engine.isExact());
+        int cell = engine.getSafestCell();
+        assertEquals(GameEngine.HIDDEN, model.getVisibleValue(cell / 30, cell % 30));
+
+        engine.setTimeBudget(ProbabilityEngine.DEFAULT_TIME_BUDGET_MILLIS);
+        engine.compute(model);
+        assertTrue(engine.isExact());
+    }
+
+    // Tests that counting components in a ForkJoinPool, with large
+    // components split into subtasks, gives the same probabilities as
+    // counting them on the calling thread
+    @Test
+    public void testParallelMatchesSequential() {
+        ArrayList<int[]> positions = ParallelHintBenchmark.hardPositions(8, 4, 13);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int[] visible : positions) {
+                ProbabilityEngine sequential = new ProbabilityEngine();
+                sequential.setTimeBudget(60000);
+                sequential.compute(40, 40, visible, 330);
+                ProbabilityEngine parallel = new ProbabilityEngine();
+                parallel.setTimeBudget(60000);
+                parallel.setPool(pool);
+                parallel.compute(40, 40, visible, 330);
+                assertTrue(parallel.isExact());
+                for (int cell = 0; cell < visible.length; cell++)
+                    assertEquals(sequential.getProbability(cell), parallel.getProbability(cell), 1e-9);
+                assertEquals(sequential.getSafestCell(), parallel.getSafestCell());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Probability of a mine in each hidden cell over all layouts of the
+    // hidden cells with the right number of mines that fit the numbers, or
+    // null if there are too many hidden cells to list
+    private static double[] bruteForce(int rows, int cols, int[] visible, int mines) {
+        int[] hidden = new int[visible.length];
+        int count = 0;
+        for (int cell = 0; cell < visible.length; cell++)
+            if (visible[cell] == H)
+                hidden[count++] = cell;
+        if (count > 18)
+            return null;
+        double[] mineLayouts = new double[visible.length];
+        double layouts = 0;
+        boolean[] mine = new boolean[visible.length];
+        for (int layout = 0; layout < 1 << count; layout++) {
+            if (Integer.bitCount(layout) != mines)
+                continue;
+            for (int i = 0; i < count; i++)
+                mine[hidden[i]] = (layout >>> i & 1) != 0;
+            if (!fits(rows, cols, visible, mine))
+                continue;
+            layouts++;
+            for (int i = 0; i < count; i++)
+                if (mine[hidden[i]])
+                    mineLayouts[hidden[i]]++;
+        }
+        for (int i = 0; i < count; i++)
+            mineLayouts[hidden[i]] /= layouts;
+        return mineLayouts;
+    }
+
+    private static boolean fits(int rows, int cols, int[] visible, boolean[] mine) {
+        for (int cell = 0; cell < visible.length; cell++) {
+            if (visible[cell] < 0 || visible[cell] > 8)
+                continue;
+            int row = cell / cols;
+            int col = cell % cols;
+            int count = 0;
+            for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++)
+                for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++)
+                    if (mine[r * cols + c])
+                        count++;
+            if (count != visible[cell])
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,39 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/* Tests for SelfPlaySimulator */
+public class SelfPlaySimulatorTest {
+
+    // Tests that every requested game is played and counted
+    @Test
+    public void testPlaysEveryGame() throws InterruptedException {
+        SelfPlaySimulator simulator = new SelfPlaySimulator();
+        simulator.run("beginner", 301, 3, 1);
+        assertEquals(301, simulator.getGames());
+        assertTrue(simulator.getWins() > 0);
+        assertTrue(simulator.getWins() < 301);
+        // At least the first click of every game
+        assertTrue(simulator.getMoves() >= 301);
+    }
+
+    // Tests that the same seed and thread count play the same games
+    @Test
+    public void testRepeatable() throws InterruptedException {
+        SelfPlaySimulator first = new SelfPlaySimulator();
+        first.run("intermediate", 200, 2, 7);
+        SelfPlaySimulator second = new SelfPlaySimulator();
+        second.run("intermediate", 200, 2, 7);
+        assertEquals(first.getWins(), second.getWins());
+        assertEquals(first.getMoves(), second.getMoves());
+        assertEquals(first.getGuesses(), second.getGuesses());
+    }
+
+    // Tests that most beginner games are won with few guesses
+    @Test
+    public void testWinRate() throws InterruptedException {
+        SelfPlaySimulator simulator = new SelfPlaySimulator();
+        simulator.run("beginner", 500, 1, 3);
+        assertTrue(simulator.getGuesses() < simulator.getGames() * 3);
+        assertTrue(simulator.getWins() > simulator.getGames() / 2);
+    }
+}
@@ -0,0 +1,174 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/* Benchmark for the hint solver.
+ * Collects expert-board positions by playing seeded games with the solver
+ * (guessing when it has no deduction), then times FrontierSolver.solve on
+ * every collected position and checks the mean against a fixed budget, so
+ * bots can afford to call the solver on every move. Also times the full
+ * probability computation of a hint on every position without a certain
+ * move, with an empty cache, against the hint budget. Then times the
+ * solver in elimination mode on the same positions and counts the
+ * positions where it finds more than propagation alone.
+ *
+ * Run with e.g. java SolverBenchmark, or pass the number of games to
+ * collect positions from: java SolverBenchmark 500 */
+public class SolverBenchmark {
+
+    private static final int DEFAULT_GAMES = 200;
+    private static final long SEED = 594;
+
+    // Budget per solve of an expert position
+    private static final double SOLVE_MICROS = 50;
+    // Budget for the slowest probability hint on an expert position
+    private static final double HINT_MILLIS = 50;
+    // Budget per solve of an expert position in elimination mode
+    private static final double ELIMINATION_MICROS = 200;
+
+    public static void main(String[] args)
+    {
+        int games = args.length>0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        ArrayList<int[]> positions = expertPositions(games,SEED);
+        System.out.println(positions.size()+" expert positions from "+games+" games");
+
+        FrontierSolver solver = new FrontierSolver();
+        // Warm up the JIT
+        for(int i = 0;i<20;i++)
+            solveAll(solver,positions);
+
+        int rounds = 20;
+        long deductions = 0;
+        long start = System.nanoTime();
+        for(int i = 0;i<rounds;i++)
+            deductions += solveAll(solver,positions);
+        long nanos = System.nanoTime()-start;
+        double micros = nanos/1e3/((double)rounds*positions.size());
+        boolean passed = micros<=SOLVE_MICROS;
+        System.out.printf("  %-32s %8.2f us/solve  (budget %.0f)  %s%n",
+                "FrontierSolver.solve",micros,SOLVE_MICROS,passed ? "OK" : "OVER");
+        System.out.printf("  %-32s %8.2f per position%n","deductions",(double)deductions/rounds/positions.size());
+
+        // Probability hints, each from a fresh engine so nothing is cached
+        int guesses = 0;
+        int estimated = 0;
+        long slowest = 0;
+        long hintNanos = 0;
+        for(int round = 0;round<2;round++) // the first round warms up
+        {
+            guesses = 0;
+            estimated = 0;
+            slowest = 0;
+            hintNanos = 0;
+            for(int[] visible : positions)
+            {
+                ProbabilityEngine engine = new ProbabilityEngine();
+                long hintStart = System.nanoTime();
+                engine.compute(16,30,visible,99);
+                long time = System.nanoTime()-hintStart;
+                if(engine.getSolver().getSafeCount()>0)
+                    continue;
+                guesses++;
+                if(!engine.isExact())
+                    estimated++;
+                hintNanos += time;
+                slowest = Math.max(slowest,time);
+            }
+        }
+        boolean hintPassed = slowest/1e6<=HINT_MILLIS;
+        passed &= hintPassed;
+        System.out.printf("  %-32s %8.2f ms mean, %.2f ms slowest  (budget %.0f)  %s%n",
+                "probability hint ("+guesses+")",hintNanos/1e6/Math.max(1,guesses),slowest/1e6,HINT_MILLIS,hintPassed ? "OK" : "OVER");
+        System.out.printf("  %-32s %8d%n","hints cut off by the budget",estimated);
+
+        // Elimination mode against propagation alone
+        FrontierSolver elimination = new FrontierSolver();
+        elimination.setMode(FrontierSolver.Mode.ELIMINATION);
+        for(int i = 0;i<20;i++)
+            solveAll(elimination,positions);
+        long eliminated = 0;
+        start = System.nanoTime();
+        for(int i = 0;i<rounds;i++)
+            eliminated += solveAll(elimination,positions);
+        micros = (System.nanoTime()-start)/1e3/((double)rounds*positions.size());
+        boolean eliminationPassed = micros<=ELIMINATION_MICROS;
+        passed &= eliminationPassed;
+        int more = 0;
+        int unstuck = 0;
+        for(int[] visible : positions)
+        {
+            solver.solve(16,30,visible);
+            elimination.solve(16,30,visible);
+            if(elimination.getSafeCount()+elimination.getMineCount()>solver.getSafeCount()+solver.getMineCount())
+                more++;
+            if(solver.getSafeCount()==0 && elimination.getSafeCount()>0)
+                unstuck++;
+        }
+        System.out.printf("  %-32s %8.2f us/solve  (budget %.0f)  %s%n",
+                "elimination mode",micros,ELIMINATION_MICROS,eliminationPassed ? "OK" : "OVER");
+        System.out.printf("  %-32s %8.2f per position%n","deductions",(double)eliminated/rounds/positions.size());
+        System.out.printf("  %-32s %8d%n","positions with more deductions",more);
+        System.out.printf("  %-32s %8d%n","of those, no safe cell before",unstuck);
+        if(!passed)
+            System.exit(1);
+    }
+
+    // Solves every position and returns the number of deductions found
+    private static long solveAll(FrontierSolver solver, ArrayList<int[]> positions)
+    {
+        long found = 0;
+        for(int[] visible : positions)
+        {
+            solver.solve(16,30,visible);
+            found += solver.getSafeCount()+solver.getMineCount();
+        }
+        return found;
+    }
+
+    // Plays seeded expert games with the solver and keeps the visible state
+    // before every move
+    static ArrayList<int[]> expertPositions(int games, long seed)
+    {
+        Random rng = new Random(seed);
+        FrontierSolver solver = new FrontierSolver();
+        ArrayList<int[]> positions = new ArrayList<>();
+        for(int game = 0;game<games;game++)
+        {
+            Model model = new Model();
+            model.setSeed(rng.nextLong());
+            model.setFirstClickSafe(true);
+            model.newGame("expert");
+            model.press(8,15);
+            while(model.getStatus()==GameStatus.PLAYING)
+            {
+                int[] visible = visibleState(model);
+                positions.add(visible);
+                solver.solve(16,30,visible);
+                for(int i = 0;i<solver.getMineCount();i++)
+                    model.flag(solver.getMineCell(i)/30,solver.getMineCell(i)%30,true);
+                if(solver.getSafeCount()==0)
+                {
+                    int cell;
+                    do
+                        cell = rng.nextInt(visible.length);
+                    while(visible[cell]!=GameEngine.HIDDEN || model.getVisibleValue(cell/30,cell%30)!=GameEngine.HIDDEN);
+                    model.press(cell/30,cell%30);
+                    continue;
+                }
+                for(int i = 0;i<solver.getSafeCount() && model.getStatus()==GameStatus.PLAYING;i++)
+                    model.press(solver.getSafeCell(i)/30,solver.getSafeCell(i)%30);
+            }
+        }
+        return positions;
+    }
+
+    static int[] visibleState(GameEngine engine)
+    {
+        int rows = engine.getRows();
+        int cols = engine.getColumns();
+        int[] visible = new int[rows*cols];
+        for(int i = 0;i<rows;i++)
+            for(int j = 0;j<cols;j++)
+                visible[i*cols+j] = engine.getVisibleValue(i,j);
+        return visible;
+    }
+}
@@ -0,0 +1,301 @@
+/* Frontier solver state kept across the moves of a game.
+ * A session listens to a GameEngine: every tile exposed or flag changed
+ * marks that cell and its neighbors as changed. solve() then re-solves only
+ * the part of the frontier the changes can affect: the numbers next to the
+ * changed cells, grown through shared hidden cells until every number next
+ * to those hidden cells is in (the frontier components touching the
+ * change). Deductions elsewhere on the board cannot depend on the change,
+ * so they are kept, and a move costs about as much as the components it
+ * touches rather than the whole board.
+ *
+ * The deductions always match what FrontierSolver finds on the whole
+ * board, except when the flags contradict the numbers: the whole-board
+ * solver then deduces nothing, while a session only drops the deductions of
+ * the components with the contradiction.
+ *
+ * Boards larger than NeighborTable.MAX_CELLS cells are not followed: a
+ * session has no deductions while such a game is played. */
+public class SolverSession implements GameListener {
+
+    private final GameEngine engine;
+    private final FrontierSolver solver = new FrontierSolver();
+
+    private int rows;
+    private int cols;
+    private int[] visible;
+    // Null while the game is too large to follow
+    private NeighborTable neighbors;
+    // Current deductions, and the cells changed since the last solve
+    private CellSet safe;
+    private CellSet mines;
+    private CellSet dirty;
+    // Numbers of components whose flags contradict them
+    private CellSet conflicts;
+
+    // Numbers and hidden cells of the component being solved, stamps
+    // marking the cells already taken into a component this solve, and the
+    // numbers looked at by the last solve
+    private int[] component = new int[64];
+    private int componentSize;
+    private int[] hidden = new int[64];
+    private int hiddenSize;
+    private int[] mark;
+    private int stamp;
+    private final IntQueue queue = new IntQueue();
+    private int regionSize;
+
+    // Attaches a session to the engine; if a game is being played its
+    // whole board is solved by the first solve()
+    public SolverSession(GameEngine engine)
+    {
+        if(engine==null)
+            throw new IllegalArgumentException("Session needs a game engine");
+        this.engine = engine;
+        engine.addGameListener(this);
+        if(engine.getStatus()!=GameStatus.NOT_STARTED)
+            load();
+    }
+
+    // Stops following the engine
+    public void close()
+    {
+        engine.removeGameListener(this);
+    }
+
+    public GameEngine getEngine()
+    {
+        return engine;
+    }
+
+    public void gameStarted(GameEngine engine)
+    {
+        load();
+    }
+
+    public void tilesExposed(GameEngine engine, int[] cells, int count)
+    {
+        for(int i = 0;i<count;i++)
+            update(cells[i]);
+    }
+
+    public void tileFlagged(GameEngine engine, int cell, boolean flagged)
+    {
+        update(cell);
+    }
+
+    // Brings the deductions up to date with the moves made since the last
+    // call, re-solving only the components the moves touched. Components
+    // whose flags were wrong are solved again every time, until fixed.
+    public void solve()
+    {
+        regionSize = 0;
+        if(dirty==null)
+            return;
+        for(int i = 0;i<conflicts.size();i++)
+            dirty.add(conflicts.get(i));
+        if(dirty.isEmpty())
+            return;
+        if(++stamp==0)
+        {
+            java.util.Arrays.fill(mark,0);
+            stamp = 1;
+        }
+        for(int i = 0;i<dirty.size();i++)
+        {
+            int cell = dirty.get(i);
+            if(isNumber(cell))
+                solveComponent(cell);
+            else if(visible[cell]==GameEngine.HIDDEN)
+                forNumbersAround(cell,true);
+        }
+        dirty.clear();
+    }
+
+    // Number of hidden cells proven safe
+    public int getSafeCount()
+    {
+        return safe==null ? 0 : safe.size();
+    }
+
+    // The i-th safe cell (flat index), in no particular order
+    public int getSafeCell(int i)
+    {
+        return safe.get(i);
+    }
+
+    public int getMineCount()
+    {
+        return mines==null ? 0 : mines.size();
+    }
+
+    public int getMineCell(int i)
+    {
+        return mines.get(i);
+    }
+
+    // The safe cells, in increasing order
+    public int[] getSafeCells()
+    {
+        return safe==null ? new int[0] : safe.toSortedArray();
+    }
+
+    // The mine cells, in increasing order
+    public int[] getMineCells()
+    {
+        return mines==null ? new int[0] : mines.toSortedArray();
+    }
+
+    // False if some flags contradict the numbers around them; the cells
+    // near those numbers have no deductions until the flags are fixed
+    public boolean isConsistent()
+    {
+        return conflicts==null || conflicts.isEmpty();
+    }
+
+    // Number of exposed numbers the last solve() looked at
+    public int getLastRegionSize()
+    {
+        return regionSize;
+    }
+
+    // Reads the whole board and marks every cell changed
+    private void load()
+    {
+        rows = engine.getRows();
+        cols = engine.getColumns();
+        if(!NeighborTable.fits(rows,cols))
+        {
+            neighbors = null;
+            visible = null;
+            safe = mines = dirty = conflicts = null;
+            return;
+        }
+        neighbors = NeighborTable.forBoard(rows,cols);
+        int cells = rows*cols;
+        if(visible==null || visible.length!=cells)
+        {
+            visible = new int[cells];
+            mark = new int[cells];
+            safe = new CellSet(cells);
+            mines = new CellSet(cells);
+            dirty = new CellSet(cells);
+            conflicts = new CellSet(cells);
+        }
+        else
+        {
+            safe.clear();
+            mines.clear();
+            dirty.clear();
+            conflicts.clear();
+        }
+        for(int i = 0;i<rows;i++)
+        {
+            for(int j = 0;j<cols;j++)
+            {
+                int cell = i*cols+j;
+                visible[cell] = engine.getVisibleValue(i,j);
+                if(visible[cell]>=0 && visible[cell]<=8)
+                    dirty.add(cell);
+            }
+        }
+    }
+
+    // Reads the new value of a changed cell and marks it and its neighbors
+    private void update(int cell)
+    {
+        if(neighbors==null)
+            return;
+        visible[cell] = engine.getVisibleValue(cell/cols,cell%cols);
+        if(visible[cell]!=GameEngine.HIDDEN)
+        {
+            safe.remove(cell);
+            mines.remove(cell);
+        }
+        dirty.add(cell);
+        for(int j = neighbors.start(cell);j<neighbors.end(cell);j++)
+            dirty.add(neighbors.get(j));
+    }
+
+    // Solves the component of a number not looked at yet: the number, and
+    // every number sharing a hidden cell with one already in
+    private void solveComponent(int seed)
+    {
+        if(mark[seed]==stamp)
+            return;
+        componentSize = 0;
+        hiddenSize = 0;
+        queue.clear();
+        addNumber(seed);
+        while(!queue.isEmpty())
+        {
+            int number = queue.poll();
+            for(int j = neighbors.start(number);j<neighbors.end(number);j++)
+            {
+                int cell = neighbors.get(j);
+                if(visible[cell]==GameEngine.HIDDEN && mark[cell]!=stamp)
+                {
+                    mark[cell] = stamp;
+                    if(hiddenSize==hidden.length)
+                        hidden = java.util.Arrays.copyOf(hidden,hiddenSize*2);
+                    hidden[hiddenSize++] = cell;
+                    forNumbersAround(cell,false);
+                }
+            }
+        }
+        regionSize += componentSize;
+        solver.solve(rows,cols,visible,component,componentSize);
+
+        // Replace the deductions of the component's hidden cells
+        for(int i = 0;i<hiddenSize;i++)
+        {
+            safe.remove(hidden[i]);
+            mines.remove(hidden[i]);
+        }
+        if(solver.isConsistent())
+        {
+            for(int i = 0;i<componentSize;i++)
+                conflicts.remove(component[i]);
+            for(int i = 0;i<solver.getSafeCount();i++)
+                safe.add(solver.getSafeCell(i));
+            for(int i = 0;i<solver.getMineCount();i++)
+                mines.add(solver.getMineCell(i));
+        }
+        else
+        {
+            for(int i = 0;i<componentSize;i++)
+                conflicts.add(component[i]);
+        }
+    }
+
+    // Solves (or, while a component is being collected, adds) the numbers
+    // around a cell
+    private void forNumbersAround(int cell, boolean solve)
+    {
+        for(int j = neighbors.start(cell);j<neighbors.end(cell);j++)
+        {
+            int neighbor = neighbors.get(j);
+            if(!isNumber(neighbor))
+                continue;
+            if(solve)
+                solveComponent(neighbor);
+            else
+                addNumber(neighbor);
+        }
+    }
+
+    private void addNumber(int cell)
+    {
+        if(mark[cell]==stamp)
+            return;
+        mark[cell] = stamp;
+        if(componentSize==component.length)
+            component = java.util.Arrays.copyOf(component,componentSize*2);
+        component[componentSize++] = cell;
+        queue.add(cell);
+    }
+
+    private boolean isNumber(int cell)
+    {
+        return visible[cell]>=0 && visible[cell]<=8;
+    }
+}
@@ -0,0 +1,155 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/* Tests for the incremental solver session */
+public class SolverSessionTest {
+
+    // Plays seeded games with presses, flags and unflags (some of them
+    // wrong) and compares the session after every move with solving the
+    // whole board. While a wrong flag is down the two may differ, as the
+    // solver's rules do not always find a contradiction, so positions are
+    // compared while every flag is on a mine.
+    @Test
+    public void testMatchesFullSolve() {
+        Random rng = new Random(5);
+        FrontierSolver full = new FrontierSolver();
+        int compared = 0;
+        int wrongFlagMoves = 0;
+        for (int game = 0; game < 40; game++) {
+            Model model = new Model();
+            model.setSeed(rng.nextLong());
+            model.setFirstClickSafe(true);
+            SolverSession session = new SolverSession(model);
+            model.newGame(game % 2 == 0 ? "intermediate" : "expert");
+            int rows = model.getRows();
+            int cols = model.getColumns();
+            model.press(rows / 2, cols / 2);
+            String[][] grid = model.getGrid();
+            while (model.getStatus() == GameStatus.PLAYING) {
+                session.solve();
+                if (wrongFlags(model, grid) == 0) {
+                    full.solve(model);
+                    compared++;
+                    assertTrue(session.isConsistent());
+                    assertArrayEquals(full.getSafeCells(), session.getSafeCells());
+                    assertArrayEquals(full.getMineCells(), session.getMineCells());
+                } else {
+                    wrongFlagMoves++;
+                }
+                move(rng, model, session);
+            }
+            session.close();
+        }
+        assertTrue(compared > 1000);
+        assertTrue(wrongFlagMoves > 100);
+    }
+
+    // Tests that flagging a mine only re-solves the numbers of the
+    // component around it
+    @Test
+    public void testLocalChange() {
+        Model model = new Model();
+        model.setSeed(2);
+        model.setFirstClickSafe(true);
+        model.newGame("expert");
+        SolverSession session = new SolverSession(model);
+        model.press(8, 15);
+        session.solve();
+        // Open everything the session can prove safe
+        while (session.getSafeCount() > 0) {
+            int cell = session.getSafeCell(0);
+            model.press(cell / 30, cell % 30);
+            session.solve();
+        }
+        assertEquals(GameStatus.PLAYING, model.getStatus());
+        int[] mines = session.getMineCells();
+        assertTrue(mines.length > 0);
+        int numbers = 0;
+        for (int row = 0; row < 16; row++)
+            for (int col = 0; col < 30; col++)
+                if (model.getVisibleValue(row, col) >= 0 && model.getVisibleValue(row, col) <= 8)
+                    numbers++;
+
+        model.flag(mines[0] / 30, mines[0] % 30, true);
+        session.solve();
+        assertTrue(session.getLastRegionSize() > 0);
+        assertTrue(session.getLastRegionSize() < numbers);
+        assertFalse(Arrays.stream(session.getMineCells()).anyMatch(c -> c == mines[0]));
+
+        // Nothing changed since the last solve
+        session.solve();
+        assertEquals(0, session.getLastRegionSize());
+    }
+
+    // Tests that a session attached during a game reads the board, and one
+    // closed no longer follows it
+    @Test
+    public void testAttachAndClose() {
+        Model model = new Model();
+        model.setSeed(11);
+        model.setFirstClickSafe(true);
+        model.newGame("intermediate");
+        model.press(8, 8);
+        SolverSession session = new SolverSession(model);
+        session.solve();
+        FrontierSolver full = new FrontierSolver();
+        full.solve(model);
+        assertArrayEquals(full.getSafeCells(), session.getSafeCells());
+
+        session.close();
+        if (session.getSafeCount() > 0) {
+            int cell = session.getSafeCell(0);
+            model.press(cell / 16, cell % 16);
+            session.solve();
+            assertTrue(Arrays.stream(session.getSafeCells()).anyMatch(c -> c == cell));
+        }
+    }
+
+    // Number of flags on cells that are not mines
+    private static int wrongFlags(Model model, String[][] grid) {
+        int wrong = 0;
+        for (int row = 0; row < grid.length; row++)
+            for (int col = 0; col < grid[row].length; col++)
+                if (model.getVisibleValue(row, col) == GameEngine.FLAGGED
+                        && !ControllerToModel.MINE.equals(grid[row][col]))
+                    wrong++;
+        return wrong;
+    }
+
+    // Makes a move: usually presses a safe cell or flags a mine, sometimes
+    // flags a random hidden cell, takes back a flag or presses a random
+    // hidden cell
+    private static void move(Random rng, Model model, SolverSession session) {
+        int rows = model.getRows();
+        int cols = model.getColumns();
+        int choice = rng.nextInt(20);
+        if (choice < 12 && session.getSafeCount() > 0) {
+            int cell = session.getSafeCell(rng.nextInt(session.getSafeCount()));
+            model.press(cell / cols, cell % cols);
+        } else if (choice < 15 && session.getMineCount() > 0) {
+            int cell = session.getMineCell(rng.nextInt(session.getMineCount()));
+            model.flag(cell / cols, cell % cols, true);
+        } else if (choice < 18) {
+            // Takes back the first flag from a random cell on
+            int start = rng.nextInt(rows * cols);
+            for (int i = 0; i < rows * cols; i++) {
+                int cell = (start + i) % (rows * cols);
+                if (model.getVisibleValue(cell / cols, cell % cols) == GameEngine.FLAGGED) {
+                    model.flag(cell / cols, cell % cols, false);
+                    break;
+                }
+            }
+        } else {
+            int cell = rng.nextInt(rows * cols);
+            if (model.getVisibleValue(cell / cols, cell % cols) == GameEngine.HIDDEN) {
+                if (choice == 18)
+                    model.flag(cell / cols, cell % cols, true);
+                else
+                    model.press(cell / cols, cell % cols);
+            }
+        }
+    }
+}
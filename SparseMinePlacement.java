@@ -0,0 +1,20 @@
+import java.util.random.RandomGenerator;
+
+/* Floyd's sampling algorithm, using the board's mine bits as the set of
+ * chosen cells. Exactly one random number per mine, no retries, no
+ * memory beyond the board: O(mines). */
+public class SparseMinePlacement implements MinePlacementStrategy {
+
+    public void placeMines(Board board, int mines, RandomGenerator rng)
+    {
+        int size = board.size();
+        for(int j = size-mines;j<size;j++)
+        {
+            int cell = rng.nextInt(j+1);
+            // If cell was already chosen, j cannot have been, so take j
+            if(board.isMine(cell))
+                cell = j;
+            board.setMine(cell,true);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 
 import javax.swing.JButton;
 import javax.swing.JSpinner;
+import javax.swing.SwingUtilities;
 
 public class ViewGUI implements ControllerToViewGUI{
 
@@ -39,6 +42,11 @@ public class ViewGUI implements ControllerToViewGUI{
     private ViewGameTilesFrame gameframe;
     private ViewEndFrame endframe;
 
+    //time a hint may take before the player is told to try again
+    private static final long HINT_DEADLINE_MILLIS = 3000;
+    //the hint requested last, until it is shown
+    private CompletableFuture<int[]> pendingHint;
+
 
     public ViewGUI(ViewGUIToController c)
     {
@@ -238,6 +246,14 @@ public class ViewGUI implements ControllerToViewGUI{
         gameframe.refresh(exposed, emptyTileText);
     }
 
+    //make the game frame show the tiles in changes (from tilePressedChanges)
+    public void refreshChanges(int[] changes, String emptyTileText)
+    {
+        if(gameframe==null || myController==null)
+            System.exit(NULL_EXIT_CODE);
+        gameframe.refreshChanges(changes, emptyTileText, myController.getMineString());
+    }
+
     //extra lives option should be enabled for the user, notifies
     //start frame
     public void showExtraLives()
@@ -256,15 +272,31 @@ public class ViewGUI implements ControllerToViewGUI{
     }
     /**
      * Called when the user requests a hint
-     * Gets hint from the controller and displays it in the game frame
+     * Asks the controller for a hint, which is computed off the event
+     * dispatch thread, and displays it in the game frame once it is ready.
+     * The board stays usable meanwhile; pressing or flagging a tile, or
+     * asking again, cancels the hint.
      */
     public void requestHint() {
         if(myController == null || gameframe == null)
             System.exit(NULL_EXIT_CODE);
 
-        int[] hint = myController.getHint();
+        CompletableFuture<int[]> request = myController.requestHint(HINT_DEADLINE_MILLIS);
+        pendingHint = request;
+        request.whenComplete((hint, error) ->
+                SwingUtilities.invokeLater(() -> showHint(request, hint, error)));
+    }
+
+    //a requested hint is ready (on the event dispatch thread)
+    //show it unless it was cancelled or replaced by a newer request
+    private void showHint(CompletableFuture<int[]> request, int[] hint, Throwable error) {
+        if(request != pendingHint || request.isCancelled() || gameframe == null)
+            return;
+        pendingHint = null;
 
-        if(hint != null) {
+        if(error instanceof TimeoutException) {
+            createPopUp("The hint is taking too long. Try again in a moment!", 400, 150, true);
+        } else if(error == null && hint != null) {
             // Show hint in the game frame
             gameframe.highlightHintCell(hint[0], hint[1], false);
             createPopUp("Hint: Try the highlighted cell at row " + (hint[0]+1) + ", column " + (hint[1]+1), 400, 150, true);
@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 //implemented by the Controller for the ViewGUI to communicate with the controller through
 public interface ViewGUIToController {
 
@@ -27,5 +28,9 @@ public interface ViewGUIToController {
     public long getTotalGamesPlayed();
     public String getBestTime();
     public int[] getHint(); // New method for providing hints
+    public CompletableFuture<int[]> requestHint(long deadlineMillis); // hint computed off the calling thread
+    public void cancelHint();
+    public int getSafeTilesRemaining();
+    public double getPercentCleared();
 }
 
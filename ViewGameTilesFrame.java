@@ -4,6 +4,7 @@ import java.awt.FlowLayout;
 import java.awt.Font;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
@@ -157,6 +158,35 @@ public class ViewGameTilesFrame extends JFrame{
         repaint();
     }
 
+    //show only the tiles listed in changes, each entry being
+    //(cell index << DELTA_VALUE_BITS) | value as returned by the model
+    public void refreshChanges(int[] changes, String emptyTileText, String mineText)
+    {
+        if(changes!=null && emptyTileText!=null && buttons!=null)
+        {
+            for(int change : changes)
+            {
+                int cell = change>>>ControllerToModel.DELTA_VALUE_BITS;
+                int value = change & ControllerToModel.DELTA_VALUE_MASK;
+                JButton button = buttons[cell/numcols][cell%numcols];
+                if(button.getBackground()!=Color.GRAY && button.getText().equals(" "))
+                {
+                    String buttontext;
+                    if(value==ControllerToModel.DELTA_MINE)
+                        buttontext = mineText;
+                    else if(value==0)
+                        buttontext = emptyTileText;
+                    else
+                        buttontext = Integer.toString(value);
+                    button.setText(buttontext);
+                    if(value==0)
+                        button.setBackground(Color.GRAY);
+                }
+            }
+        }
+        repaint();
+    }
+
         // Highlight a cell recommended as a hint
     public void highlightHintCell(int row, int col, boolean isMine) {
         if (buttons != null && row >= 0 && col >= 0 && row < numrows && col < numcols) {
@@ -152,6 +152,26 @@ public class ViewTest {
         verify(mockGameFrame).stopTimer();
     }
 
+    @Test
+    public void testViewGUI_RefreshChanges() {
+        ViewGameTilesFrame mockGameFrame = mock(ViewGameTilesFrame.class);
+
+        // Use reflection to set private field
+        try {
+            java.lang.reflect.Field field = ViewGUI.class.getDeclaredField("gameframe");
+            field.setAccessible(true);
+            field.set(viewGUI, mockGameFrame);
+        } catch (Exception e) {
+            fail("Could not set gameframe field: " + e.getMessage());
+        }
+
+        int[] changes = {(5 << ControllerToModel.DELTA_VALUE_BITS) | 2};
+        viewGUI.refreshChanges(changes, " ");
+
+        // Only the delta is handed to the game frame, with the mine text
+        verify(mockGameFrame).refreshChanges(changes, " ", "*");
+    }
+
     @Test
     public void testViewGUI_PlayGame_Success() {
         // Setup mocks
@@ -0,0 +1,37 @@
+package minesweeper;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/* Entry point of benchmarks.jar: JMH with its usual command line, plus
+ * defaults so every run can be compared with another: the GC profiler
+ * (allocation rate per operation) unless other profilers are given, and
+ * JSON results in jmh-result.json unless -rf or -rff say otherwise. */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception
+    {
+        CommandLineOptions command = new CommandLineOptions(args);
+        if(command.shouldHelp())
+        {
+            command.showHelp();
+            return;
+        }
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(command);
+        if(command.getProfilers().isEmpty())
+            options.addProfiler(GCProfiler.class);
+        if(!command.getResultFormat().hasValue())
+            options.resultFormat(ResultFormatType.JSON);
+        if(!command.getResult().hasValue())
+            options.result("jmh-result.json");
+        Runner runner = new Runner(options.build());
+        if(command.shouldList())
+            runner.list();
+        else
+            runner.run();
+    }
+}
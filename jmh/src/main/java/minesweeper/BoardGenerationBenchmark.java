@@ -0,0 +1,45 @@
+package minesweeper;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Model.startGame per difficulty: a new board, the mines and the numbers.
+ * The generator is seeded once per trial, so every run generates the same
+ * sequence of boards. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardGenerationBenchmark {
+
+    @Param({"beginner", "intermediate", "expert"})
+    public String difficulty;
+
+    private Model model;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        model = ReferenceBoards.model(difficulty);
+    }
+
+    @Benchmark
+    public boolean startGame()
+    {
+        return model.startGame();
+    }
+}
@@ -0,0 +1,221 @@
+package minesweeper;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/* Moves on reference boards: single clicks on numbers, worst-case cascades,
+ * chords, the click that wins, and the status queries made after every
+ * move. Moves change the board, so each invocation starts from a fresh
+ * copy of the reference position (set up outside the measured time); moves
+ * too short to time one by one are made several at a time. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClickBenchmark {
+
+    static final int CLICKS = 64;
+
+    // The expert reference board before its first click, and numbers on it
+    @State(Scope.Thread)
+    public static class NumberClicks {
+        Model model;
+        int[] cells;
+
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            model = ReferenceBoards.model("expert");
+            cells = ReferenceBoards.numberCells(model,CLICKS);
+            if(cells.length<CLICKS)
+                throw new IllegalStateException("Reference board has too few numbers");
+        }
+
+        @Setup(Level.Invocation)
+        public void restart()
+        {
+            ReferenceBoards.restart(model);
+        }
+    }
+
+    // A size x size board with one mine in the top-left corner: a click on
+    // the opposite corner exposes every other tile
+    @State(Scope.Thread)
+    public static class Cascade {
+        @Param({"30", "300"})
+        public int size;
+
+        Model model;
+
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            model = new Model();
+            model.setLargeBoardMode(size>30);
+            model.setMinePlacementStrategy((board, count, rng) -> board.setMine(0,true));
+            model.newGame(size,size,1);
+        }
+
+        @Setup(Level.Invocation)
+        public void restart()
+        {
+            model.startGame();
+        }
+    }
+
+    // The expert reference board after its opening click with every mine
+    // flagged, and the numbers that can be chorded there
+    @State(Scope.Thread)
+    public static class Chords {
+        Model model;
+        int[] cells;
+
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            model = ReferenceBoards.model("expert");
+            restart();
+            int[] found = new int[16*30];
+            int count = 0;
+            for(int cell = 0;cell<16*30;cell++)
+                if(model.getVisibleValue(cell/30,cell%30)>0 && model.canChord(cell/30,cell%30) && hasHiddenNeighbor(cell))
+                    found[count++] = cell;
+            cells = java.util.Arrays.copyOf(found,count);
+        }
+
+        @Setup(Level.Invocation)
+        public void restart()
+        {
+            ReferenceBoards.restart(model);
+            model.press(8,15);
+            ReferenceBoards.flagAllMines(model);
+        }
+
+        private boolean hasHiddenNeighbor(int cell)
+        {
+            for(int r = Math.max(cell/30-1,0);r<=Math.min(cell/30+1,15);r++)
+                for(int c = Math.max(cell%30-1,0);c<=Math.min(cell%30+1,29);c++)
+                    if(model.getVisibleValue(r,c)==GameEngine.HIDDEN)
+                        return true;
+            return false;
+        }
+    }
+
+    // The expert reference board with every safe tile exposed but one, which
+    // no cascade reaches (none of its neighbors is empty)
+    @State(Scope.Thread)
+    public static class LastClick {
+        Model model;
+        int last;
+
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            model = ReferenceBoards.model("expert");
+            String[][] grid = model.getGrid();
+            last = -1;
+            for(int cell = 0;cell<16*30 && last<0;cell++)
+                if(!grid[cell/30][cell%30].equals(ControllerToModel.MINE) && !nextToEmpty(grid,cell))
+                    last = cell;
+            if(last<0)
+                throw new IllegalStateException("Reference board has no tile away from empty ones");
+        }
+
+        @Setup(Level.Invocation)
+        public void restart()
+        {
+            ReferenceBoards.restart(model);
+            String[][] grid = model.getGrid();
+            for(int cell = 0;cell<16*30;cell++)
+                if(cell!=last && !grid[cell/30][cell%30].equals(ControllerToModel.MINE)
+                        && model.getVisibleValue(cell/30,cell%30)==GameEngine.HIDDEN)
+                    model.pressTile(cell/30,cell%30,0);
+        }
+
+        private static boolean nextToEmpty(String[][] grid, int cell)
+        {
+            for(int r = Math.max(cell/30-1,0);r<=Math.min(cell/30+1,15);r++)
+                for(int c = Math.max(cell%30-1,0);c<=Math.min(cell%30+1,29);c++)
+                    if(grid[r][c].equals(ControllerToModel.EMPTY))
+                        return true;
+            return false;
+        }
+    }
+
+    // An expert game half cleared, for the queries made after every move
+    @State(Scope.Thread)
+    public static class MidGame {
+        Model model;
+
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            model = ReferenceBoards.expertPosition(0.5);
+        }
+    }
+
+    // A click on a number: only that tile is exposed (the GUI's call)
+    @Benchmark
+    @OperationsPerInvocation(CLICKS)
+    public void singleClick(NumberClicks state, Blackhole blackhole)
+    {
+        for(int cell : state.cells)
+            blackhole.consume(state.model.tilePressedChanges(cell/30,cell%30,0));
+    }
+
+    // The same click, returning the whole exposed matrix
+    @Benchmark
+    @OperationsPerInvocation(CLICKS)
+    public void singleClickMatrix(NumberClicks state, Blackhole blackhole)
+    {
+        for(int cell : state.cells)
+            blackhole.consume(state.model.tilePressed(cell/30,cell%30,0));
+    }
+
+    @Benchmark
+    public int cascade(Cascade state)
+    {
+        state.model.pressTile(state.size-1,state.size-1,0);
+        return state.model.getSafeTilesRemaining();
+    }
+
+    // Chords every number that can be chorded after the opening
+    @Benchmark
+    public void chord(Chords state, Blackhole blackhole)
+    {
+        for(int cell : state.cells)
+            blackhole.consume(state.model.chord(cell/30,cell%30,0));
+    }
+
+    // The click that exposes the last safe tile and wins the game
+    @Benchmark
+    public boolean winningClick(LastClick state)
+    {
+        state.model.pressTile(state.last/30,state.last%30,0);
+        return state.model.playerWon();
+    }
+
+    @Benchmark
+    public void status(MidGame state, Blackhole blackhole)
+    {
+        blackhole.consume(state.model.getStatus());
+        blackhole.consume(state.model.playerWon());
+        blackhole.consume(state.model.getSafeTilesRemaining());
+        blackhole.consume(state.model.getPercentCleared());
+    }
+}
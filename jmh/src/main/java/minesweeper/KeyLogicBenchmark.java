@@ -0,0 +1,110 @@
+package minesweeper;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* Every KeyLogicImp entry point on reference expert positions: a game
+ * played by the solver until the given fraction of its safe tiles is
+ * exposed (early, middle and end of a game). The grid and the exposed and
+ * flagged matrices are taken once, so only the analysis is measured. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KeyLogicBenchmark {
+
+    @Param({"0.1", "0.5", "0.85"})
+    public double cleared;
+
+    private String[][] grid;
+    private boolean[][] exposed;
+    private boolean[][] flagged;
+    private int mines;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        Model model = ReferenceBoards.expertPosition(cleared);
+        grid = model.getGrid();
+        exposed = new boolean[16][30];
+        flagged = new boolean[16][30];
+        for(int row = 0;row<16;row++)
+        {
+            for(int col = 0;col<30;col++)
+            {
+                int value = model.getVisibleValue(row,col);
+                exposed[row][col] = value>=0;
+                flagged[row][col] = value==GameEngine.FLAGGED;
+            }
+        }
+        mines = model.getNumMines();
+    }
+
+    @Benchmark
+    public int[] suggestCellToRevealAsMine()
+    {
+        return KeyLogicImp.suggestCellToRevealAsMine(grid,exposed,flagged);
+    }
+
+    @Benchmark
+    public int[] suggestSafeCell()
+    {
+        return KeyLogicImp.suggestSafeCell(grid,exposed,flagged);
+    }
+
+    @Benchmark
+    public FrontierSolver solveFrontier()
+    {
+        return KeyLogicImp.solveFrontier(grid,exposed,flagged);
+    }
+
+    @Benchmark
+    public FrontierSolver solveFrontierElimination()
+    {
+        return KeyLogicImp.solveFrontier(grid,exposed,flagged,FrontierSolver.Mode.ELIMINATION);
+    }
+
+    @Benchmark
+    public int[] suggestSafestGuess()
+    {
+        return KeyLogicImp.suggestSafestGuess(grid,exposed,flagged,mines);
+    }
+
+    @Benchmark
+    public double[][] mineProbabilities()
+    {
+        return KeyLogicImp.mineProbabilities(grid,exposed,flagged,mines);
+    }
+
+    @Benchmark
+    public int[] visibleState()
+    {
+        return KeyLogicImp.visibleState(grid,exposed,flagged);
+    }
+
+    @Benchmark
+    public int[] suggestNextMineToReveal()
+    {
+        return KeyLogicImp.suggestNextMineToReveal(grid,exposed,flagged);
+    }
+
+    @Benchmark
+    public int[][] suggestNextMinesToReveal()
+    {
+        return KeyLogicImp.suggestNextMinesToReveal(grid,exposed,flagged,5);
+    }
+}
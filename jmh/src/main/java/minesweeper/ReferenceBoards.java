@@ -0,0 +1,96 @@
+package minesweeper;
+
+import java.util.Random;
+
+/* The fixed boards and positions every benchmark starts from, so runs on
+ * different commits measure the same work. A board is a seed and settings:
+ * setting the seed again before startGame() gives the same mines (and the
+ * same first-click move) every time. */
+final class ReferenceBoards {
+
+    static final long SEED = 594;
+
+    private ReferenceBoards()
+    {
+    }
+
+    // A model that starts the reference board of a difficulty on
+    // startGame(), e.g. again before every invocation
+    static Model model(String difficulty)
+    {
+        Model model = new Model();
+        model.setDifficulty(difficulty);
+        restart(model);
+        return model;
+    }
+
+    // Starts the reference board again
+    static void restart(Model model)
+    {
+        model.setSeed(SEED);
+        model.setFirstClickSafe(true);
+        model.startGame();
+    }
+
+    // Cells (row-major) of the numbers (1-8) of a started game's board
+    static int[] numberCells(Model model, int max)
+    {
+        String[][] grid = model.getGrid();
+        int cols = model.getColumns();
+        int[] cells = new int[max];
+        int count = 0;
+        for(int cell = 0;cell<grid.length*cols && count<max;cell++)
+        {
+            String tile = grid[cell/cols][cell%cols];
+            if(!tile.equals(ControllerToModel.MINE) && !tile.equals(ControllerToModel.EMPTY))
+                cells[count++] = cell;
+        }
+        return java.util.Arrays.copyOf(cells,count);
+    }
+
+    // Flags every mine of a started game's board
+    static void flagAllMines(Model model)
+    {
+        String[][] grid = model.getGrid();
+        for(int row = 0;row<grid.length;row++)
+            for(int col = 0;col<grid[row].length;col++)
+                if(grid[row][col].equals(ControllerToModel.MINE))
+                    model.flag(row,col,true);
+    }
+
+    // Plays seeded expert games with the frontier solver (flagging its
+    // mines, guessing when stuck) until one reaches the given fraction of
+    // safe tiles exposed, and returns that game
+    static Model expertPosition(double cleared)
+    {
+        Random rng = new Random(SEED);
+        FrontierSolver solver = new FrontierSolver();
+        while(true)
+        {
+            Model model = new Model();
+            model.setSeed(rng.nextLong());
+            model.setFirstClickSafe(true);
+            model.newGame("expert");
+            model.press(8,15);
+            while(model.getStatus()==GameStatus.PLAYING)
+            {
+                if(model.getPercentCleared()>=100*cleared)
+                    return model;
+                solver.solve(model);
+                for(int i = 0;i<solver.getMineCount();i++)
+                    model.flag(solver.getMineCell(i)/30,solver.getMineCell(i)%30,true);
+                if(solver.getSafeCount()>0)
+                {
+                    int cell = solver.getSafeCell(0);
+                    model.press(cell/30,cell%30);
+                    continue;
+                }
+                int cell;
+                do
+                    cell = rng.nextInt(16*30);
+                while(model.getVisibleValue(cell/30,cell%30)!=GameEngine.HIDDEN);
+                model.press(cell/30,cell%30);
+            }
+        }
+    }
+}